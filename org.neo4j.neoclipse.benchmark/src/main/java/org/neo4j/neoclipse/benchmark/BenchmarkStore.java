@@ -0,0 +1,125 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+/**
+ * Generates and opens the embedded stores the benchmarks run against. A store
+ * is generated once per size and reused by later runs.
+ */
+public final class BenchmarkStore
+{
+    public enum BenchmarkRels implements RelationshipType
+    {
+        KNOWS,
+        LIKES,
+        OWNS
+    }
+
+    /**
+     * Outgoing relationships created per node.
+     */
+    public static final int RELATIONSHIPS_PER_NODE = 5;
+    /**
+     * Share of the relationships that point to one of the hubs.
+     */
+    private static final double HUB_SHARE = 0.1;
+    private static final int HUB_COUNT = 10;
+    private static final long SEED = 42L;
+
+    private BenchmarkStore()
+    {
+        // static helpers only
+    }
+
+    /**
+     * Opens a store with the given number of nodes, generating it first if
+     * needed. The first nodes are hubs, they have a large share of the
+     * relationships.
+     */
+    public static GraphDatabaseService open( final int nodeCount )
+    {
+        File dir = new File( baseDir(), "nodes-" + nodeCount );
+        if ( !new File( dir, "neostore" ).exists() )
+        {
+            generate( dir, nodeCount );
+        }
+        return new GraphDatabaseFactory().newEmbeddedDatabase( dir.getAbsolutePath() );
+    }
+
+    /**
+     * Returns the id of a hub node of the generated stores.
+     */
+    public static long hubNode()
+    {
+        return 1;
+    }
+
+    private static File baseDir()
+    {
+        return new File( System.getProperty( "neoclipse.benchmark.dir", "target" + File.separator
+                                                                         + "benchmark-stores" ) );
+    }
+
+    private static void generate( final File dir, final int nodeCount )
+    {
+        Random random = new Random( SEED );
+        BatchInserter inserter = BatchInserters.inserter( dir.getAbsolutePath() );
+        try
+        {
+            long[] ids = new long[nodeCount];
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                Map<String,Object> properties = new HashMap<String,Object>();
+                properties.put( "name", "node " + i );
+                properties.put( "index", i );
+                properties.put( "tags", new String[] { "tag" + i % 7, "tag" + i % 11 } );
+                properties.put( "weights", new double[] { random.nextDouble(), random.nextDouble() } );
+                ids[i] = inserter.createNode( properties );
+            }
+            BenchmarkRels[] types = BenchmarkRels.values();
+            int hubs = Math.min( HUB_COUNT, nodeCount );
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                for ( int r = 0; r < RELATIONSHIPS_PER_NODE; r++ )
+                {
+                    int target = random.nextDouble() < HUB_SHARE ? random.nextInt( hubs )
+                            : random.nextInt( nodeCount );
+                    Map<String,Object> properties = new HashMap<String,Object>();
+                    properties.put( "since", 1990 + random.nextInt( 30 ) );
+                    inserter.createRelationship( ids[i], ids[target], types[r % types.length], properties );
+                }
+            }
+        }
+        finally
+        {
+            inserter.shutdown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.neoclipse.util.DataExportUtils;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exporting the whole store in each format. The output is counted and
+ * dropped so that the disk doesn't dominate the measurement.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class ExportBenchmark
+{
+    @Param( { "10000", "100000" } )
+    public int nodeCount;
+
+    @Param( { "JSON", "CSV", "XML" } )
+    public Format format;
+
+    private GraphDatabaseService graphDb;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        graphDb = BenchmarkStore.open( nodeCount );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        graphDb.shutdown();
+    }
+
+    @Benchmark
+    public long writeAllNodes() throws IOException
+    {
+        CountingWriter out = new CountingWriter();
+        DataExportUtils.writeAllNodes( graphDb, format, out, new NullProgressMonitor() );
+        return out.count;
+    }
+
+    private static final class CountingWriter extends Writer
+    {
+        private long count = 0;
+
+        @Override
+        public void write( final char[] buffer, final int offset, final int length )
+        {
+            count += length;
+        }
+
+        @Override
+        public void write( final String str )
+        {
+            count += str.length();
+        }
+
+        @Override
+        public void flush()
+        {
+            // nothing buffered
+        }
+
+        @Override
+        public void close()
+        {
+            // nothing to release
+        }
+    }
+}
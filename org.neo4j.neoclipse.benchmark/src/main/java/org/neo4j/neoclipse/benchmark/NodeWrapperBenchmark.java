@@ -0,0 +1,98 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.neoclipse.editor.NodeWrapper;
+import org.neo4j.neoclipse.util.ApplicationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Turning nodes into the wrappers used by the Cypher result table and the
+ * exports.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class NodeWrapperBenchmark
+{
+    private static final int BATCH = 1000;
+
+    @Param( { "10000" } )
+    public int nodeCount;
+
+    @Param( { "true", "false" } )
+    public boolean includeRelations;
+
+    private GraphDatabaseService graphDb;
+    private final List<Node> batch = new ArrayList<Node>( BATCH );
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        graphDb = BenchmarkStore.open( nodeCount );
+        for ( Node node : graphDb.getAllNodes() )
+        {
+            if ( batch.size() == BATCH )
+            {
+                break;
+            }
+            batch.add( node );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        graphDb.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( BATCH )
+    public void extractToNodeWrapper( final Blackhole blackhole )
+    {
+        for ( Node node : batch )
+        {
+            NodeWrapper wrapper = ApplicationUtil.extractToNodeWrapper( node, includeRelations );
+            blackhole.consume( wrapper );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.neoclipse.property.PropertyTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering property values for the property sheet and the labels.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PropertyTransformBenchmark
+{
+    @Param( { "string", "long", "strings", "ints", "doubles" } )
+    public String type;
+
+    @Param( { "10", "1000" } )
+    public int arrayLength;
+
+    private Object value;
+
+    @Setup
+    public void setUp()
+    {
+        if ( "string".equals( type ) )
+        {
+            StringBuilder text = new StringBuilder( arrayLength );
+            for ( int i = 0; i < arrayLength; i++ )
+            {
+                text.append( (char) ( 'a' + i % 26 ) );
+            }
+            value = text.toString();
+        }
+        else if ( "long".equals( type ) )
+        {
+            value = Long.valueOf( arrayLength );
+        }
+        else if ( "strings".equals( type ) )
+        {
+            String[] strings = new String[arrayLength];
+            for ( int i = 0; i < arrayLength; i++ )
+            {
+                strings[i] = "value " + i;
+            }
+            value = strings;
+        }
+        else if ( "ints".equals( type ) )
+        {
+            int[] ints = new int[arrayLength];
+            for ( int i = 0; i < arrayLength; i++ )
+            {
+                ints[i] = i;
+            }
+            value = ints;
+        }
+        else
+        {
+            double[] doubles = new double[arrayLength];
+            for ( int i = 0; i < arrayLength; i++ )
+            {
+                doubles[i] = i / 3d;
+            }
+            value = doubles;
+        }
+    }
+
+    @Benchmark
+    public String render()
+    {
+        return PropertyTransform.render( value );
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round trip cost of handing a task to the service manager and waiting for
+ * it, on the transaction thread and on the read pool.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TaskSubmissionBenchmark
+{
+    @Param( { "READ_ONLY_EMBEDDED", "READ_WRITE_EMBEDDED" } )
+    public GraphDbServiceMode mode;
+
+    private GraphDbServiceManager gsm;
+
+    private final Callable<Integer> task = new Callable<Integer>()
+    {
+        @Override
+        public Integer call()
+        {
+            return 1;
+        }
+    };
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        gsm = new GraphDbServiceManager( mode );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        gsm.stopExecutingTasks();
+    }
+
+    @Benchmark
+    public Integer submitTask() throws Exception
+    {
+        return gsm.submitTask( task, "benchmark" ).get();
+    }
+
+    @Benchmark
+    public Integer submitReadTask() throws Exception
+    {
+        return gsm.submitReadTask( task, "benchmark" ).get();
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public Integer submitReadTaskContended() throws Exception
+    {
+        return gsm.submitReadTask( task, "benchmark" ).get();
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.neoclipse.benchmark.BenchmarkStore.BenchmarkRels;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceMode;
+import org.neo4j.neoclipse.graphdb.TraversalStrategies;
+import org.neo4j.neoclipse.graphdb.TraversalStrategy;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Expanding a hub with each traversal strategy, and looking up the
+ * relationships between the nodes found, the way Zest does during layout.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TraversalBenchmark
+{
+    @Param( { "10000", "100000" } )
+    public int nodeCount;
+
+    @Param( { "1", "2" } )
+    public int depth;
+
+    @Param( { "500" } )
+    public int nodeLimit;
+
+    @Param( { "BREADTH_FIRST", "DEPTH_FIRST", "SAMPLED", "MOST_CONNECTED" } )
+    public TraversalStrategies strategy;
+
+    private GraphDatabaseService graphDb;
+    private GraphDbServiceManager gsm;
+    private TraversalStrategy traverser;
+    private Node start;
+    private final Collection<DirectedRelationship> directedRels = new ArrayList<DirectedRelationship>();
+    private List<Node> nodes;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        graphDb = BenchmarkStore.open( nodeCount );
+        gsm = new GraphDbServiceManager( GraphDbServiceMode.READ_ONLY_EMBEDDED );
+        traverser = strategy.create();
+        start = graphDb.getNodeById( BenchmarkStore.hubNode() );
+        for ( BenchmarkRels relType : BenchmarkRels.values() )
+        {
+            directedRels.add( new Both( relType ) );
+        }
+        nodes = new ArrayList<Node>( traverser.getNodes( start, directedRels, depth, nodeLimit, gsm ) );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        gsm.stopExecutingTasks();
+        graphDb.shutdown();
+    }
+
+    @Benchmark
+    public Collection<Node> getNodes()
+    {
+        return traverser.getNodes( start, directedRels, depth, nodeLimit, gsm );
+    }
+
+    /**
+     * All ordered pairs of the nodes found, as asked for by the viewer.
+     */
+    @Benchmark
+    public void getRelationships( final Blackhole blackhole )
+    {
+        for ( Node source : nodes )
+        {
+            for ( Node dest : nodes )
+            {
+                Collection<Relationship> rels = traverser.getRelationships( source, dest );
+                blackhole.consume( rels );
+            }
+        }
+    }
+
+    private static final class Both implements DirectedRelationship
+    {
+        private final RelationshipType relType;
+
+        Both( final RelationshipType relType )
+        {
+            this.relType = relType;
+        }
+
+        @Override
+        public RelationshipType getRelType()
+        {
+            return relType;
+        }
+
+        @Override
+        public Direction getDirection()
+        {
+            return Direction.BOTH;
+        }
+
+        @Override
+        public boolean hasDirection()
+        {
+            return false;
+        }
+    }
+}
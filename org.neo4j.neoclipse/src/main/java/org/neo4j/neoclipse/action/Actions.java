@@ -111,9 +111,18 @@ public enum Actions
     RADIAL_LAYOUT( "Radial layout", Icons.RADIAL ),
     SPRING_LAYOUT( "Spring layout", Icons.SPRING ),
     TREE_LAYOUT( "Tree layout", Icons.TREE ),
+    BARNES_HUT_LAYOUT( "Barnes-Hut layout", "Force directed layout for large graphs." ),
+    INCREMENTAL_LAYOUT( "Incremental layout", "Keep the shown nodes in place and lay out only new nodes." ),
     // traversal depth
     DECREASE_TRAVERSAL_DEPTH( "Decrease traversal depth", Icons.MINUS_ENABLED, Icons.MINUS_DISABLED ),
     INCREASE_TRAVERSAL_DEPTH( "Increase traversal depth", Icons.PLUS_ENABLED, Icons.PLUS_DISABLED ),
+    // traversal strategy
+    BREADTH_FIRST_TRAVERSAL( "Breadth first", "Show the closest nodes first." ),
+    DEPTH_FIRST_TRAVERSAL( "Depth first", "Follow paths down to the traversal depth first." ),
+    SAMPLED_TRAVERSAL( "Sampled",
+            "Follow a sample of the relationships of each type on every node, favoring less connected neighbors." ),
+    MOST_CONNECTED_TRAVERSAL( "Most connected first",
+            "Prefer the nodes with the most relationships to the nodes already shown." ),
     // zoom
     ZOOM( "Zoom", Icons.ZOOM ),
     // property
@@ -125,7 +134,9 @@ public enum Actions
     NEW_CYPHER_EDITOR( "New Cypher Editor", Icons.CYPHER_EDITOR_ENABLED, Icons.CYPHER_EDITOR_DISABLED ),
     FORCE_START( "Close other connection and start", Icons.FORCE_START_ENABLED, Icons.FORCE_START_DISABLED ),
     EXPORT_XML( "ExportToXml", Icons.XML, Icons.XML ),
-    EXPORT_JSON( "ExportToJson", Icons.JSON, Icons.JSON ), ;
+    EXPORT_JSON( "ExportToJson", Icons.JSON, Icons.JSON ),
+    EXPORT_CSV( "ExportToCsv", Icons.CSV, Icons.CSV ),
+    IMPORT_DATA( "Import data", Icons.PLUS_ENABLED, Icons.PLUS_DISABLED ), ;
 
     private final String label;
     private final String tooltip;
@@ -145,6 +156,12 @@ public enum Actions
         this.disabledIcon = disabledIcon;
     }
 
+    private Actions( final String label, final String tooltip )
+    {
+        this.label = label;
+        this.tooltip = tooltip;
+    }
+
     private Actions( final String label )
     {
         this.label = label;
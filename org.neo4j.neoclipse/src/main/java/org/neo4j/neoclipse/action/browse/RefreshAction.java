@@ -19,13 +19,15 @@
 package org.neo4j.neoclipse.action.browse;
 
 import org.eclipse.jface.action.Action;
+import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.action.AbstractGraphAction;
 import org.neo4j.neoclipse.action.Actions;
 import org.neo4j.neoclipse.view.NeoGraphViewPart;
 
 /**
  * This action refreshes the graph view, e.g. it sets the current node again as
- * input source.
+ * input source. Data cached for a remote database and the decorations are
+ * fetched again.
  * 
  * @author Peter H&auml;nsgen
  */
@@ -45,6 +47,9 @@ public class RefreshAction extends AbstractGraphAction
     @Override
     public void run()
     {
+        Activator.getDefault().getGraphDbServiceManager().invalidateRemoteCache();
+        graphView.getLabelProvider().forgetDecorations();
+        graphView.refresh( true );
         graphView.refresh();
     }
 }
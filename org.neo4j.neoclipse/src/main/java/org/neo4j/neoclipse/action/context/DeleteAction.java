@@ -55,6 +55,5 @@ public class DeleteAction extends AbstractGraphAction
                 graphView.getCurrentSelectedRels(), graphView );
         GraphDbUtil.deletePropertyContainers(
                 graphView.getCurrentSelectedNodes(), graphView );
-        graphView.refreshPreserveLayout();
     }
 }
@@ -20,8 +20,12 @@ package org.neo4j.neoclipse.action.view;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuCreator;
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
+import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.zest.core.viewers.ZoomContributionViewItem;
 import org.neo4j.neoclipse.action.AbstractGraphAction;
 import org.neo4j.neoclipse.action.Actions;
@@ -56,6 +60,7 @@ public class ZoomAction extends AbstractGraphAction implements IMenuCreator
     {
         // represents 100%, workaround for non-public API of zoom manager
         graphView.getZoomableViewer().zoomTo( 0, 0, 0, 0 );
+        graphView.viewportChanged();
     }
 
     /**
@@ -70,6 +75,7 @@ public class ZoomAction extends AbstractGraphAction implements IMenuCreator
             ZoomContributionViewItem zoom = new ZoomContributionViewItem(
                     graphView );
             zoom.fill( menu, 0 );
+            addZoomListener( menu );
         }
         return menu;
     }
@@ -86,10 +92,31 @@ public class ZoomAction extends AbstractGraphAction implements IMenuCreator
             ZoomContributionViewItem zoom = new ZoomContributionViewItem(
                     graphView );
             zoom.fill( menu, 0 );
+            addZoomListener( menu );
         }
         return menu;
     }
 
+    /**
+     * Lets the graph view know when a zoom level was picked, so it can
+     * decorate what came into sight.
+     */
+    private void addZoomListener( final Menu zoomMenu )
+    {
+        Listener zoomed = new Listener()
+        {
+            @Override
+            public void handleEvent( final Event event )
+            {
+                graphView.viewportChanged();
+            }
+        };
+        for ( MenuItem item : zoomMenu.getItems() )
+        {
+            item.addListener( SWT.Selection, zoomed );
+        }
+    }
+
     /**
      * Disposes the zoom level menu.
      */
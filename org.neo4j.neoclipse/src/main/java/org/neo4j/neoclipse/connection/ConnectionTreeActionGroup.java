@@ -27,9 +27,11 @@ import org.neo4j.neoclipse.action.connect.StartAction;
 import org.neo4j.neoclipse.action.connect.StopAction;
 import org.neo4j.neoclipse.connection.actions.DeleteAliasAction;
 import org.neo4j.neoclipse.connection.actions.EditAliasAction;
+import org.neo4j.neoclipse.connection.actions.ExportToCsvAction;
 import org.neo4j.neoclipse.connection.actions.ExportToJsonAction;
 import org.neo4j.neoclipse.connection.actions.ExportToXmlAction;
 import org.neo4j.neoclipse.connection.actions.ForceStartAction;
+import org.neo4j.neoclipse.connection.actions.ImportDataAction;
 import org.neo4j.neoclipse.connection.actions.NewAliasAction;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
 import org.neo4j.neoclipse.view.NeoGraphViewPart;
@@ -68,6 +70,7 @@ public class ConnectionTreeActionGroup extends ActionGroup
             addAction( menu, new StopAction( neoGraphView ) );
             addAction( menu, new ExportToXmlAction() );
             addAction( menu, new ExportToJsonAction() );
+            addAction( menu, new ExportToCsvAction() );
 
         }
         else
@@ -85,6 +88,11 @@ public class ConnectionTreeActionGroup extends ActionGroup
             addAction( menu, new NewAliasAction() );
             addAction( menu, new EditAliasAction() );
             addAction( menu, new DeleteAliasAction() );
+            if ( alias.getConnectionMode() == ConnectionMode.LOCAL )
+            {
+                menu.add( new Separator() );
+                addAction( menu, new ImportDataAction() );
+            }
         }
     }
 
@@ -0,0 +1,68 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.connection.actions;
+
+import java.io.File;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
+import org.neo4j.neoclipse.view.ErrorMessage;
+
+/**
+ * Background job exporting all nodes of the running database. Shows its
+ * progress in the progress view and can be cancelled from there.
+ */
+public class ExportAllNodesJob extends Job
+{
+    private final Format format;
+
+    public ExportAllNodesJob( final Format format )
+    {
+        super( format.label() + " Export" );
+        this.format = format;
+        setUser( true );
+    }
+
+    @Override
+    protected IStatus run( final IProgressMonitor monitor )
+    {
+        final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        try
+        {
+            File file = gsm.exportAllNodes( format, monitor );
+            if ( file == null )
+            {
+                return Status.CANCEL_STATUS;
+            }
+            ErrorMessage.showDialog( format.label() + " Export", format.label() + " file is created at " + file );
+            return Status.OK_STATUS;
+        }
+        catch ( Exception e )
+        {
+            // the job framework reports the error to the user
+            return new Status( IStatus.ERROR, Activator.PLUGIN_ID, format.label() + " export failed: " + e.getMessage(),
+                    e );
+        }
+    }
+}
@@ -18,17 +18,9 @@
  */
 package org.neo4j.neoclipse.connection.actions;
 
-import java.io.File;
-import java.util.List;
-
-import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.action.Actions;
 import org.neo4j.neoclipse.connection.AbstractConnectionTreeAction;
-import org.neo4j.neoclipse.editor.NodeWrapper;
-import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
-import org.neo4j.neoclipse.util.ApplicationUtil;
-import org.neo4j.neoclipse.util.DataExportUtils;
-import org.neo4j.neoclipse.view.ErrorMessage;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
 
 /**
  * @author Radhakrishna Kalyan
@@ -45,19 +37,6 @@ public class ExportToJsonAction extends AbstractConnectionTreeAction
     @Override
     public void run()
     {
-        try
-        {
-            final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
-            final List<NodeWrapper> resultSetList = gsm.getAllNodes();
-            File file = DataExportUtils.exportToJson( ApplicationUtil.toJson( resultSetList ) );
-            ErrorMessage.showDialog( "Json Export", "Json file is created at " + file );
-        }
-        catch ( Exception e )
-        {
-            ErrorMessage.showDialog( "Json exporting problem", e );
-        }
-
+        new ExportAllNodesJob( Format.JSON ).schedule();
     }
-
-
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.connection.actions;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.action.Actions;
+import org.neo4j.neoclipse.connection.AbstractConnectionTreeAction;
+import org.neo4j.neoclipse.connection.Alias;
+import org.neo4j.neoclipse.connection.ConnectionsView;
+
+/**
+ * Imports JSON and CSV files into the selected database, which has to be
+ * stopped.
+ */
+public class ImportDataAction extends AbstractConnectionTreeAction
+{
+    private static final String[] EXT_FILTER = { "*.json;*.csv", "*.*" };
+    private static final String[] EXT_FILTER_NAMES = { "JSON and CSV files",
+            "All files" };
+
+    public ImportDataAction()
+    {
+        super( Actions.IMPORT_DATA );
+    }
+
+    @Override
+    public void run()
+    {
+        ConnectionsView view = Activator.getDefault().getConnectionsView();
+        Alias alias = view.getSelectedAlias();
+        if ( alias == null )
+        {
+            return;
+        }
+        FileDialog dialog = new FileDialog( view.getSite().getShell(),
+                SWT.OPEN | SWT.MULTI );
+        dialog.setText( "Import into " + alias.getName() );
+        dialog.setFilterExtensions( EXT_FILTER );
+        dialog.setFilterNames( EXT_FILTER_NAMES );
+        if ( dialog.open() == null )
+        {
+            return;
+        }
+        List<File> files = new ArrayList<File>();
+        for ( String name : dialog.getFileNames() )
+        {
+            files.add( new File( dialog.getFilterPath(), name ) );
+        }
+        new ImportDataJob( alias, files ).schedule();
+    }
+}
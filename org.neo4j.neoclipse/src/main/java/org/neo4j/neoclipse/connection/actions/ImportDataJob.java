@@ -0,0 +1,77 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.connection.actions;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.connection.Alias;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.util.DataImportUtils;
+import org.neo4j.neoclipse.util.DataImportUtils.ImportSummary;
+import org.neo4j.neoclipse.view.ErrorMessage;
+
+/**
+ * Background job importing files into a stopped database. Shows its progress
+ * in the progress view and can be cancelled from there, the data written up
+ * to that point stays in the database.
+ */
+public class ImportDataJob extends Job
+{
+    private static final String TITLE = "Data Import";
+
+    private final Alias alias;
+    private final List<File> files;
+
+    public ImportDataJob( final Alias alias, final List<File> files )
+    {
+        super( TITLE );
+        this.alias = alias;
+        this.files = files;
+        setUser( true );
+    }
+
+    @Override
+    protected IStatus run( final IProgressMonitor monitor )
+    {
+        final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        if ( gsm.isRunning() && alias.equals( gsm.getCurrentAlias() ) )
+        {
+            ErrorMessage.showDialog( TITLE, "Stop the database before importing into it." );
+            return Status.CANCEL_STATUS;
+        }
+        try
+        {
+            ImportSummary summary = DataImportUtils.importFiles( alias.getUri(), alias.getConfigurationMap(), files,
+                    monitor );
+            ErrorMessage.showDialog( TITLE, summary.toString() );
+            return summary.isCompleted() ? Status.OK_STATUS : Status.CANCEL_STATUS;
+        }
+        catch ( Exception e )
+        {
+            // the job framework reports the error to the user
+            return new Status( IStatus.ERROR, Activator.PLUGIN_ID, "Import failed: " + e.getMessage(), e );
+        }
+    }
+}
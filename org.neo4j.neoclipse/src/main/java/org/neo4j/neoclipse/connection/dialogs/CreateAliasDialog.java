@@ -18,6 +18,8 @@
  */
 package org.neo4j.neoclipse.connection.dialogs;
 
+import java.util.HashMap;
+
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.TitleAreaDialog;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
@@ -38,6 +40,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.connection.Alias;
 import org.neo4j.neoclipse.connection.ConnectionsView;
+import org.neo4j.neoclipse.graphdb.RestTransport;
 import org.neo4j.neoclipse.preference.Preferences;
 import org.neo4j.neoclipse.util.ApplicationUtil;
 import org.neo4j.neoclipse.view.ErrorMessage;
@@ -76,6 +79,9 @@ public class CreateAliasDialog extends TitleAreaDialog
     private Button allowUpgrade;
     private Text userField;
     private Text passwordField;
+    private Text connectTimeoutField;
+    private Text readTimeoutField;
+    private Button gzipButton;
 
     public CreateAliasDialog( Shell parentShell, Type type )
     {
@@ -128,6 +134,10 @@ public class CreateAliasDialog extends TitleAreaDialog
             userField.setText( ApplicationUtil.returnEmptyIfBlank( selectedAlias.getUserName() ) );
             passwordField.setEchoChar( '*' );
             passwordField.setText( ApplicationUtil.returnEmptyIfBlank( selectedAlias.getPassword() ) );
+            RestTransport transport = RestTransport.fromConfiguration( selectedAlias.getConfigurationMap() );
+            connectTimeoutField.setText( Integer.toString( transport.getConnectTimeout() ) );
+            readTimeoutField.setText( Integer.toString( transport.getReadTimeout() ) );
+            gzipButton.setSelection( transport.isGzip() );
         }
 
         return contents;
@@ -259,6 +269,31 @@ public class CreateAliasDialog extends TitleAreaDialog
         data.widthHint = SIZING_TEXT_FIELD_WIDTH;
         passwordField.setLayoutData( data );
 
+        RestTransport transport = RestTransport.fromConfiguration( new HashMap<String, String>() );
+        Label label6 = new Label( nameGroup, SWT.WRAP );
+        label6.setText( ( "Connect timeout (s)" ) );
+        connectTimeoutField = new Text( nameGroup, SWT.BORDER );
+        connectTimeoutField.setText( Integer.toString( transport.getConnectTimeout() ) );
+        data = new GridData( GridData.HORIZONTAL_ALIGN_FILL | GridData.GRAB_HORIZONTAL );
+        data.horizontalSpan = 2;
+        connectTimeoutField.setLayoutData( data );
+
+        Label label7 = new Label( nameGroup, SWT.WRAP );
+        label7.setText( ( "Read timeout (s)" ) );
+        readTimeoutField = new Text( nameGroup, SWT.BORDER );
+        readTimeoutField.setText( Integer.toString( transport.getReadTimeout() ) );
+        data = new GridData( GridData.HORIZONTAL_ALIGN_FILL | GridData.GRAB_HORIZONTAL );
+        data.horizontalSpan = 2;
+        readTimeoutField.setLayoutData( data );
+
+        new Label( nameGroup, SWT.NONE );
+        gzipButton = new Button( nameGroup, SWT.CHECK );
+        gzipButton.setText( "Compress responses (remote only)" );
+        gzipButton.setSelection( transport.isGzip() );
+        data = new GridData( GridData.HORIZONTAL_ALIGN_FILL | GridData.GRAB_HORIZONTAL );
+        data.horizontalSpan = 2;
+        gzipButton.setLayoutData( data );
+
         new Label( nameGroup, SWT.NONE );
 
         connectionPropertiesComposite = new Composite( nameGroup, SWT.NONE );
@@ -282,10 +317,18 @@ public class CreateAliasDialog extends TitleAreaDialog
         {
             Alias alias = new Alias( nameField.getText(), urlField.getStringValue(), userField.getText(),
                     passwordField.getText() );
-            alias.addConfiguration( Config.ALLOW_STORE_UPGRADE, Boolean.toString( allowUpgrade.getSelection() ) );
+            Alias selectedAlias = null;
             if ( type == Type.EDIT )
             {
-                Alias selectedAlias = Activator.getDefault().getConnectionsView().getSelectedAlias();
+                selectedAlias = Activator.getDefault().getConnectionsView().getSelectedAlias();
+                alias.getConfigurationMap().putAll( selectedAlias.getConfigurationMap() );
+            }
+            alias.addConfiguration( Config.ALLOW_STORE_UPGRADE, Boolean.toString( allowUpgrade.getSelection() ) );
+            alias.addConfiguration( RestTransport.CONNECT_TIMEOUT, connectTimeoutField.getText().trim() );
+            alias.addConfiguration( RestTransport.READ_TIMEOUT, readTimeoutField.getText().trim() );
+            alias.addConfiguration( RestTransport.GZIP, Boolean.toString( gzipButton.getSelection() ) );
+            if ( selectedAlias != null )
+            {
                 Activator.getDefault().getAliasManager().removeAlias( selectedAlias );
             }
             Activator.getDefault().getAliasManager().addAlias( alias );
@@ -0,0 +1,166 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.decorate;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+/**
+ * Bounded LRU cache of node and relationship decorations, keyed by entity
+ * id. Every entry is stamped with the version of the view settings it was
+ * computed with, so entries from older settings are treated as missing.
+ */
+public class DecorationCache
+{
+    /**
+     * Maximum number of cached decorations.
+     */
+    private static final int CAPACITY = 20000;
+
+    /**
+     * The different decorations that are cached.
+     */
+    public enum Aspect
+    {
+        NODE_TEXT,
+        NODE_IMAGE,
+        NODE_COLOR,
+        RELATIONSHIP_TEXT
+    }
+
+    private static final class Key
+    {
+        private final Aspect aspect;
+        private final long id;
+
+        Key( final Aspect aspect, final long id )
+        {
+            this.aspect = aspect;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * aspect.hashCode() + (int) ( id ^ ( id >>> 32 ) );
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return aspect == other.aspect && id == other.id;
+        }
+    }
+
+    /**
+     * A cached decoration, the value may be null.
+     */
+    public static final class CacheEntry
+    {
+        private final Object value;
+        private final long version;
+
+        CacheEntry( final Object value, final long version )
+        {
+            this.value = value;
+            this.version = version;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+    }
+
+    private final ConcurrentLinkedHashMap<Key, CacheEntry> entries = new ConcurrentLinkedHashMap.Builder<Key, CacheEntry>()
+            .maximumWeightedCapacity( CAPACITY )
+            .build();
+
+    /**
+     * Look up a decoration.
+     * 
+     * @param aspect the kind of decoration
+     * @param id id of the node or relationship
+     * @param version current version of the view settings
+     * @return the entry or null if there is no valid entry
+     */
+    public CacheEntry get( final Aspect aspect, final long id, final long version )
+    {
+        CacheEntry entry = entries.get( new Key( aspect, id ) );
+        if ( entry == null || entry.version != version )
+        {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Store a decoration.
+     * 
+     * @param aspect the kind of decoration
+     * @param id id of the node or relationship
+     * @param version version of the view settings used to compute the value
+     * @param value the decoration, may be null
+     */
+    public void put( final Aspect aspect, final long id, final long version,
+            final Object value )
+    {
+        entries.put( new Key( aspect, id ), new CacheEntry( value, version ) );
+    }
+
+    /**
+     * Remove all decorations of a node or relationship.
+     * 
+     * @param element the node or relationship
+     */
+    public void invalidate( final Object element )
+    {
+        if ( element instanceof Node )
+        {
+            long id = ( (Node) element ).getId();
+            entries.remove( new Key( Aspect.NODE_TEXT, id ) );
+            entries.remove( new Key( Aspect.NODE_IMAGE, id ) );
+            entries.remove( new Key( Aspect.NODE_COLOR, id ) );
+        }
+        else if ( element instanceof Relationship )
+        {
+            entries.remove( new Key( Aspect.RELATIONSHIP_TEXT,
+                    ( (Relationship) element ).getId() ) );
+        }
+    }
+
+    /**
+     * Remove all decorations.
+     */
+    public void clear()
+    {
+        entries.clear();
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.decorate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Immutable table of node and relationship decorations, computed in one go
+ * for all elements of a graph view refresh. Label callbacks read from here
+ * instead of going to the database for every element. Marked node colors are
+ * not included, as only a few nodes are marked at a time. The graph view
+ * fills it lazily, with the elements that come into sight.
+ * 
+ * @see SimpleGraphDecorator#createSnapshot(java.util.Collection)
+ */
+public class DecorationSnapshot
+{
+    public static final DecorationSnapshot EMPTY = new DecorationSnapshot(
+            Collections.<Node, NodeDecoration>emptyMap(),
+            Collections.<Relationship, String>emptyMap() );
+
+    /**
+     * Decoration of a single node.
+     */
+    public static class NodeDecoration
+    {
+        private final String text;
+        private final Image image;
+        private final Color color;
+
+        NodeDecoration( final String text, final Image image, final Color color )
+        {
+            this.text = text;
+            this.image = image;
+            this.color = color;
+        }
+
+        public String getText()
+        {
+            return text;
+        }
+
+        public Image getImage()
+        {
+            return image;
+        }
+
+        public Color getColor()
+        {
+            return color;
+        }
+    }
+
+    private final Map<Node, NodeDecoration> nodes;
+    private final Map<Relationship, String> relationshipTexts;
+
+    DecorationSnapshot( final Map<Node, NodeDecoration> nodes,
+            final Map<Relationship, String> relationshipTexts )
+    {
+        this.nodes = nodes;
+        this.relationshipTexts = relationshipTexts;
+    }
+
+    /**
+     * Get the decoration of a node.
+     * 
+     * @param node the node
+     * @return the decoration or null if the node isn't in the snapshot
+     */
+    public NodeDecoration getNode( final Node node )
+    {
+        return nodes.get( node );
+    }
+
+    /**
+     * Get the text of a relationship.
+     * 
+     * @param rel the relationship
+     * @return the text or null if the relationship isn't in the snapshot
+     */
+    public String getRelationshipText( final Relationship rel )
+    {
+        return relationshipTexts.get( rel );
+    }
+
+    /**
+     * Check if a node or relationship is in the snapshot.
+     * 
+     * @param element node or relationship
+     * @return true if the element is decorated
+     */
+    public boolean contains( final Object element )
+    {
+        return nodes.containsKey( element )
+               || relationshipTexts.containsKey( element );
+    }
+
+    /**
+     * Get a copy of this snapshot that also holds the decorations of another
+     * one, which take precedence.
+     * 
+     * @param other the decorations to add
+     * @return the new snapshot
+     */
+    public DecorationSnapshot with( final DecorationSnapshot other )
+    {
+        if ( other.nodes.isEmpty() && other.relationshipTexts.isEmpty() )
+        {
+            return this;
+        }
+        Map<Node, NodeDecoration> newNodes = new HashMap<Node, NodeDecoration>(
+                nodes );
+        Map<Relationship, String> newRelationshipTexts = new HashMap<Relationship, String>(
+                relationshipTexts );
+        newNodes.putAll( other.nodes );
+        newRelationshipTexts.putAll( other.relationshipTexts );
+        return new DecorationSnapshot( newNodes, newRelationshipTexts );
+    }
+
+    /**
+     * Get a copy of this snapshot without the given element, so that it will
+     * be decorated from the database again.
+     * 
+     * @param element node or relationship to drop
+     * @return the new snapshot
+     */
+    public DecorationSnapshot without( final Object element )
+    {
+        if ( !nodes.containsKey( element )
+             && !relationshipTexts.containsKey( element ) )
+        {
+            return this;
+        }
+        Map<Node, NodeDecoration> newNodes = new HashMap<Node, NodeDecoration>(
+                nodes );
+        Map<Relationship, String> newRelationshipTexts = new HashMap<Relationship, String>(
+                relationshipTexts );
+        newNodes.remove( element );
+        newRelationshipTexts.remove( element );
+        return new DecorationSnapshot( newNodes, newRelationshipTexts );
+    }
+}
@@ -19,6 +19,9 @@
 package org.neo4j.neoclipse.decorate;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -39,6 +42,9 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.Icons;
+import org.neo4j.neoclipse.decorate.DecorationCache.Aspect;
+import org.neo4j.neoclipse.decorate.DecorationCache.CacheEntry;
+import org.neo4j.neoclipse.decorate.DecorationSnapshot.NodeDecoration;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
 import org.neo4j.neoclipse.graphdb.GraphDbUtil;
 import org.neo4j.neoclipse.preference.DecoratorPreferences;
@@ -97,6 +103,59 @@ public class SimpleGraphDecorator
      * View settings for this decorator.
      */
     private final ViewSettings viewSettings;
+    /**
+     * Cached decorations.
+     */
+    private final DecorationCache cache = new DecorationCache();
+
+    /**
+     * Reads properties for the text decorations.
+     */
+    private interface PropertyReader
+    {
+        Map<String, Object> read( PropertyContainer container );
+
+        Map<String, Object> read( PropertyContainer container,
+                List<String> propertyKeys );
+    }
+
+    /**
+     * Reads properties by submitting tasks, for use outside of graph tasks.
+     */
+    private static final PropertyReader SUBMITTING_READER = new PropertyReader()
+    {
+        @Override
+        public Map<String, Object> read( final PropertyContainer container )
+        {
+            return GraphDbUtil.getProperties( container );
+        }
+
+        @Override
+        public Map<String, Object> read( final PropertyContainer container,
+                final List<String> propertyKeys )
+        {
+            return GraphDbUtil.getProperties( container, propertyKeys );
+        }
+    };
+
+    /**
+     * Reads properties directly, for use inside of graph tasks.
+     */
+    private static final PropertyReader DIRECT_READER = new PropertyReader()
+    {
+        @Override
+        public Map<String, Object> read( final PropertyContainer container )
+        {
+            return GraphDbUtil.readProperties( container );
+        }
+
+        @Override
+        public Map<String, Object> read( final PropertyContainer container,
+                final List<String> propertyKeys )
+        {
+            return GraphDbUtil.readProperties( container, propertyKeys );
+        }
+    };
 
     public static class Settings
     {
@@ -243,6 +302,10 @@ public class SimpleGraphDecorator
         private boolean showNodePropertyKeys;
         private boolean filterNodeProperties;
         private boolean filterRelationshipProperties;
+        /**
+         * Changed every time a setting is changed.
+         */
+        private volatile long version = 0;
 
         /**
          * Create instance, load values from preference store.
@@ -266,6 +329,15 @@ public class SimpleGraphDecorator
             filterRelationshipProperties = preferenceStore.getBoolean( DecoratorPreferences.FILTER_RELATIONSHIP_PROPERTIES );
         }
 
+        /**
+         * Get the current version of the settings, which changes every time a
+         * setting is changed.
+         */
+        public long getVersion()
+        {
+            return version;
+        }
+
         public boolean isShowRelationshipTypes()
         {
             return showRelationshipTypes;
@@ -275,6 +347,7 @@ public class SimpleGraphDecorator
                 final boolean showRelationshipTypes )
         {
             this.showRelationshipTypes = showRelationshipTypes;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_RELATIONSHIP_TYPES,
                     showRelationshipTypes );
@@ -289,6 +362,7 @@ public class SimpleGraphDecorator
                 final boolean showRelationshipNames )
         {
             this.showRelationshipNames = showRelationshipNames;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_RELATIONSHIP_NAMES,
                     showRelationshipNames );
@@ -303,6 +377,7 @@ public class SimpleGraphDecorator
                 final boolean showRelationshipPropertyKeys )
         {
             this.showRelationshipPropertyKeys = showRelationshipPropertyKeys;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_RELATIONSHIP_PROPERTY_KEYS,
                     showRelationshipPropertyKeys );
@@ -317,6 +392,7 @@ public class SimpleGraphDecorator
                 final boolean filterRelationshipProperties )
         {
             this.filterRelationshipProperties = filterRelationshipProperties;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.FILTER_RELATIONSHIP_PROPERTIES,
                     filterRelationshipProperties );
@@ -330,6 +406,7 @@ public class SimpleGraphDecorator
         public void setShowRelationshipIds( final boolean showRelationshipIds )
         {
             this.showRelationshipIds = showRelationshipIds;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_RELATIONSHIP_IDS,
                     showRelationshipIds );
@@ -344,6 +421,7 @@ public class SimpleGraphDecorator
                 final boolean showRelationshipColors )
         {
             this.showRelationshipColors = showRelationshipColors;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_RELATIONSHIP_COLORS,
                     showRelationshipColors );
@@ -357,6 +435,7 @@ public class SimpleGraphDecorator
         public void setShowArrows( final boolean showArrows )
         {
             this.showArrows = showArrows;
+            version++;
             preferenceStore.setValue( DecoratorPreferences.SHOW_ARROWS,
                     showArrows );
         }
@@ -369,6 +448,7 @@ public class SimpleGraphDecorator
         public void setShowNodeIds( final boolean showNodeIds )
         {
             this.showNodeIds = showNodeIds;
+            version++;
             preferenceStore.setValue( DecoratorPreferences.SHOW_NODE_IDS,
                     showNodeIds );
         }
@@ -381,6 +461,7 @@ public class SimpleGraphDecorator
         public void setShowNodeNames( final boolean showNodeNames )
         {
             this.showNodeNames = showNodeNames;
+            version++;
             preferenceStore.setValue( DecoratorPreferences.SHOW_NODE_NAMES,
                     showNodeNames );
         }
@@ -393,6 +474,7 @@ public class SimpleGraphDecorator
         public void setShowNodePropertyKeys( final boolean showNodePropertyKeys )
         {
             this.showNodePropertyKeys = showNodePropertyKeys;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.SHOW_NODE_PROPERTY_KEYS,
                     showNodePropertyKeys );
@@ -406,6 +488,7 @@ public class SimpleGraphDecorator
         public void setFilterNodeProperties( final boolean filterNodeProperties )
         {
             this.filterNodeProperties = filterNodeProperties;
+            version++;
             preferenceStore.setValue(
                     DecoratorPreferences.FILTER_NODE_PROPERTIES,
                     filterNodeProperties );
@@ -419,6 +502,7 @@ public class SimpleGraphDecorator
         public void setShowNodeIcons( final boolean showNodeIcons )
         {
             this.showNodeIcons = showNodeIcons;
+            version++;
             preferenceStore.setValue( DecoratorPreferences.SHOW_NODE_ICONS,
                     showNodeIcons );
         }
@@ -431,6 +515,7 @@ public class SimpleGraphDecorator
         public void setShowNodeColors( final boolean showNodeColors )
         {
             this.showNodeColors = showNodeColors;
+            version++;
             preferenceStore.setValue( DecoratorPreferences.SHOW_NODE_COLORS,
                     showNodeColors );
         }
@@ -473,44 +558,25 @@ public class SimpleGraphDecorator
      */
     private Color getNodeColor( final Node node, final boolean marked )
     {
+        if ( !marked )
+        {
+            CacheEntry cached = cache.get( Aspect.NODE_COLOR, node.getId(),
+                    viewSettings.getVersion() );
+            if ( cached != null )
+            {
+                return (Color) cached.getValue();
+            }
+        }
         GraphDbServiceManager gsm = Activator.getDefault()
                 .getGraphDbServiceManager();
         try
         {
-            return gsm.submitTask( new Callable<Color>()
+            return gsm.submitReadTask( new Callable<Color>()
             {
                 @Override
                 public Color call() throws Exception
                 {
-                    Relationship randomRel = null;
-                    Direction randomDir = null;
-                    for ( Direction direction : settings.getDirections() )
-                    {
-                        for ( Relationship rel : node.getRelationships( direction ) )
-                        {
-                            RelationshipType type = rel.getType();
-                            if ( !colorMapper.colorExists( type ) )
-                            {
-                                if ( randomRel == null )
-                                {
-                                    randomRel = rel;
-                                    randomDir = direction;
-                                }
-                                continue;
-                            }
-                            else
-                            {
-                                return getColorFromDirection( type, direction,
-                                        marked );
-                            }
-                        }
-                    }
-                    if ( randomRel != null )
-                    {
-                        return getColorFromDirection( randomRel.getType(),
-                                randomDir, marked );
-                    }
-                    return getNodeColor();
+                    return computeNodeColor( node, marked );
                 }
             }, "get node color" )
                     .get();
@@ -522,6 +588,62 @@ public class SimpleGraphDecorator
         return null;
     }
 
+    /**
+     * Get color of node, from inside a graph task.
+     * 
+     * @param node
+     * @param marked true if the node is marked
+     * @return
+     */
+    private Color computeNodeColor( final Node node, final boolean marked )
+    {
+        if ( marked )
+        {
+            return findNodeColor( node, true );
+        }
+        long version = viewSettings.getVersion();
+        CacheEntry cached = cache.get( Aspect.NODE_COLOR, node.getId(), version );
+        if ( cached != null )
+        {
+            return (Color) cached.getValue();
+        }
+        Color color = findNodeColor( node, false );
+        cache.put( Aspect.NODE_COLOR, node.getId(), version, color );
+        return color;
+    }
+
+    private Color findNodeColor( final Node node, final boolean marked )
+    {
+        Relationship randomRel = null;
+        Direction randomDir = null;
+        for ( Direction direction : settings.getDirections() )
+        {
+            for ( Relationship rel : node.getRelationships( direction ) )
+            {
+                RelationshipType type = rel.getType();
+                if ( !colorMapper.colorExists( type ) )
+                {
+                    if ( randomRel == null )
+                    {
+                        randomRel = rel;
+                        randomDir = direction;
+                    }
+                    continue;
+                }
+                else
+                {
+                    return getColorFromDirection( type, direction, marked );
+                }
+            }
+        }
+        if ( randomRel != null )
+        {
+            return getColorFromDirection( randomRel.getType(), randomDir,
+                    marked );
+        }
+        return getNodeColor();
+    }
+
     /**
      * Get color connected to relationship type depending on direction and if
      * it's marked or not.
@@ -598,6 +720,26 @@ public class SimpleGraphDecorator
     }
 
     public String getNodeText( final Node node, final boolean isReferenceNode )
+    {
+        return getNodeText( node, isReferenceNode, SUBMITTING_READER );
+    }
+
+    private String getNodeText( final Node node,
+            final boolean isReferenceNode, final PropertyReader reader )
+    {
+        long version = viewSettings.getVersion();
+        CacheEntry cached = cache.get( Aspect.NODE_TEXT, node.getId(), version );
+        if ( cached != null )
+        {
+            return (String) cached.getValue();
+        }
+        String text = findNodeText( node, isReferenceNode, reader );
+        cache.put( Aspect.NODE_TEXT, node.getId(), version, text );
+        return text;
+    }
+
+    private String findNodeText( final Node node,
+            final boolean isReferenceNode, final PropertyReader reader )
     {
         if ( viewSettings.isShowNodeNames() )
         {
@@ -609,12 +751,12 @@ public class SimpleGraphDecorator
                 {
                     return readPropertiesWithKeys( node,
                             settings.getNodePropertyNames(),
-                            viewSettings.isShowNodeIds() );
+                            viewSettings.isShowNodeIds(), reader );
                 }
                 else
                 {
                     return readPropertiesWithKeys( node,
-                            viewSettings.isShowNodeIds() );
+                            viewSettings.isShowNodeIds(), reader );
                 }
             }
             else
@@ -625,11 +767,12 @@ public class SimpleGraphDecorator
                 {
                     return readProperties( node,
                             settings.getNodePropertyNames(),
-                            viewSettings.isShowNodeIds() );
+                            viewSettings.isShowNodeIds(), reader );
                 }
                 else
                 {
-                    return readProperties( node, viewSettings.isShowNodeIds() );
+                    return readProperties( node, viewSettings.isShowNodeIds(),
+                            reader );
                 }
             }
         }
@@ -651,17 +794,17 @@ public class SimpleGraphDecorator
     }
 
     private String readProperties( final PropertyContainer container,
-            final List<String> propertyNames, final boolean includeId )
+            final List<String> propertyNames, final boolean includeId,
+            final PropertyReader reader )
     {
-        Map<String, Object> props = GraphDbUtil.getProperties( container,
-                propertyNames );
+        Map<String, Object> props = reader.read( container, propertyNames );
         return readPropertyValues( container, props, includeId );
     }
 
     private String readProperties( final PropertyContainer container,
-            final boolean includeId )
+            final boolean includeId, final PropertyReader reader )
     {
-        Map<String, Object> props = GraphDbUtil.getProperties( container );
+        Map<String, Object> props = reader.read( container );
         return readPropertyValues( container, props, includeId );
     }
 
@@ -709,17 +852,17 @@ public class SimpleGraphDecorator
     }
 
     private String readPropertiesWithKeys( final PropertyContainer container,
-            final boolean includeId )
+            final boolean includeId, final PropertyReader reader )
     {
-        Map<String, Object> props = GraphDbUtil.getProperties( container );
+        Map<String, Object> props = reader.read( container );
         return readPropertiesAndKeys( container, includeId, props );
     }
 
     private String readPropertiesWithKeys( final PropertyContainer container,
-            List<String> propertyKeys, final boolean includeId )
+            List<String> propertyKeys, final boolean includeId,
+            final PropertyReader reader )
     {
-        Map<String, Object> props = GraphDbUtil.getProperties( container,
-                propertyKeys );
+        Map<String, Object> props = reader.read( container, propertyKeys );
         return readPropertiesAndKeys( container, includeId, props );
     }
 
@@ -765,6 +908,27 @@ public class SimpleGraphDecorator
     }
 
     public String getRelationshipText( final Relationship rel )
+    {
+        return getRelationshipText( rel, SUBMITTING_READER );
+    }
+
+    private String getRelationshipText( final Relationship rel,
+            final PropertyReader reader )
+    {
+        long version = viewSettings.getVersion();
+        CacheEntry cached = cache.get( Aspect.RELATIONSHIP_TEXT, rel.getId(),
+                version );
+        if ( cached != null )
+        {
+            return (String) cached.getValue();
+        }
+        String text = findRelationshipText( rel, reader );
+        cache.put( Aspect.RELATIONSHIP_TEXT, rel.getId(), version, text );
+        return text;
+    }
+
+    private String findRelationshipText( final Relationship rel,
+            final PropertyReader reader )
     {
         StringBuilder str = new StringBuilder( 48 );
         if ( viewSettings.isShowRelationshipTypes() )
@@ -785,12 +949,12 @@ public class SimpleGraphDecorator
                 {
                     str.append( readPropertiesWithKeys( rel,
                             settings.relPropertyNames,
-                            viewSettings.isShowRelationshipIds() ) );
+                            viewSettings.isShowRelationshipIds(), reader ) );
                 }
                 else
                 {
                     str.append( readPropertiesWithKeys( rel,
-                            viewSettings.isShowRelationshipIds() ) );
+                            viewSettings.isShowRelationshipIds(), reader ) );
                 }
             }
             else
@@ -799,12 +963,12 @@ public class SimpleGraphDecorator
                      && !settings.relPropertyNames.isEmpty() )
                 {
                     str.append( readProperties( rel, settings.relPropertyNames,
-                            viewSettings.isShowRelationshipIds() ) );
+                            viewSettings.isShowRelationshipIds(), reader ) );
                 }
                 else
                 {
                     str.append( readProperties( rel,
-                            viewSettings.isShowRelationshipIds() ) );
+                            viewSettings.isShowRelationshipIds(), reader ) );
                 }
             }
         }
@@ -835,12 +999,65 @@ public class SimpleGraphDecorator
 
     public Image getNodeImageFromProperty( final Node node,
             final boolean isReferenceNode )
+    {
+        CacheEntry cached = cache.get( Aspect.NODE_IMAGE, node.getId(),
+                viewSettings.getVersion() );
+        if ( cached != null )
+        {
+            return (Image) cached.getValue();
+        }
+        GraphDbServiceManager gsm = Activator.getDefault()
+                .getGraphDbServiceManager();
+        try
+        {
+            return gsm.submitReadTask( new Callable<Image>()
+            {
+                @Override
+                public Image call() throws Exception
+                {
+                    return computeNodeImageFromProperty( node, isReferenceNode );
+                }
+            }, "find node icon" )
+                    .get();
+        }
+        catch ( Exception e )
+        {
+            ErrorMessage.showDialog( "Error retrieving relationships", e );
+        }
+        return getNodeImage( node, isReferenceNode );
+    }
+
+    /**
+     * Look up the icon of a node from its properties and relationships, from
+     * inside a graph task.
+     * 
+     * @param node
+     * @param isReferenceNode
+     * @return
+     */
+    private Image computeNodeImageFromProperty( final Node node,
+            final boolean isReferenceNode )
+    {
+        long version = viewSettings.getVersion();
+        CacheEntry cached = cache.get( Aspect.NODE_IMAGE, node.getId(), version );
+        if ( cached != null )
+        {
+            return (Image) cached.getValue();
+        }
+        Image img = findNodeImageFromProperty( node, isReferenceNode );
+        cache.put( Aspect.NODE_IMAGE, node.getId(), version, img );
+        return img;
+    }
+
+    private Image findNodeImageFromProperty( final Node node,
+            final boolean isReferenceNode )
     {
         Image img = null;
         // look in properties
+        Map<String, Object> props = GraphDbUtil.readProperties( node,
+                settings.getNodeIconPropertyNames() );
         for ( String key : settings.getNodeIconPropertyNames() )
         {
-            Map<String, Object> props = GraphDbUtil.getProperties( node );
             if ( !props.containsKey( key ) )
             {
                 continue;
@@ -861,41 +1078,117 @@ public class SimpleGraphDecorator
             }
         }
         // look in relations
-        GraphDbServiceManager gsm = Activator.getDefault()
-                .getGraphDbServiceManager();
-        try
+        for ( Direction direction : settings.getDirections() )
         {
-            img = gsm.submitTask( new Callable<Image>()
+            for ( Relationship rel : node.getRelationships( direction ) )
             {
-                @Override
-                public Image call() throws Exception
+                img = userIcons.getImage( rel.getType(), direction );
+                if ( img != null )
                 {
-                    Image img = null;
-                    for ( Direction direction : settings.getDirections() )
-                    {
-                        for ( Relationship rel : node.getRelationships( direction ) )
-                        {
-                            img = userIcons.getImage( rel.getType(), direction );
-                            if ( img != null )
-                            {
-                                return img;
-                            }
-                        }
-                    }
                     return img;
                 }
-            }, "find icons from relationships" )
-                    .get();
-            if ( img != null )
+            }
+        }
+        return getNodeImage( node, isReferenceNode );
+    }
+
+    /**
+     * Decorate all the given nodes and the relationships between them. Has to
+     * be called from inside a graph task.
+     * 
+     * @param nodes the nodes to decorate
+     * @return the decorations
+     */
+    public DecorationSnapshot createSnapshot( final Collection<Node> nodes )
+    {
+        boolean showIcons = isShowNodeIcons();
+        Set<Node> nodeSet = new HashSet<Node>( nodes );
+        Map<Node, NodeDecoration> nodeDecorations = new HashMap<Node, NodeDecoration>();
+        Map<Relationship, String> relationshipTexts = new HashMap<Relationship, String>();
+        for ( Node node : nodeSet )
+        {
+            nodeDecorations.put( node, decorate( node, showIcons ) );
+            for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
             {
-                return img;
+                if ( nodeSet.contains( rel.getEndNode() ) )
+                {
+                    relationshipTexts.put( rel,
+                            getRelationshipText( rel, DIRECT_READER ) );
+                }
             }
         }
-        catch ( Exception e )
+        return new DecorationSnapshot( nodeDecorations, relationshipTexts );
+    }
+
+    /**
+     * Decorate exactly the given nodes and relationships. Has to be called
+     * from inside a graph task.
+     * 
+     * @param nodes the nodes to decorate
+     * @param rels the relationships to decorate
+     * @return the decorations
+     */
+    public DecorationSnapshot createSnapshot( final Collection<Node> nodes,
+            final Collection<Relationship> rels )
+    {
+        boolean showIcons = isShowNodeIcons();
+        Map<Node, NodeDecoration> nodeDecorations = new HashMap<Node, NodeDecoration>();
+        Map<Relationship, String> relationshipTexts = new HashMap<Relationship, String>();
+        for ( Node node : nodes )
         {
-            ErrorMessage.showDialog( "Error retrieving relationships", e );
+            nodeDecorations.put( node, decorate( node, showIcons ) );
         }
-        return getNodeImage( node, isReferenceNode );
+        for ( Relationship rel : rels )
+        {
+            relationshipTexts.put( rel, getRelationshipText( rel, DIRECT_READER ) );
+        }
+        return new DecorationSnapshot( nodeDecorations, relationshipTexts );
+    }
+
+    private boolean isShowNodeIcons()
+    {
+        return viewSettings.isShowNodeIcons()
+               && !"".equals( settings.getNodeIconLocation() );
+    }
+
+    private NodeDecoration decorate( final Node node, final boolean showIcons )
+    {
+        boolean isReferenceNode = isReferenceNode( node );
+        Image image = showIcons ? computeNodeImageFromProperty( node,
+                isReferenceNode ) : getNodeImage( node, isReferenceNode );
+        Color color = viewSettings.isShowNodeColors() ? computeNodeColor(
+                node, false ) : null;
+        return new NodeDecoration( getNodeText( node, isReferenceNode,
+                DIRECT_READER ), image, color );
+    }
+
+    /**
+     * Drop the cached decorations of a node or relationship.
+     * 
+     * @param element the node or relationship
+     */
+    public void invalidate( final Object element )
+    {
+        cache.invalidate( element );
+    }
+
+    /**
+     * Drop all cached decorations.
+     */
+    public void invalidateAll()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Check if a node is the reference node.
+     * 
+     * @param node
+     * @return
+     */
+    public boolean isReferenceNode( final Node node )
+    {
+        return node.getId() == 0;
     }
 
     public Color getRelationshipHighlightColor( final Relationship rel )
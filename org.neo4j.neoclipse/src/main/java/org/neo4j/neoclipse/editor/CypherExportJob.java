@@ -0,0 +1,117 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.editor;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphCallable;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.util.ApplicationUtil;
+import org.neo4j.neoclipse.util.DataExportUtils;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
+import org.neo4j.neoclipse.view.ErrorMessage;
+
+/**
+ * Background job exporting a Cypher query result. Fetches the rows that are
+ * not fetched yet one page at a time, then loads the relationships of the
+ * nodes in the result and writes the file. Can be cancelled from the
+ * progress view.
+ */
+public class CypherExportJob extends Job
+{
+    private final CypherResultSet resultSet;
+    private final Format format;
+
+    public CypherExportJob( final CypherResultSet resultSet, final Format format )
+    {
+        super( format.label() + " Export" );
+        this.resultSet = resultSet;
+        this.format = format;
+        setUser( true );
+    }
+
+    @Override
+    protected IStatus run( final IProgressMonitor monitor )
+    {
+        monitor.beginTask( "Exporting the query result", IProgressMonitor.UNKNOWN );
+        final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        try
+        {
+            while ( resultSet.hasMore() )
+            {
+                if ( monitor.isCanceled() )
+                {
+                    return Status.CANCEL_STATUS;
+                }
+                gsm.fetchCypherRows( resultSet, CypherResultSet.PAGE_SIZE ).get();
+                monitor.subTask( resultSet.getRowCount() + " rows fetched" );
+            }
+            String json = gsm.submitReadTask( new GraphCallable<String>()
+            {
+                @Override
+                public String call( final GraphDatabaseService graphDb )
+                {
+                    return ApplicationUtil.toJson( resultSet.getRowsWithRelationships( graphDb ) );
+                }
+            }, "export cypher result" ).get();
+            File file = write( json );
+            ErrorMessage.showDialog( format.label() + " Export", format.label() + " file is created at " + file );
+            return Status.OK_STATUS;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
+        }
+        catch ( ExecutionException e )
+        {
+            return new Status( IStatus.ERROR, Activator.PLUGIN_ID, format.label() + " export failed.", e.getCause() );
+        }
+        catch ( Exception e )
+        {
+            // the job framework reports the error to the user
+            return new Status( IStatus.ERROR, Activator.PLUGIN_ID, format.label() + " export failed: " + e.getMessage(),
+                    e );
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+
+    private File write( final String json ) throws Exception
+    {
+        switch ( format )
+        {
+        case CSV:
+            return DataExportUtils.exportToCsv( json );
+        case XML:
+            return DataExportUtils.exportToXml( json );
+        default:
+            return DataExportUtils.exportToJson( json );
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.editor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.neoclipse.util.ApplicationUtil;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * Parameters of the Cypher queries entered in the editor. Values are given as
+ * a JSON object, and <code>$name</code> references in the query are accepted
+ * as well as the native <code>{name}</code> ones.
+ */
+public class CypherParameters
+{
+    /**
+     * Rewrites <code>$name</code> references to the <code>{name}</code>
+     * syntax of Cypher, leaving string literals and quoted identifiers alone.
+     * 
+     * @param query the query as entered
+     * @return the query in native syntax
+     */
+    public static String toNative( final String query )
+    {
+        StringBuilder result = new StringBuilder( query.length() + 8 );
+        char quote = 0;
+        int i = 0;
+        while ( i < query.length() )
+        {
+            char ch = query.charAt( i );
+            if ( quote != 0 )
+            {
+                result.append( ch );
+                if ( ch == '\\' && i + 1 < query.length() )
+                {
+                    result.append( query.charAt( ++i ) );
+                }
+                else if ( ch == quote )
+                {
+                    quote = 0;
+                }
+                i++;
+            }
+            else if ( ch == '\'' || ch == '"' || ch == '`' )
+            {
+                quote = ch;
+                result.append( ch );
+                i++;
+            }
+            else if ( ch == '$' && i + 1 < query.length()
+                      && isNameStart( query.charAt( i + 1 ) ) )
+            {
+                int end = i + 2;
+                while ( end < query.length() && isNamePart( query.charAt( end ) ) )
+                {
+                    end++;
+                }
+                result.append( '{' ).append( query, i + 1, end ).append( '}' );
+                i = end;
+            }
+            else
+            {
+                result.append( ch );
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isNameStart( final char ch )
+    {
+        return Character.isLetter( ch ) || ch == '_';
+    }
+
+    private static boolean isNamePart( final char ch )
+    {
+        return Character.isLetterOrDigit( ch ) || ch == '_';
+    }
+
+    /**
+     * Parses parameter values given as a JSON object. Whole numbers become
+     * longs, so they can be used as node ids and limits.
+     * 
+     * @param json the values, may be empty
+     * @return the values by parameter name
+     * @throws IllegalArgumentException if the text isn't a JSON object
+     */
+    public static Map<String, Object> parse( final String json )
+    {
+        Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        if ( json == null || json.trim().isEmpty() )
+        {
+            return parameters;
+        }
+        Map<?, ?> values;
+        try
+        {
+            values = ApplicationUtil.toJson( json, Map.class );
+        }
+        catch ( JsonParseException e )
+        {
+            throw new IllegalArgumentException( "The parameters must be a JSON object, like {\"name\": \"value\"}." );
+        }
+        if ( values == null )
+        {
+            return parameters;
+        }
+        for ( Map.Entry<?, ?> entry : values.entrySet() )
+        {
+            parameters.put( String.valueOf( entry.getKey() ), convert( entry.getValue() ) );
+        }
+        return parameters;
+    }
+
+    private static Object convert( final Object value )
+    {
+        if ( value instanceof Collection )
+        {
+            List<Object> list = new ArrayList<Object>();
+            for ( Object element : (Collection<?>) value )
+            {
+                list.add( convert( element ) );
+            }
+            return list;
+        }
+        if ( value instanceof Map )
+        {
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) value ).entrySet() )
+            {
+                map.put( String.valueOf( entry.getKey() ), convert( entry.getValue() ) );
+            }
+            return map;
+        }
+        return ApplicationUtil.fromJsonNumber( value );
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.editor;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.graphdb.QueryGuard;
+
+/**
+ * Background job running a Cypher query and fetching its first page of rows.
+ * Cancelling the job stops the query, as does running out of time.
+ */
+public class CypherQueryJob extends Job
+{
+    private static final String TITLE = "Cypher query";
+
+    private final String query;
+    private final Map<String, Object> parameters;
+    private final QueryGuard guard;
+    private final int maxRows;
+    private volatile CypherResultSet resultSet;
+
+    /**
+     * @param query the query in native syntax
+     * @param parameters the parameter values by name
+     * @param timeoutMillis the time the query may take, 0 for no limit
+     * @param maxRows the most rows to fetch, 0 for no limit
+     */
+    public CypherQueryJob( final String query, final Map<String, Object> parameters, final long timeoutMillis,
+            final int maxRows )
+    {
+        super( TITLE );
+        this.query = query;
+        this.parameters = parameters;
+        this.guard = new QueryGuard( timeoutMillis );
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    protected IStatus run( final IProgressMonitor monitor )
+    {
+        monitor.beginTask( "Running " + query, IProgressMonitor.UNKNOWN );
+        final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        try
+        {
+            resultSet = gsm.executeCypher( query, parameters, guard, maxRows ).get();
+            return guard.isCancelled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return Status.CANCEL_STATUS;
+        }
+        catch ( ExecutionException e )
+        {
+            return new Status( IStatus.ERROR, Activator.PLUGIN_ID, "Cypher query failed.", e.getCause() );
+        }
+        finally
+        {
+            monitor.done();
+        }
+    }
+
+    @Override
+    protected void canceling()
+    {
+        guard.cancel();
+    }
+
+    /**
+     * @return the result once the job is done, or null if the query failed
+     */
+    public CypherResultSet getResultSet()
+    {
+        return resultSet;
+    }
+}
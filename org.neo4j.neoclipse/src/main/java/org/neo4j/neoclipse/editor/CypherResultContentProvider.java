@@ -0,0 +1,126 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.editor;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+
+/**
+ * Lazy content provider for a virtual table showing a {@link CypherResultSet}
+ * . When the table asks for rows close to the end of what has been fetched,
+ * the next page is fetched in the background and the item count is extended.
+ */
+public class CypherResultContentProvider implements ILazyContentProvider
+{
+    /**
+     * Start fetching the next page when a row this close to the end of the
+     * fetched rows is shown.
+     */
+    private static final int PREFETCH_THRESHOLD = CypherResultSet.PAGE_SIZE / 2;
+
+    private final TableViewer tableViewer;
+    private final Runnable pageListener;
+    private CypherResultSet resultSet;
+    private boolean fetching = false;
+
+    /**
+     * @param tableViewer the virtual table viewer to feed
+     * @param pageListener notified in the UI thread after a page was added, may
+     *            be null
+     */
+    public CypherResultContentProvider( final TableViewer tableViewer, final Runnable pageListener )
+    {
+        this.tableViewer = tableViewer;
+        this.pageListener = pageListener;
+    }
+
+    @Override
+    public void inputChanged( final Viewer viewer, final Object oldInput, final Object newInput )
+    {
+        if ( resultSet != null && resultSet != newInput )
+        {
+            resultSet.close();
+        }
+        resultSet = (CypherResultSet) newInput;
+        fetching = false;
+        if ( resultSet != null )
+        {
+            tableViewer.setItemCount( resultSet.getRowCount() );
+        }
+    }
+
+    @Override
+    public void updateElement( final int index )
+    {
+        if ( resultSet == null )
+        {
+            return;
+        }
+        int rowCount = resultSet.getRowCount();
+        if ( index < rowCount )
+        {
+            tableViewer.replace( resultSet.getRow( index ), index );
+        }
+        if ( index >= rowCount - PREFETCH_THRESHOLD )
+        {
+            fetchNextPage();
+        }
+    }
+
+    private void fetchNextPage()
+    {
+        if ( fetching || !resultSet.hasMore() )
+        {
+            return;
+        }
+        fetching = true;
+        final CypherResultSet current = resultSet;
+        GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        gsm.fetchCypherRows( current, CypherResultSet.PAGE_SIZE, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if ( current != resultSet || tableViewer.getTable().isDisposed() )
+                {
+                    return;
+                }
+                fetching = false;
+                tableViewer.setItemCount( current.getRowCount() );
+                if ( pageListener != null )
+                {
+                    pageListener.run();
+                }
+            }
+        } );
+    }
+
+    @Override
+    public void dispose()
+    {
+        if ( resultSet != null )
+        {
+            resultSet.close();
+            resultSet = null;
+        }
+    }
+}
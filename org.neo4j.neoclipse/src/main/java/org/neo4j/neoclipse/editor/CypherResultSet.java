@@ -19,31 +19,259 @@
 package org.neo4j.neoclipse.editor;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
 
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.neoclipse.graphdb.QueryGuard;
+import org.neo4j.neoclipse.util.ApplicationUtil;
+
+/**
+ * Cursor over the rows of a Cypher query. Rows are pulled from the underlying
+ * result iterator page by page, so only the rows that have actually been
+ * requested are held in memory.
+ * <p>
+ * The fetch methods touch the database and must only be called from a graph
+ * task, see
+ * {@link org.neo4j.neoclipse.graphdb.GraphDbServiceManager#fetchCypherRows(CypherResultSet, int)}
+ * .
+ * <p>
+ * A {@link QueryGuard} and a row budget can stop the fetching early, the rest
+ * of the result is then abandoned.
+ */
 public class CypherResultSet implements Serializable
 {
-
     /**
-     * 
+     * Number of rows fetched per page.
      */
+    public static final int PAGE_SIZE = 200;
+    private static final Pattern QUOTED = Pattern.compile( "'(?:[^'\\\\]|\\\\.)*'|\"(?:[^\"\\\\]|\\\\.)*\"|`[^`]*`" );
+    private static final Pattern UPDATING_CLAUSE = Pattern.compile(
+            "\\b(CREATE|SET|DELETE|REMOVE|MERGE|FOREACH|DROP)\\b", Pattern.CASE_INSENSITIVE );
+
     private static final long serialVersionUID = 1L;
-    private final List<Map<String, Object>> iterator;
+    private transient volatile Iterator<Map<String, Object>> iterator;
+    private final List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
     private final Collection<String> columns;
     private final String message;
+    private final transient QueryGuard guard;
+    private final int maxRows;
+    private final boolean updating;
+    private volatile boolean more;
+    private volatile String stopReason;
+    private volatile boolean rollbackNeeded = false;
 
-    public CypherResultSet( List<Map<String, Object>> resultsList, Collection<String> columns, String message )
+    public CypherResultSet( Iterator<Map<String, Object>> iterator, Collection<String> columns, String message )
+    {
+        this( iterator, columns, message, null, 0, false );
+    }
+
+    /**
+     * @param guard checked between rows, may be null
+     * @param maxRows the most rows to fetch, 0 for no limit
+     * @param updating true if the query may change the database
+     */
+    public CypherResultSet( Iterator<Map<String, Object>> iterator, Collection<String> columns, String message,
+            QueryGuard guard, int maxRows, boolean updating )
     {
-        this.iterator = resultsList;
+        this.updating = updating;
+        this.iterator = iterator;
+        this.more = iterator != null;
         this.columns = columns;
         this.message = message;
+        this.guard = guard;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Pull up to <code>count</code> more rows from the query result.
+     * 
+     * @param count maximum number of rows to fetch
+     * @return the number of rows actually fetched
+     */
+    public synchronized int fetch( int count )
+    {
+        Iterator<Map<String, Object>> rowIterator = iterator;
+        if ( rowIterator == null )
+        {
+            return 0;
+        }
+        int fetched = 0;
+        try
+        {
+            while ( fetched < count && more && rowIterator.hasNext() )
+            {
+                if ( maxRows > 0 && getRowCount() >= maxRows )
+                {
+                    stop( "Stopped at the limit of " + maxRows + " rows." );
+                    return fetched;
+                }
+                if ( guard != null )
+                {
+                    guard.check();
+                }
+                Map<String, Object> row = convert( rowIterator.next() );
+                synchronized ( rows )
+                {
+                    rows.add( row );
+                }
+                fetched++;
+            }
+            if ( !rowIterator.hasNext() )
+            {
+                close();
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            String reason = QueryGuard.abortReason( e );
+            if ( reason == null )
+            {
+                throw e;
+            }
+            stop( reason );
+        }
+        return fetched;
     }
 
-    public List<Map<String, Object>> getIterator()
+    /**
+     * Tell if a query may change the database. String literals and quoted
+     * identifiers are skipped, so only the clauses of the query count.
+     * 
+     * @param query the query
+     * @return true if the query has an updating clause
+     */
+    public static boolean isUpdating( String query )
+    {
+        String clauses = QUOTED.matcher( query ).replaceAll( " " );
+        return UPDATING_CLAUSE.matcher( clauses ).find();
+    }
+
+    /**
+     * Returns true if the query may change the database.
+     */
+    public boolean isUpdating()
+    {
+        return updating;
+    }
+
+    /**
+     * Returns true if stopping the query has left the transaction in a state
+     * where it can only be rolled back.
+     */
+    public boolean isRollbackNeeded()
+    {
+        return rollbackNeeded;
+    }
+
+    public void setRollbackNeeded( boolean rollbackNeeded )
+    {
+        this.rollbackNeeded = rollbackNeeded;
+    }
+
+    /**
+     * Pull all remaining rows from the query result.
+     * 
+     * @return the number of rows actually fetched
+     */
+    public int fetchAll()
     {
-        return iterator;
+        return fetch( Integer.MAX_VALUE );
+    }
+
+    /**
+     * Abandon the rest of the query result.
+     */
+    public void close()
+    {
+        more = false;
+        iterator = null;
+    }
+
+    /**
+     * Abandon the rest of the query result, telling why.
+     */
+    public void stop( String reason )
+    {
+        stopReason = reason;
+        close();
+    }
+
+    /**
+     * Returns true if the query result may have rows that are not fetched yet.
+     * Doesn't touch the database.
+     */
+    public boolean hasMore()
+    {
+        return more;
+    }
+
+    /**
+     * Returns a snapshot of the rows fetched so far.
+     */
+    public List<Map<String, Object>> getRows()
+    {
+        synchronized ( rows )
+        {
+            return Collections.unmodifiableList( new ArrayList<Map<String, Object>>( rows ) );
+        }
+    }
+
+    /**
+     * Returns a snapshot of the rows fetched so far, with the outgoing
+     * relationships of the nodes in them loaded. Has to be called from a task
+     * that may read the database.
+     */
+    public List<Map<String, Object>> getRowsWithRelationships( GraphDatabaseService graphDb )
+    {
+        List<Map<String, Object>> loaded = new ArrayList<Map<String, Object>>( getRowCount() );
+        for ( Map<String, Object> row : getRows() )
+        {
+            LinkedHashMap<String, Object> newMap = new LinkedHashMap<String, Object>( row );
+            for ( Entry<String, Object> entry : newMap.entrySet() )
+            {
+                if ( !( entry.getValue() instanceof NodeWrapper ) )
+                {
+                    continue;
+                }
+                try
+                {
+                    Node node = graphDb.getNodeById( ( (NodeWrapper) entry.getValue() ).getId() );
+                    entry.setValue( ApplicationUtil.extractToNodeWrapper( node, true ) );
+                }
+                catch ( NotFoundException e )
+                {
+                    // deleted since the query ran, keep it as it was shown
+                }
+            }
+            loaded.add( newMap );
+        }
+        return loaded;
+    }
+
+    public Map<String, Object> getRow( int index )
+    {
+        synchronized ( rows )
+        {
+            return rows.get( index );
+        }
+    }
+
+    public int getRowCount()
+    {
+        synchronized ( rows )
+        {
+            return rows.size();
+        }
     }
 
     public Collection<String> getColumns()
@@ -51,9 +279,47 @@ public class CypherResultSet implements Serializable
         return columns;
     }
 
+    /**
+     * Returns the message of the query, followed by the reason the rows were
+     * cut short if they were.
+     */
     public String getMessage()
     {
-        return message;
+        String reason = stopReason;
+        if ( reason == null )
+        {
+            return message;
+        }
+        return message == null ? reason : message + " " + reason;
     }
 
+    public QueryGuard getGuard()
+    {
+        return guard;
+    }
+
+    private Map<String, Object> convert( Map<String, Object> resultMap )
+    {
+        LinkedHashMap<String, Object> newMap = new LinkedHashMap<String, Object>();
+        for ( Entry<String, Object> entry : resultMap.entrySet() )
+        {
+            if ( !columns.contains( entry.getKey() ) )
+            {
+                columns.add( entry.getKey() );
+            }
+            Object value = entry.getValue();
+            if ( value == null )
+            {
+                continue;
+            }
+            if ( value instanceof Node )
+            {
+                // relationships are only loaded for the export, a single
+                // supernode would make the page slow otherwise
+                value = ApplicationUtil.extractToNodeWrapper( (Node) value, false );
+            }
+            newMap.put( entry.getKey(), value );
+        }
+        return newMap;
+    }
 }
@@ -18,12 +18,13 @@
  */
 package org.neo4j.neoclipse.editor;
 
-import java.io.File;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 
-import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TableViewerColumn;
@@ -35,6 +36,7 @@ import org.eclipse.swt.events.KeyListener;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
@@ -47,10 +49,11 @@ import org.eclipse.swt.widgets.ToolItem;
 import org.eclipse.ui.part.ViewPart;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.Icons;
-import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.preference.Preferences;
 import org.neo4j.neoclipse.util.ApplicationUtil;
-import org.neo4j.neoclipse.util.DataExportUtils;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
 import org.neo4j.neoclipse.view.ErrorMessage;
+import org.neo4j.neoclipse.view.NeoGraphViewPart;
 import org.neo4j.neoclipse.view.UiHelper;
 
 
@@ -59,13 +62,16 @@ public class SqlEditorView extends ViewPart implements Listener
 
     public static final String ID = "org.neo4j.neoclipse.editor.SqlEditorView"; //$NON-NLS-1$
     private Text cypherQueryText;
+    private Text parametersText;
     private CTabFolder tabFolder;
     private Label messageStatus;
     private ToolItem tltmExecuteCypherSql;
+    private ToolItem stopCypherSql;
     private ToolItem exportCsv;
     private ToolItem exportJson;
     private ToolItem exportXml;
-    private String jsonString;
+    private CypherResultSet currentResultSet;
+    private CypherQueryJob runningQuery;
     private static boolean altKeyPressed = false;
     private static boolean enterKeyPressed = false;
 
@@ -90,6 +96,13 @@ public class SqlEditorView extends ViewPart implements Listener
                 tltmExecuteCypherSql.setToolTipText( "Execute (ALT+Enter)" );
                 tltmExecuteCypherSql.setImage( Icons.EXECUTE_SQL.image() );
                 tltmExecuteCypherSql.addListener( SWT.Selection, this );
+
+                stopCypherSql = new ToolItem( toolBar, SWT.PUSH );
+                stopCypherSql.setEnabled( false );
+                stopCypherSql.setToolTipText( "Stop the running query" );
+                stopCypherSql.setImage( Icons.STOP_ENABLED.image() );
+                stopCypherSql.setDisabledImage( Icons.STOP_DISABLED.image() );
+                stopCypherSql.addListener( SWT.Selection, this );
             }
         }
 
@@ -139,6 +152,12 @@ public class SqlEditorView extends ViewPart implements Listener
         GridData gd_text = new GridData( SWT.FILL, SWT.CENTER, true, false, 1, 1 );
         gd_text.heightHint = 172;
         cypherQueryText.setLayoutData( gd_text );
+        {
+            parametersText = new Text( parent, SWT.BORDER | SWT.SINGLE );
+            parametersText.setMessage( "Parameters, like {\"name\": \"value\"} for $name or {name}" );
+            parametersText.setToolTipText( "Parameter values as a JSON object" );
+            parametersText.setLayoutData( new GridData( SWT.FILL, SWT.CENTER, true, false, 1, 1 ) );
+        }
         {
             new Label( parent, SWT.NONE );
         }
@@ -257,84 +276,203 @@ public class SqlEditorView extends ViewPart implements Listener
             executeCypherQuery( cypherQueryText.getText() );
 
         }
-        else if ( event.widget == exportCsv )
+        else if ( event.widget == stopCypherSql )
         {
-            try
-            {
-                File file = DataExportUtils.exportToCsv( jsonString );
-                ErrorMessage.showDialog( "CSV Export", "CSV file is created at " + file );
-            }
-            catch ( Exception e )
+            if ( runningQuery != null )
             {
-                ErrorMessage.showDialog( "CSV exporting problem", e );
+                runningQuery.cancel();
             }
         }
+        else if ( event.widget == exportCsv )
+        {
+            exportResult( Format.CSV );
+        }
         else if ( event.widget == exportJson )
         {
-            try
-            {
-                File file = DataExportUtils.exportToJson( jsonString.toString() );
-                ErrorMessage.showDialog( "Json Export", "Json file is created at " + file );
-            }
-            catch ( Exception e )
-            {
-                ErrorMessage.showDialog( "Json exporting problem", e );
-            }
-
+            exportResult( Format.JSON );
         }
         else if ( event.widget == exportXml )
         {
-            try
+            exportResult( Format.XML );
+        }
+    }
+
+    /**
+     * Runs the query in the background, replacing any query still running.
+     */
+    private void executeCypherQuery( final String cypherSql )
+    {
+        Map<String, Object> parameters;
+        try
+        {
+            parameters = CypherParameters.parse( parametersText.getText() );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            ErrorMessage.showDialog( "execute cypher query", e.getMessage() );
+            return;
+        }
+        IPreferenceStore preferences = Activator.getDefault().getPreferenceStore();
+        final CypherQueryJob job = new CypherQueryJob( CypherParameters.toNative( cypherSql ), parameters,
+                preferences.getInt( Preferences.CYPHER_TIMEOUT ) * 1000L,
+                preferences.getInt( Preferences.CYPHER_MAX_ROWS ) );
+        job.addJobChangeListener( new JobChangeAdapter()
+        {
+            @Override
+            public void done( final IJobChangeEvent event )
             {
-                File file = DataExportUtils.exportToXml( jsonString );
-                ErrorMessage.showDialog( "XML Export", "XML file is created at " + file );
+                UiHelper.asyncExec( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        queryDone( job );
+                    }
+                } );
             }
-            catch ( Exception e )
+        } );
+        if ( runningQuery != null )
+        {
+            runningQuery.cancel();
+        }
+        runningQuery = job;
+        stopCypherSql.setEnabled( true );
+        job.schedule();
+    }
+
+    private void queryDone( final CypherQueryJob job )
+    {
+        if ( tabFolder.isDisposed() )
+        {
+            return;
+        }
+        if ( job == runningQuery )
+        {
+            runningQuery = null;
+            stopCypherSql.setEnabled( false );
+        }
+        else if ( job.getResultSet() != null )
+        {
+            // replaced by a newer query
+            job.getResultSet().close();
+            return;
+        }
+        if ( job.getResultSet() != null )
+        {
+            displayResultSet( job.getResultSet() );
+            offerRollback( job.getResultSet() );
+            if ( job.getResultSet().isUpdating() )
             {
-                ErrorMessage.showDialog( "XML exporting problem", e );
+                forgetGraphDecorations();
             }
         }
+        else
+        {
+            enableDisableToolBars( false );
+        }
     }
 
-    private void executeCypherQuery( final String cypherSql )
+    /**
+     * The query may have changed what the graph view shows, so have it read
+     * the labels, colors and icons again.
+     */
+    private void forgetGraphDecorations()
+    {
+        NeoGraphViewPart graphView = (NeoGraphViewPart) getSite().getPage().findView( NeoGraphViewPart.ID );
+        if ( graphView == null )
+        {
+            return;
+        }
+        graphView.getLabelProvider().forgetDecorations();
+        graphView.refresh( true );
+    }
+
+    /**
+     * Asks the user to roll back, if stopping the query has left the
+     * transaction in a state where it can't be committed.
+     */
+    private void offerRollback( final CypherResultSet cypherResultSet )
+    {
+        if ( !cypherResultSet.isRollbackNeeded() )
+        {
+            return;
+        }
+        cypherResultSet.setRollbackNeeded( false );
+        if ( MessageDialog.openQuestion( getSite().getShell(), "Transaction",
+                "Stopping the query has left the transaction in a state where it can only be rolled back. "
+                        + "Roll back now? All uncommitted changes will be lost; "
+                        + "if you don't, the next commit will fail." ) )
+        {
+            Activator.getDefault().getGraphDbServiceManager().rollback();
+        }
+    }
+
+    /**
+     * Exports the current result in the background, including the rows that
+     * are not fetched yet.
+     */
+    private void exportResult( final Format format )
     {
-        UiHelper.asyncExec( new Runnable()
+        final CypherResultSet resultSet = currentResultSet;
+        final CypherExportJob job = new CypherExportJob( resultSet, format );
+        job.addJobChangeListener( new JobChangeAdapter()
         {
             @Override
-            public void run()
+            public void done( final IJobChangeEvent event )
             {
-                final GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
-                try
+                UiHelper.asyncExec( new Runnable()
                 {
-                    CypherResultSet cypherResultSet = gsm.executeCypher( cypherSql );
-                    displayResultSet( cypherResultSet );
-                }
-                catch ( Exception e )
-                {
-                    e.printStackTrace();
-                    enableDisableToolBars( false );
-                    ErrorMessage.showDialog( "execute cypher query", e );
-                }
+                    @Override
+                    public void run()
+                    {
+                        if ( !messageStatus.isDisposed() && resultSet == currentResultSet )
+                        {
+                            updateMessageStatus( resultSet );
+                        }
+                    }
+                } );
             }
-
         } );
+        job.schedule();
+    }
+
+    private void updateMessageStatus( final CypherResultSet cypherResultSet )
+    {
+        StringBuilder status = new StringBuilder();
+        if ( cypherResultSet.getMessage() != null )
+        {
+            status.append( cypherResultSet.getMessage() ).append( " " );
+        }
+        status.append( cypherResultSet.getRowCount() ).append( " rows" );
+        if ( cypherResultSet.hasMore() )
+        {
+            status.append( " fetched, scroll down for more" );
+        }
+        messageStatus.setText( status.toString() );
     }
 
-    private void displayResultSet( CypherResultSet cypherResultSet )
+    private void displayResultSet( final CypherResultSet cypherResultSet )
     {
-        List<Map<String, Object>> resultSetList = cypherResultSet.getIterator();
         Collection<String> columns = cypherResultSet.getColumns();
 
-        jsonString = ApplicationUtil.toJson( resultSetList );
-        messageStatus.setText( cypherResultSet.getMessage() != null ? cypherResultSet.getMessage() : "" );
+        currentResultSet = cypherResultSet;
+        updateMessageStatus( cypherResultSet );
         TableViewer tableViewer = new TableViewer( tabFolder, SWT.BORDER | SWT.V_SCROLL | SWT.H_SCROLL | SWT.MULTI
                                                               | SWT.VIRTUAL | SWT.FULL_SELECTION );
         createColumns( tableViewer, columns );
-        tableViewer.setContentProvider( new ArrayContentProvider() );
+        tableViewer.setContentProvider( new CypherResultContentProvider( tableViewer, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                updateMessageStatus( cypherResultSet );
+                offerRollback( cypherResultSet );
+            }
+        } ) );
         Table table = tableViewer.getTable();
         table.setHeaderVisible( true );
         table.setLinesVisible( true );
-        tableViewer.setInput( resultSetList );
+        tableViewer.setInput( cypherResultSet );
         getSite().setSelectionProvider( tableViewer );
         CTabItem resultsTabItem = tabFolder.getSelection();
         if ( resultsTabItem == null )
@@ -343,7 +481,12 @@ public class SqlEditorView extends ViewPart implements Listener
             resultsTabItem.setText( "Results" );
             tabFolder.setSelection( resultsTabItem );
         }
+        Control oldTable = resultsTabItem.getControl();
         resultsTabItem.setControl( table );
+        if ( oldTable != null && !oldTable.isDisposed() )
+        {
+            oldTable.dispose();
+        }
         enableDisableToolBars( true );
     }
 
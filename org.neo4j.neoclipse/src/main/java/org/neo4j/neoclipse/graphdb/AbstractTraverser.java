@@ -0,0 +1,137 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.neo4j.neoclipse.reltype.RelationshipTypeHashSet;
+
+/**
+ * Base class for traversal strategies that expand the graph one node at a
+ * time through the core API.
+ */
+public abstract class AbstractTraverser implements TraversalStrategy
+{
+    /**
+     * Upper bound of relationships looked at per node and type, keeps a
+     * single supernode from stalling the traversal.
+     */
+    protected static final int MAX_SCANNED_RELATIONSHIPS = 1000;
+
+    /**
+     * The relationships between the nodes of the latest traversal.
+     */
+    private volatile EdgeIndex edges = EdgeIndex.EMPTY;
+
+    @Override
+    public Collection<Node> getNodes( final Node node,
+            final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final GraphDbServiceManager gsm )
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        edges = EdgeIndex.EMPTY;
+        if ( directedRels.isEmpty() )
+        {
+            nodes.add( node );
+            return nodes;
+        }
+        Set<RelationshipType> relTypes = new RelationshipTypeHashSet();
+        for ( DirectedRelationship directedRel : directedRels )
+        {
+            relTypes.add( directedRel.getRelType() );
+        }
+        try
+        {
+            EdgeIndex index = collectNeighborhood( node, directedRels, depth, nodeLimit, nodes, gsm );
+            if ( index == null )
+            {
+                collectNodes( node, directedRels, depth, nodeLimit, nodes, gsm );
+                index = EdgeIndex.build( nodes, relTypes );
+            }
+            edges = index;
+        }
+        catch ( NotFoundException nfe )
+        {
+            // this happens when the start node has been removed
+            // somehow (could be a rollback operation)
+            // just return what we have then
+        }
+        return nodes;
+    }
+
+    /**
+     * Adds the start node and the nodes reached from it to the list, until
+     * the depth or the node limit is reached.
+     */
+    protected abstract void collectNodes( Node start,
+            Collection<? extends DirectedRelationship> directedRels, int depth,
+            int nodeLimit, List<Node> nodes, GraphDbServiceManager gsm );
+
+    /**
+     * Fetches the nodes and the relationships between them in one go, for
+     * strategies that can do that cheaper than one node at a time. The
+     * default does nothing.
+     * 
+     * @return the relationships between the collected nodes, or null to have
+     *         them collected by {@link #collectNodes}
+     */
+    protected EdgeIndex collectNeighborhood( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels, final int depth,
+            final int nodeLimit, final List<Node> nodes, final GraphDbServiceManager gsm )
+    {
+        return null;
+    }
+
+    /**
+     * Returns the relationships of a node that match a type and direction
+     * filter.
+     */
+    protected static Iterable<Relationship> expand( final Node node,
+            final DirectedRelationship directedRel )
+    {
+        Direction direction = directedRel.hasDirection() ? directedRel.getDirection() : Direction.BOTH;
+        return node.getRelationships( directedRel.getRelType(), direction );
+    }
+
+    /**
+     * Looks the relationships up in the edge set of the latest traversal,
+     * doesn't touch the database.
+     */
+    @Override
+    public Collection<Relationship> getRelationships( final Node start,
+            final Node end )
+    {
+        return edges.get( start, end );
+    }
+
+    @Override
+    public Collection<Relationship> getRelationships()
+    {
+        return edges.all();
+    }
+}
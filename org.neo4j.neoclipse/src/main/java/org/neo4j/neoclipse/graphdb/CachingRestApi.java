@@ -0,0 +1,518 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.rest.graphdb.RequestResult;
+import org.neo4j.rest.graphdb.RestAPIFacade;
+import org.neo4j.rest.graphdb.batch.BatchCallback;
+import org.neo4j.rest.graphdb.entity.RestEntity;
+import org.neo4j.rest.graphdb.entity.RestNode;
+import org.neo4j.rest.graphdb.entity.RestRelationship;
+import org.neo4j.rest.graphdb.services.RequestType;
+import org.neo4j.rest.graphdb.util.QueryResult;
+import org.neo4j.rest.graphdb.util.ResultConverter;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.Weigher;
+
+/**
+ * REST API that keeps the entities, property maps and relationship lists it
+ * has fetched, so that browsing a remote database doesn't cost a round trip
+ * per property read. The cache is bounded by an estimate of its size in
+ * bytes and evicts the least recently used entries.
+ * <p>
+ * Writes made through this API update or drop the affected entries. Anything
+ * else, like Cypher statements that may write, drops the whole cache, as does
+ * {@link #invalidateAll()}. Every invalidation bumps a version, and a value
+ * fetched while the version changed is not kept.
+ */
+class CachingRestApi extends RestAPIFacade
+{
+    /**
+     * Default bound of the cache, in bytes.
+     */
+    static final long DEFAULT_CAPACITY = 32L * 1024 * 1024;
+
+    private static final Pattern WRITE_CLAUSE = Pattern.compile(
+            "\\b(create|set|delete|remove|merge|foreach)\\b", Pattern.CASE_INSENSITIVE );
+
+    private enum Kind
+    {
+        NODE,
+        RELATIONSHIP,
+        PROPERTIES,
+        DATA,
+        ADJACENCY
+    }
+
+    private static final class Key
+    {
+        private final Kind kind;
+        private final Object id;
+
+        Key( final Kind kind, final Object id )
+        {
+            this.kind = kind;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * kind.hashCode() + id.hashCode();
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return kind == other.kind && id.equals( other.id );
+        }
+    }
+
+    private static final class Entry
+    {
+        private final Object value;
+        private final int weight;
+
+        Entry( final Object value, final int weight )
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final ConcurrentLinkedHashMap<Key, Entry> entries;
+    private final AtomicLong version = new AtomicLong();
+    /**
+     * Time of the last invalidation, entities holding property data fetched
+     * before it go through the cache again.
+     */
+    private volatile long invalidatedAt = System.currentTimeMillis();
+
+    /**
+     * Create a caching API for a server.
+     * 
+     * @param uri URI of the server
+     * @param user user name, may be null
+     * @param password password, may be null
+     * @param capacity bound of the cache in bytes
+     */
+    CachingRestApi( final String uri, final String user, final String password, final long capacity )
+    {
+        super( uri, user, password );
+        entries = new ConcurrentLinkedHashMap.Builder<Key, Entry>().maximumWeightedCapacity(
+                Math.max( 1, capacity ) )
+                .weigher( new Weigher<Entry>()
+                {
+                    @Override
+                    public int weightOf( final Entry entry )
+                    {
+                        return entry.weight;
+                    }
+                } )
+                .build();
+    }
+
+    /**
+     * Drop everything that is cached.
+     */
+    void invalidateAll()
+    {
+        version.incrementAndGet();
+        invalidatedAt = System.currentTimeMillis();
+        entries.clear();
+    }
+
+    /**
+     * @return estimated size of the cached data in bytes
+     */
+    long weightedSize()
+    {
+        return entries.weightedSize();
+    }
+
+    @Override
+    public boolean hasToUpdate( final long lastTimeFetched )
+    {
+        return lastTimeFetched <= invalidatedAt;
+    }
+
+    @Override
+    public RestNode getNodeById( final long id )
+    {
+        Key key = new Key( Kind.NODE, id );
+        Entry entry = entries.get( key );
+        if ( entry != null )
+        {
+            return (RestNode) entry.value;
+        }
+        long before = version.get();
+        RestNode node = super.getNodeById( id );
+        store( key, node, 128, before );
+        return node;
+    }
+
+    @Override
+    public RestRelationship getRelationshipById( final long id )
+    {
+        Key key = new Key( Kind.RELATIONSHIP, id );
+        Entry entry = entries.get( key );
+        if ( entry != null )
+        {
+            return (RestRelationship) entry.value;
+        }
+        long before = version.get();
+        RestRelationship relationship = super.getRelationshipById( id );
+        store( key, relationship, 256, before );
+        return relationship;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    @Override
+    public Map<String, Object> getPropertiesFromEntity( final RestEntity entity )
+    {
+        Key key = new Key( Kind.PROPERTIES, entity.getUri() );
+        Entry entry = entries.get( key );
+        if ( entry != null )
+        {
+            return (Map<String, Object>) entry.value;
+        }
+        long before = version.get();
+        Map<String, Object> properties = Collections.unmodifiableMap( super.getPropertiesFromEntity( entity ) );
+        store( key, properties, estimate( properties ), before );
+        return properties;
+    }
+
+    @Override
+    public Map<?, ?> getData( final RestEntity entity )
+    {
+        Key key = new Key( Kind.DATA, entity.getUri() );
+        Entry entry = entries.get( key );
+        if ( entry != null )
+        {
+            return (Map<?, ?>) entry.value;
+        }
+        long before = version.get();
+        Map<?, ?> data = super.getData( entity );
+        store( key, data, estimate( data ), before );
+        return data;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    @Override
+    public Iterable<Relationship> getRelationships( final RestNode node, final String path )
+    {
+        Key key = new Key( Kind.ADJACENCY, node.getUri() );
+        Entry entry = entries.get( key );
+        Map<String, List<Relationship>> paths = entry == null ? null
+                : (Map<String, List<Relationship>>) entry.value;
+        if ( paths != null && paths.containsKey( path ) )
+        {
+            return paths.get( path );
+        }
+        long before = version.get();
+        List<Relationship> relationships = new ArrayList<Relationship>();
+        for ( Relationship relationship : super.getRelationships( node, path ) )
+        {
+            relationships.add( relationship );
+        }
+        relationships = Collections.unmodifiableList( relationships );
+        Map<String, List<Relationship>> updated = paths == null ? new HashMap<String, List<Relationship>>()
+                : new HashMap<String, List<Relationship>>( paths );
+        updated.put( path, relationships );
+        int weight = 64;
+        for ( List<Relationship> list : updated.values() )
+        {
+            weight += 64 + 256 * list.size();
+        }
+        store( key, Collections.unmodifiableMap( updated ), weight, before );
+        return relationships;
+    }
+
+    @Override
+    public void setPropertyOnEntity( final RestEntity entity, final String key, final Object value )
+    {
+        super.setPropertyOnEntity( entity, key, value );
+        updateProperty( entity, key, value );
+    }
+
+    @Override
+    public void removeProperty( final RestEntity entity, final String key )
+    {
+        super.removeProperty( entity, key );
+        updateProperty( entity, key, null );
+    }
+
+    @Override
+    public RestRelationship createRelationship( final Node startNode, final Node endNode,
+            final RelationshipType type, final Map<String, Object> props )
+    {
+        try
+        {
+            return super.createRelationship( startNode, endNode, type, props );
+        }
+        finally
+        {
+            invalidate( Kind.ADJACENCY, ( (RestEntity) startNode ).getUri() );
+            invalidate( Kind.ADJACENCY, ( (RestEntity) endNode ).getUri() );
+        }
+    }
+
+    @Override
+    public void deleteEntity( final RestEntity entity )
+    {
+        String startUri = null;
+        String endUri = null;
+        if ( entity instanceof RestRelationship )
+        {
+            RestRelationship relationship = (RestRelationship) entity;
+            startUri = ( (RestEntity) relationship.getStartNode() ).getUri();
+            endUri = ( (RestEntity) relationship.getEndNode() ).getUri();
+        }
+        try
+        {
+            super.deleteEntity( entity );
+        }
+        finally
+        {
+            version.incrementAndGet();
+            invalidatedAt = System.currentTimeMillis();
+            String uri = entity.getUri();
+            entries.remove( new Key( Kind.PROPERTIES, uri ) );
+            entries.remove( new Key( Kind.DATA, uri ) );
+            entries.remove( new Key( Kind.ADJACENCY, uri ) );
+            Kind kind = entity instanceof RestRelationship ? Kind.RELATIONSHIP : Kind.NODE;
+            entries.remove( new Key( kind, entity.getId() ) );
+            if ( startUri != null )
+            {
+                entries.remove( new Key( Kind.ADJACENCY, startUri ) );
+                entries.remove( new Key( Kind.ADJACENCY, endUri ) );
+            }
+        }
+    }
+
+    @Override
+    public Map<?, ?> query( final String statement, final Map<String, Object> params )
+    {
+        try
+        {
+            return super.query( statement, params );
+        }
+        finally
+        {
+            afterStatement( statement );
+        }
+    }
+
+    @Override
+    public QueryResult<Map<String, Object>> query( final String statement, final Map<String, Object> params,
+            final ResultConverter resultConverter )
+    {
+        try
+        {
+            return super.query( statement, params, resultConverter );
+        }
+        finally
+        {
+            afterStatement( statement );
+        }
+    }
+
+    @Override
+    public QueryResult<Object> run( final String script, final Map<String, Object> params,
+            final ResultConverter resultConverter )
+    {
+        try
+        {
+            return super.run( script, params, resultConverter );
+        }
+        finally
+        {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public RequestResult execute( final RequestType requestType, final String uri, final Object params )
+    {
+        try
+        {
+            return super.execute( requestType, uri, params );
+        }
+        finally
+        {
+            if ( requestType != RequestType.GET )
+            {
+                invalidateAll();
+            }
+        }
+    }
+
+    @Override
+    public <T> T executeBatch( final BatchCallback<T> batchCallback )
+    {
+        try
+        {
+            return super.executeBatch( batchCallback );
+        }
+        finally
+        {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        invalidateAll();
+        super.close();
+    }
+
+    private void afterStatement( final String statement )
+    {
+        if ( statement == null || WRITE_CLAUSE.matcher( statement ).find() )
+        {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Keep a fetched value, unless something was invalidated since the fetch
+     * started.
+     */
+    private void store( final Key key, final Object value, final int weight, final long before )
+    {
+        if ( value == null )
+        {
+            return;
+        }
+        entries.put( key, new Entry( value, Math.max( 1, weight ) ) );
+        if ( version.get() != before )
+        {
+            entries.remove( key );
+        }
+    }
+
+    private void invalidate( final Kind kind, final String uri )
+    {
+        version.incrementAndGet();
+        invalidatedAt = System.currentTimeMillis();
+        entries.remove( new Key( kind, uri ) );
+    }
+
+    /**
+     * Write a property change through to the cached property map.
+     * 
+     * @param value new value, null if the property was removed
+     */
+    @SuppressWarnings( "unchecked" )
+    private void updateProperty( final RestEntity entity, final String key, final Object value )
+    {
+        String uri = entity.getUri();
+        Key propertiesKey = new Key( Kind.PROPERTIES, uri );
+        Entry entry = entries.get( propertiesKey );
+        version.incrementAndGet();
+        invalidatedAt = System.currentTimeMillis();
+        entries.remove( new Key( Kind.DATA, uri ) );
+        if ( entry == null )
+        {
+            return;
+        }
+        Map<String, Object> properties = new HashMap<String, Object>( (Map<String, Object>) entry.value );
+        if ( value == null )
+        {
+            properties.remove( key );
+        }
+        else
+        {
+            properties.put( key, value );
+        }
+        entries.put( propertiesKey, new Entry( Collections.unmodifiableMap( properties ), estimate( properties ) ) );
+    }
+
+    /**
+     * Rough size in bytes of a value as parsed from JSON.
+     */
+    private static int estimate( final Object value )
+    {
+        if ( value == null )
+        {
+            return 8;
+        }
+        if ( value instanceof String )
+        {
+            return 40 + 2 * ( (String) value ).length();
+        }
+        if ( value instanceof Map )
+        {
+            int size = 48;
+            for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) value ).entrySet() )
+            {
+                size += 32 + estimate( entry.getKey() ) + estimate( entry.getValue() );
+            }
+            return size;
+        }
+        if ( value instanceof Collection )
+        {
+            int size = 40;
+            for ( Object item : (Collection<?>) value )
+            {
+                size += 8 + estimate( item );
+            }
+            return size;
+        }
+        if ( value.getClass().isArray() )
+        {
+            int length = Array.getLength( value );
+            if ( value.getClass().getComponentType().isPrimitive() )
+            {
+                return 16 + 8 * length;
+            }
+            int size = 16;
+            for ( int i = 0; i < length; i++ )
+            {
+                size += 8 + estimate( Array.get( value, i ) );
+            }
+            return size;
+        }
+        return 24;
+    }
+}
@@ -18,93 +18,61 @@
  */
 package org.neo4j.neoclipse.graphdb;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.NotFoundException;
-import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.traversal.Evaluators;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.neo4j.kernel.Traversal;
 import org.neo4j.neoclipse.reltype.DirectedRelationship;
-import org.neo4j.neoclipse.reltype.RelationshipTypeHashSet;
 import org.neo4j.rest.graphdb.traversal.RestTraversal;
 
-public class DefaultTraverser implements TraversalStrategy
+/**
+ * Breadth first traversal using the traversal framework, stops at the node
+ * limit. On remote databases a single Cypher query is used when possible,
+ * see {@link RemoteNeighborhood}.
+ */
+public class DefaultTraverser extends AbstractTraverser
 {
-    private final Set<RelationshipType> relTypes = new RelationshipTypeHashSet();
-
+    /**
+     * Remote databases get the whole neighborhood in a single request.
+     */
     @Override
-    public Collection<Node> getNodes( final Node node,
-            final Collection<? extends DirectedRelationship> directedRels,
-            final int depth, final int nodeLimit, GraphDbServiceManager gsm )
-            {
-        List<Node> nodes = new ArrayList<Node>();
-        if ( directedRels.isEmpty() )
+    protected EdgeIndex collectNeighborhood( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels, final int depth,
+            final int nodeLimit, final List<Node> nodes, final GraphDbServiceManager gsm )
+    {
+        if ( !gsm.isRemote() )
         {
-            nodes.add( node );
-            return nodes;
+            return null;
         }
-        try
-        {
-            TraversalDescription description = gsm.isRemote() ? RestTraversal.description().maxDepth( depth ) : Traversal.description().evaluator( Evaluators.toDepth( depth ) ); 
-            description.breadthFirst().evaluator( Evaluators.all() );
-            relTypes.clear();
-            for ( DirectedRelationship directedRel : directedRels )
-            {
-                Direction d = directedRel.hasDirection() ?  directedRel.getDirection() : Direction.BOTH;
-                description.relationships( directedRel.getRelType(), d );
-                relTypes.add( directedRel.getRelType() );
-            }
-            for ( Node currentNode : description.traverse( node ).nodes() )
-            {
-                if ( nodes.size() >= nodeLimit )
-                {
-                    break;
-                }
-                nodes.add( currentNode );
-            }
-        }
-        catch ( NotFoundException nfe )
-        {
-            // this happens when the start node has been removed
-            // somehow (could be a rollback operation)
-            // just return an empty array then
-        }
-        return nodes;
+        return RemoteNeighborhood.fetch( start, directedRels, depth, nodeLimit, nodes, gsm );
     }
 
     @Override
-    public Collection<Relationship> getRelationships( final Node start,
-            final Node end )
-            {
-        List<Relationship> rels = new ArrayList<Relationship>();
-        if ( relTypes.isEmpty() )
+    protected void collectNodes( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final List<Node> nodes,
+            final GraphDbServiceManager gsm )
+    {
+        // descriptions are immutable, keep the one returned by each call
+        TraversalDescription description = gsm.isRemote() ? RestTraversal.description().maxDepth( depth )
+                : Traversal.description().evaluator( Evaluators.toDepth( depth ) );
+        description = description.breadthFirst().evaluator( Evaluators.all() );
+        for ( DirectedRelationship directedRel : directedRels )
         {
-            for ( Relationship r : start.getRelationships( Direction.OUTGOING ) )
-            {
-                if ( r.getEndNode().equals( end ) )
-                {
-                    rels.add( r );
-                }
-            }
+            Direction d = directedRel.hasDirection() ? directedRel.getDirection() : Direction.BOTH;
+            description = description.relationships( directedRel.getRelType(), d );
         }
-        for ( RelationshipType relType : relTypes )
+        for ( Node currentNode : description.traverse( start ).nodes() )
         {
-            for ( Relationship r : start.getRelationships( relType,
-                    Direction.OUTGOING ) )
+            if ( nodes.size() >= nodeLimit )
             {
-                if ( r.getEndNode().equals( end ) )
-                {
-                    rels.add( r );
-                }
+                break;
             }
+            nodes.add( currentNode );
         }
-        return rels;
-            }
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.neo4j.neoclipse.util.LongHashMap;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * Depth-bounded depth first traversal. Follows a path down to the traversal
+ * depth before moving on to the siblings, so long chains show up even when
+ * the first hop has more neighbors than the node limit. A node first reached
+ * through a long detour is expanded again when a shorter path to it turns
+ * up, so everything within the depth can still be found.
+ */
+public class DepthFirstTraverser extends AbstractTraverser
+{
+    @Override
+    protected void collectNodes( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final List<Node> nodes,
+            final GraphDbServiceManager gsm )
+    {
+        // the smallest depth each node was expanded at; a node reached again
+        // by a shorter path is expanded again, as it may reach further now
+        LongHashMap<Integer> bestDepth = new LongHashMap<Integer>( nodeLimit );
+        LongHashSet added = new LongHashSet( nodeLimit );
+        Deque<Node> stack = new ArrayDeque<Node>();
+        Deque<Integer> depths = new ArrayDeque<Integer>();
+        stack.push( start );
+        depths.push( 0 );
+        while ( !stack.isEmpty() && nodes.size() < nodeLimit )
+        {
+            Node current = stack.pop();
+            int currentDepth = depths.pop();
+            if ( !isShorter( bestDepth, current.getId(), currentDepth ) )
+            {
+                continue;
+            }
+            bestDepth.put( current.getId(), currentDepth );
+            if ( added.add( current.getId() ) )
+            {
+                nodes.add( current );
+            }
+            if ( currentDepth >= depth )
+            {
+                continue;
+            }
+            for ( DirectedRelationship directedRel : directedRels )
+            {
+                int scanned = 0;
+                for ( Relationship rel : expand( current, directedRel ) )
+                {
+                    if ( ++scanned > MAX_SCANNED_RELATIONSHIPS )
+                    {
+                        break;
+                    }
+                    Node other = rel.getOtherNode( current );
+                    if ( isShorter( bestDepth, other.getId(), currentDepth + 1 ) )
+                    {
+                        stack.push( other );
+                        depths.push( currentDepth + 1 );
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isShorter( final LongHashMap<Integer> bestDepth, final long id, final int depth )
+    {
+        Integer best = bestDepth.get( id );
+        return best == null || depth < best;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.neoclipse.util.LongHashMap;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * The relationships between a set of nodes, indexed by start and end node.
+ * Built once per traversal so that looking up the relationships between two
+ * shown nodes doesn't touch the database.
+ */
+public final class EdgeIndex
+{
+    public static final EdgeIndex EMPTY = new EdgeIndex(
+            new LongHashMap<LongHashMap<List<Relationship>>>(), 0 );
+
+    /**
+     * Relationships by start node id and end node id.
+     */
+    private final LongHashMap<LongHashMap<List<Relationship>>> edges;
+    private final int size;
+
+    private EdgeIndex( final LongHashMap<LongHashMap<List<Relationship>>> edges, final int size )
+    {
+        this.edges = edges;
+        this.size = size;
+    }
+
+    /**
+     * Collects the relationships of the given types that connect two of the
+     * given nodes. All relationship types are used when the collection of
+     * types is empty. The relationships of all nodes are scanned in turns,
+     * one relationship per node and round, until at most one node has any
+     * left: a relationship is then found from the endpoint with fewer
+     * relationships, so a single supernode is never scanned to the end and
+     * no relationship between two different nodes is missed. Relationships
+     * from the last node to itself are not looked for. Has to be called from
+     * a task that may read the database.
+     */
+    public static EdgeIndex build( final Collection<Node> nodes,
+            final Collection<RelationshipType> relTypes )
+    {
+        LongHashSet ids = new LongHashSet( nodes.size() );
+        for ( Node node : nodes )
+        {
+            ids.add( node.getId() );
+        }
+        RelationshipType[] types = relTypes.toArray( new RelationshipType[relTypes.size()] );
+        List<Iterator<Relationship>> open = new ArrayList<Iterator<Relationship>>( nodes.size() );
+        for ( Node node : nodes )
+        {
+            Iterable<Relationship> rels = types.length == 0 ? node.getRelationships( Direction.BOTH )
+                    : node.getRelationships( Direction.BOTH, types );
+            open.add( rels.iterator() );
+        }
+        LongHashMap<LongHashMap<List<Relationship>>> edges = new LongHashMap<LongHashMap<List<Relationship>>>(
+                nodes.size() );
+        LongHashSet found = new LongHashSet();
+        int size = 0;
+        while ( open.size() > 1 )
+        {
+            for ( int i = open.size() - 1; i >= 0; i-- )
+            {
+                Iterator<Relationship> rels = open.get( i );
+                if ( !rels.hasNext() )
+                {
+                    // order doesn't matter, move the last one in
+                    open.set( i, open.get( open.size() - 1 ) );
+                    open.remove( open.size() - 1 );
+                    continue;
+                }
+                Relationship rel = rels.next();
+                if ( found.contains( rel.getId() ) )
+                {
+                    continue;
+                }
+                Node start = rel.getStartNode();
+                if ( ids.contains( start.getId() ) && ids.contains( rel.getEndNode().getId() ) )
+                {
+                    found.add( rel.getId() );
+                    size += add( edges, ids, start, Collections.singleton( rel ) );
+                }
+            }
+        }
+        return new EdgeIndex( edges, size );
+    }
+
+    /**
+     * Indexes the relationships that connect two of the given nodes, for
+     * relationships that were fetched together with the nodes.
+     */
+    public static EdgeIndex fromRelationships( final Collection<Node> nodes,
+            final Iterable<Relationship> rels )
+    {
+        LongHashSet ids = new LongHashSet( nodes.size() );
+        for ( Node node : nodes )
+        {
+            ids.add( node.getId() );
+        }
+        LongHashMap<LongHashMap<List<Relationship>>> edges = new LongHashMap<LongHashMap<List<Relationship>>>(
+                nodes.size() );
+        int size = 0;
+        for ( Relationship rel : rels )
+        {
+            size += add( edges, ids, rel.getStartNode(), Collections.singleton( rel ) );
+        }
+        return new EdgeIndex( edges, size );
+    }
+
+    private static int add( final LongHashMap<LongHashMap<List<Relationship>>> edges,
+            final LongHashSet ids, final Node start, final Iterable<Relationship> rels )
+    {
+        int added = 0;
+        LongHashMap<List<Relationship>> outgoing = null;
+        for ( Relationship rel : rels )
+        {
+            long endId = rel.getEndNode().getId();
+            if ( !ids.contains( endId ) )
+            {
+                continue;
+            }
+            if ( outgoing == null )
+            {
+                outgoing = edges.get( start.getId() );
+                if ( outgoing == null )
+                {
+                    outgoing = new LongHashMap<List<Relationship>>();
+                    edges.put( start.getId(), outgoing );
+                }
+            }
+            List<Relationship> list = outgoing.get( endId );
+            if ( list == null )
+            {
+                list = new ArrayList<Relationship>( 1 );
+                outgoing.put( endId, list );
+            }
+            list.add( rel );
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Returns the relationships from the start node to the end node.
+     */
+    public List<Relationship> get( final Node start, final Node end )
+    {
+        LongHashMap<List<Relationship>> outgoing = edges.get( start.getId() );
+        List<Relationship> rels = outgoing == null ? null : outgoing.get( end.getId() );
+        if ( rels == null )
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList( rels );
+    }
+
+    /**
+     * Returns all relationships in the index.
+     */
+    public Collection<Relationship> all()
+    {
+        List<Relationship> all = new ArrayList<Relationship>( size );
+        for ( LongHashMap<List<Relationship>> outgoing : edges.values() )
+        {
+            for ( List<Relationship> rels : outgoing.values() )
+            {
+                all.addAll( rels );
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Returns the number of relationships in the index.
+     */
+    public int size()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * Describes which nodes and relationships a write touched, by id only, so
+ * that views can patch the affected elements instead of recomputing the whole
+ * graph. The source is the object the change originated from.
+ */
+public class GraphChangeEvent extends EventObject
+{
+    private static final long serialVersionUID = 1L;
+
+    private final transient LongHashSet createdNodes;
+    private final transient LongHashSet deletedNodes;
+    private final transient LongHashSet modifiedNodes;
+    private final transient LongHashSet createdRelationships;
+    private final transient LongHashSet deletedRelationships;
+    private final transient LongHashSet modifiedRelationships;
+    private final Set<String> createdRelationshipTypes;
+
+    private GraphChangeEvent( final Object source, final Builder builder )
+    {
+        super( source );
+        createdNodes = builder.createdNodes;
+        deletedNodes = builder.deletedNodes;
+        modifiedNodes = builder.modifiedNodes;
+        createdRelationships = builder.createdRelationships;
+        deletedRelationships = builder.deletedRelationships;
+        modifiedRelationships = builder.modifiedRelationships;
+        createdRelationshipTypes = Collections.unmodifiableSet( builder.createdRelationshipTypes );
+    }
+
+    /**
+     * Collects the changes of a committing kernel transaction.
+     */
+    public static GraphChangeEvent fromTransactionData( final Object source, final TransactionData data )
+    {
+        Builder builder = new Builder();
+        for ( Node node : data.createdNodes() )
+        {
+            builder.nodeCreated( node );
+        }
+        for ( Node node : data.deletedNodes() )
+        {
+            builder.nodeDeleted( node );
+        }
+        for ( Relationship rel : data.createdRelationships() )
+        {
+            builder.relationshipCreated( rel );
+        }
+        for ( Relationship rel : data.deletedRelationships() )
+        {
+            builder.relationshipDeleted( rel );
+        }
+        for ( PropertyEntry<Node> entry : data.assignedNodeProperties() )
+        {
+            builder.modified( entry.entity() );
+        }
+        for ( PropertyEntry<Node> entry : data.removedNodeProperties() )
+        {
+            builder.modified( entry.entity() );
+        }
+        for ( PropertyEntry<Relationship> entry : data.assignedRelationshipProperties() )
+        {
+            builder.modified( entry.entity() );
+        }
+        for ( PropertyEntry<Relationship> entry : data.removedRelationshipProperties() )
+        {
+            builder.modified( entry.entity() );
+        }
+        return builder.build( source );
+    }
+
+    /**
+     * Returns the part of this change that isn't already covered by the given
+     * one.
+     */
+    public GraphChangeEvent without( final GraphChangeEvent reported )
+    {
+        Builder builder = new Builder();
+        copyMissing( createdNodes, reported.createdNodes, builder.createdNodes );
+        copyMissing( deletedNodes, reported.deletedNodes, builder.deletedNodes );
+        copyMissing( modifiedNodes, reported.modifiedNodes, builder.modifiedNodes );
+        copyMissing( createdRelationships, reported.createdRelationships, builder.createdRelationships );
+        copyMissing( deletedRelationships, reported.deletedRelationships, builder.deletedRelationships );
+        copyMissing( modifiedRelationships, reported.modifiedRelationships, builder.modifiedRelationships );
+        builder.createdRelationshipTypes.addAll( createdRelationshipTypes );
+        builder.createdRelationshipTypes.removeAll( reported.createdRelationshipTypes );
+        return builder.build( getSource() );
+    }
+
+    private static void copyMissing( final LongHashSet from, final LongHashSet reported, final LongHashSet to )
+    {
+        for ( long id : from.toArray() )
+        {
+            if ( !reported.contains( id ) )
+            {
+                to.add( id );
+            }
+        }
+    }
+
+    /**
+     * True if nodes or relationships were created or deleted, which means the
+     * shape of the graph may have changed.
+     */
+    public boolean isStructural()
+    {
+        return !createdNodes.isEmpty() || !deletedNodes.isEmpty() || !createdRelationships.isEmpty()
+               || !deletedRelationships.isEmpty();
+    }
+
+    public boolean isEmpty()
+    {
+        return !isStructural() && modifiedNodes.isEmpty() && modifiedRelationships.isEmpty();
+    }
+
+    /**
+     * True if the node was created, deleted or had its properties or
+     * relationships changed.
+     */
+    public boolean affectsNode( final long id )
+    {
+        return modifiedNodes.contains( id ) || createdNodes.contains( id ) || deletedNodes.contains( id );
+    }
+
+    public boolean affectsRelationship( final long id )
+    {
+        return modifiedRelationships.contains( id ) || createdRelationships.contains( id )
+               || deletedRelationships.contains( id );
+    }
+
+    /**
+     * Dispatches to {@link #affectsNode(long)} or
+     * {@link #affectsRelationship(long)}.
+     */
+    public boolean affects( final Object element )
+    {
+        if ( element instanceof Node )
+        {
+            return affectsNode( ( (Node) element ).getId() );
+        }
+        if ( element instanceof Relationship )
+        {
+            return affectsRelationship( ( (Relationship) element ).getId() );
+        }
+        return false;
+    }
+
+    public boolean isNodeDeleted( final long id )
+    {
+        return deletedNodes.contains( id );
+    }
+
+    public boolean isRelationshipDeleted( final long id )
+    {
+        return deletedRelationships.contains( id );
+    }
+
+    /**
+     * True if the element is a node or relationship deleted by this change.
+     */
+    public boolean isDeleted( final Object element )
+    {
+        if ( element instanceof Node )
+        {
+            return isNodeDeleted( ( (Node) element ).getId() );
+        }
+        if ( element instanceof Relationship )
+        {
+            return isRelationshipDeleted( ( (Relationship) element ).getId() );
+        }
+        return false;
+    }
+
+    /**
+     * Names of the types of all created relationships.
+     */
+    public Set<String> getCreatedRelationshipTypes()
+    {
+        return createdRelationshipTypes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GraphChangeEvent[nodes +" + createdNodes.size() + " -" + deletedNodes.size() + " ~"
+               + modifiedNodes.size() + ", relationships +" + createdRelationships.size() + " -"
+               + deletedRelationships.size() + " ~" + modifiedRelationships.size() + "]";
+    }
+
+    /**
+     * Records changes as they are made. Not thread safe.
+     */
+    public static class Builder
+    {
+        private final LongHashSet createdNodes = new LongHashSet();
+        private final LongHashSet deletedNodes = new LongHashSet();
+        private final LongHashSet modifiedNodes = new LongHashSet();
+        private final LongHashSet createdRelationships = new LongHashSet();
+        private final LongHashSet deletedRelationships = new LongHashSet();
+        private final LongHashSet modifiedRelationships = new LongHashSet();
+        private final Set<String> createdRelationshipTypes = new HashSet<String>();
+
+        public Builder nodeCreated( final Node node )
+        {
+            createdNodes.add( node.getId() );
+            return this;
+        }
+
+        public Builder nodeDeleted( final Node node )
+        {
+            long id = node.getId();
+            createdNodes.remove( id );
+            modifiedNodes.remove( id );
+            deletedNodes.add( id );
+            return this;
+        }
+
+        /**
+         * Records a property change on a node or relationship.
+         */
+        public Builder modified( final PropertyContainer container )
+        {
+            if ( container instanceof Node )
+            {
+                long id = ( (Node) container ).getId();
+                if ( !deletedNodes.contains( id ) )
+                {
+                    modifiedNodes.add( id );
+                }
+            }
+            else if ( container instanceof Relationship )
+            {
+                long id = ( (Relationship) container ).getId();
+                if ( !deletedRelationships.contains( id ) )
+                {
+                    modifiedRelationships.add( id );
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Records the relationship, its type and both end nodes as modified.
+         */
+        public Builder relationshipCreated( final Relationship rel )
+        {
+            createdRelationships.add( rel.getId() );
+            createdRelationshipTypes.add( rel.getType().name() );
+            endNodesModified( rel );
+            return this;
+        }
+
+        public Builder relationshipDeleted( final Relationship rel )
+        {
+            long id = rel.getId();
+            createdRelationships.remove( id );
+            modifiedRelationships.remove( id );
+            deletedRelationships.add( id );
+            endNodesModified( rel );
+            return this;
+        }
+
+        private void endNodesModified( final Relationship rel )
+        {
+            try
+            {
+                modified( rel.getStartNode() );
+                modified( rel.getEndNode() );
+            }
+            catch ( NotFoundException e )
+            {
+                // the end nodes are gone as well, they are recorded on their own
+            }
+        }
+
+        /**
+         * Records everything the given change covers.
+         */
+        public Builder include( final GraphChangeEvent event )
+        {
+            addAll( event.createdNodes, createdNodes );
+            addAll( event.deletedNodes, deletedNodes );
+            addAll( event.modifiedNodes, modifiedNodes );
+            addAll( event.createdRelationships, createdRelationships );
+            addAll( event.deletedRelationships, deletedRelationships );
+            addAll( event.modifiedRelationships, modifiedRelationships );
+            createdRelationshipTypes.addAll( event.createdRelationshipTypes );
+            return this;
+        }
+
+        private static void addAll( final LongHashSet from, final LongHashSet to )
+        {
+            for ( long id : from.toArray() )
+            {
+                to.add( id );
+            }
+        }
+
+        public GraphChangeEvent build( final Object source )
+        {
+            return new GraphChangeEvent( source, this );
+        }
+    }
+}
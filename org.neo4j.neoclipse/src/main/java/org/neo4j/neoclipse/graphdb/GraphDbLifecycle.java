@@ -18,7 +18,10 @@
  */
 package org.neo4j.neoclipse.graphdb;
 
+import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.rest.graphdb.RestGraphDatabase;
+import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
 
 /**
  * Manages the life cycle of a {@link GraphDatabaseService} as well as other
@@ -34,6 +37,12 @@ public class GraphDbLifecycle
      */
     private GraphDatabaseService graphDb;
     private Thread shutdownHook;
+    /**
+     * Created on first use and kept for the lifetime of the database, so that
+     * its plan cache is shared by all queries.
+     */
+    private ExecutionEngine executionEngine;
+    private RestCypherQueryEngine restCypherEngine;
 
     /**
      * Constructs a new {@link GraphDbLifecycle} instance with {@code graphDb}
@@ -84,6 +93,11 @@ public class GraphDbLifecycle
      */
     protected void runShutdown()
     {
+        synchronized ( this )
+        {
+            executionEngine = null;
+            restCypherEngine = null;
+        }
         if ( this.graphDb != null )
         {
             this.graphDb.shutdown();
@@ -108,4 +122,28 @@ public class GraphDbLifecycle
     {
         return this.graphDb;
     }
+
+    /**
+     * @return the Cypher engine of an embedded database
+     */
+    public synchronized ExecutionEngine executionEngine()
+    {
+        if ( executionEngine == null )
+        {
+            executionEngine = new ExecutionEngine( graphDb );
+        }
+        return executionEngine;
+    }
+
+    /**
+     * @return the Cypher engine of a remote database
+     */
+    public synchronized RestCypherQueryEngine restCypherEngine()
+    {
+        if ( restCypherEngine == null )
+        {
+            restCypherEngine = new RestCypherQueryEngine( ( (RestGraphDatabase) graphDb ).getRestAPI() );
+        }
+        return restCypherEngine;
+    }
 }
@@ -18,47 +18,68 @@
  */
 package org.neo4j.neoclipse.graphdb;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.jface.preference.IPreferenceStore;
-import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.cypher.javacompat.ExecutionResult;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.EmbeddedGraphDatabase;
 import org.neo4j.kernel.EmbeddedReadOnlyGraphDatabase;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.guard.Guard;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.connection.Alias;
 import org.neo4j.neoclipse.connection.ConnectionMode;
 import org.neo4j.neoclipse.editor.CypherResultSet;
-import org.neo4j.neoclipse.editor.NodeWrapper;
 import org.neo4j.neoclipse.preference.Preferences;
-import org.neo4j.neoclipse.util.ApplicationUtil;
+import org.neo4j.neoclipse.util.DataExportUtils;
+import org.neo4j.neoclipse.util.DataExportUtils.Format;
 import org.neo4j.neoclipse.view.UiHelper;
+import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.RestGraphDatabase;
 import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
 
 
 /**
  * This manager controls the neo4j service.
+ * <p>
+ * Tasks submitted through the <code>submitTask</code> methods run one at a
+ * time on the thread that owns the current transaction and mark it as
+ * holding uncommitted changes, so they are meant for tasks that write.
+ * Read-only tasks submitted through the <code>submitReadTask</code> methods
+ * run in parallel on a pool of read threads, as long as the transaction
+ * thread has no pending tasks and no uncommitted changes; otherwise they are
+ * queued on the transaction thread as well, so they always see what was
+ * written before them.
  * 
  * @author Peter H&auml;nsgen
  * @author Anders Nawroth
@@ -80,12 +101,35 @@ public class GraphDbServiceManager
         logger.addHandler( handler );
     }
 
+    /**
+     * Runnable that keeps the read threads out while it runs, used for tasks
+     * that change the database lifecycle.
+     */
+    private abstract class ExclusiveRunnable implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            lifecycleLock.writeLock().lock();
+            try
+            {
+                runExclusively();
+            }
+            finally
+            {
+                lifecycleLock.writeLock().unlock();
+            }
+        }
+
+        protected abstract void runExclusively();
+    }
+
     private class Tasks
     {
-        final Runnable START = new Runnable()
+        final Runnable START = new ExclusiveRunnable()
         {
             @Override
-            public void run()
+            protected void runExclusively()
             {
                 if ( lifecycle != null )
                 {
@@ -100,23 +144,25 @@ public class GraphDbServiceManager
                 {
                 case REMOTE:
                 {
-                    graphDb = new RestGraphDatabase( currentAlias.getUri(), currentAlias.getUserName(),
-                            currentAlias.getPassword() );
+                    CachingRestApi restApi = new CachingRestApi( currentAlias.getUri(), currentAlias.getUserName(),
+                            currentAlias.getPassword(), remoteCacheSize );
+                    RestTransport.fromConfiguration( currentAlias.getConfigurationMap() ).install( restApi );
+                    graphDb = new RestGraphDatabase( restApi );
                     logInfo( "connected to remote neo4j using neo4j rest api." );
                     break;
 
                 }
                 case LOCAL:
                 {
+                    Map<String, String> config = embeddedConfig( currentAlias );
                     if ( isReadOnlyMode() )
                     {
-                        graphDb = new EmbeddedReadOnlyGraphDatabase( currentAlias.getUri(),
-                                currentAlias.getConfigurationMap() );
+                        graphDb = new EmbeddedReadOnlyGraphDatabase( currentAlias.getUri(), config );
                         logInfo( "connected to embedded read-only neo4j" );
                     }
                     else
                     {
-                        graphDb = new EmbeddedGraphDatabase( currentAlias.getUri(), currentAlias.getConfigurationMap() );
+                        graphDb = new EmbeddedGraphDatabase( currentAlias.getUri(), config );
                         logInfo( "connected to embedded neo4j" );
                     }
                     break;
@@ -129,19 +175,26 @@ public class GraphDbServiceManager
                 }
 
                 lifecycle = new GraphDbLifecycle( graphDb );
+                if ( connectionMode == ConnectionMode.LOCAL && !isReadOnlyMode() )
+                {
+                    graphDb.registerTransactionEventHandler( changeFeed );
+                    changeFeedRegistered = true;
+                }
                 if ( !isReadOnlyMode() )
                 {
                     logFine( "starting tx" );
                     tx = graphDb.beginTx();
                 }
+                txDirty = false;
+                reported = new GraphChangeEvent.Builder();
                 fireServiceChangedEvent( GraphDbServiceStatus.STARTED );
             }
         };
 
-        final Runnable STOP = new Runnable()
+        final Runnable STOP = new ExclusiveRunnable()
         {
             @Override
-            public void run()
+            protected void runExclusively()
             {
                 logInfo( "stopping/disconnecting ..." );
                 if ( lifecycle == null )
@@ -164,6 +217,11 @@ public class GraphDbServiceManager
                 }
                 try
                 {
+                    if ( changeFeedRegistered )
+                    {
+                        changeFeedRegistered = false;
+                        lifecycle.graphDb().unregisterTransactionEventHandler( changeFeed );
+                    }
                     lifecycle.manualShutdown();
                     logInfo( "stopped/disconnected" );
                 }
@@ -174,6 +232,8 @@ public class GraphDbServiceManager
                 finally
                 {
                     lifecycle = null;
+                    txDirty = false;
+                    reported = new GraphChangeEvent.Builder();
                     fireServiceChangedEvent( GraphDbServiceStatus.STOPPED );
                 }
             }
@@ -215,10 +275,13 @@ public class GraphDbServiceManager
                 {
                     logFine( "Committing while not in write mode." );
                 }
+                invalidateRemoteCache();
                 if ( !isReadOnlyMode() )
                 {
                     tx.finish();
                     tx = lifecycle.graphDb().beginTx();
+                    txDirty = false;
+                    reported = new GraphChangeEvent.Builder();
                     fireServiceChangedEvent( GraphDbServiceStatus.COMMIT );
                 }
             }
@@ -229,10 +292,13 @@ public class GraphDbServiceManager
             @Override
             public void run()
             {
+                invalidateRemoteCache();
                 if ( !isReadOnlyMode() )
                 {
                     tx.finish();
                     tx = lifecycle.graphDb().beginTx();
+                    txDirty = false;
+                    reported = new GraphChangeEvent.Builder();
                     fireServiceChangedEvent( GraphDbServiceStatus.ROLLBACK );
                 }
             }
@@ -260,6 +326,47 @@ public class GraphDbServiceManager
         }
     }
 
+    private class ReadTaskWrapper<T> implements Callable<T>
+    {
+        private final GraphCallable<T> callable;
+        private final Callable<T> task;
+
+        public ReadTaskWrapper( final GraphCallable<T> callable )
+        {
+            this.callable = callable;
+            this.task = null;
+        }
+
+        public ReadTaskWrapper( final Callable<T> task )
+        {
+            this.callable = null;
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception
+        {
+            lifecycleLock.readLock().lock();
+            try
+            {
+                if ( task != null )
+                {
+                    return task.call();
+                }
+                GraphDatabaseService graphDb = null;
+                if ( lifecycle != null )
+                {
+                    graphDb = lifecycle.graphDb();
+                }
+                return callable.call( graphDb );
+            }
+            finally
+            {
+                lifecycleLock.readLock().unlock();
+            }
+        }
+    }
+
     private class RunnableWrapper implements Runnable
     {
         private final GraphRunnable runnable;
@@ -304,31 +411,111 @@ public class GraphDbServiceManager
         }
     }
 
+    private static final int READ_THREADS = Math.max( 2, Runtime.getRuntime().availableProcessors() );
+    /**
+     * Number of nodes exported by each read task.
+     */
+    private static final int EXPORT_CHUNK_SIZE = 5000;
+
+    /**
+     * The thread owning the transaction, all writes go through here.
+     */
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService readExecutor = Executors.newFixedThreadPool( READ_THREADS );
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    /**
+     * Number of tasks queued or running on the transaction thread.
+     */
+    private final AtomicInteger pendingTxTasks = new AtomicInteger();
+    /**
+     * Guards routing decisions, so no read task can be sent to the read
+     * threads while a transaction task is being queued.
+     */
+    private final Object routingLock = new Object();
+    private final TaskMetrics metrics = new TaskMetrics( true );
+    /**
+     * True if the current transaction may hold uncommitted changes.
+     */
+    private volatile boolean txDirty = false;
     private final Tasks tasks = new Tasks();
 
     /**
      * The service instance.
      */
     private GraphDbServiceMode serviceMode;
-    private GraphDbLifecycle lifecycle = null;
+    private volatile GraphDbLifecycle lifecycle = null;
+    /**
+     * Bound in bytes of the entity cache of remote connections.
+     */
+    private long remoteCacheSize = CachingRestApi.DEFAULT_CAPACITY;
 
     /**
      * The registered service change listeners.
      */
     private final ListenerList listeners = new ListenerList();
+    /**
+     * The registered graph change listeners.
+     */
+    private final ListenerList changeListeners = new ListenerList();
+    /**
+     * What the application itself already reported during the current
+     * transaction. Only touched on the transaction thread.
+     */
+    private GraphChangeEvent.Builder reported = new GraphChangeEvent.Builder();
+    /**
+     * Turns the commits of an embedded database into graph change events.
+     * As all edits share one long running transaction, changes the
+     * application didn't report as it made them, like the ones of Cypher
+     * queries, are reported at commit time.
+     */
+    private final TransactionEventHandler<GraphChangeEvent> changeFeed = new TransactionEventHandler<GraphChangeEvent>()
+    {
+        @Override
+        public GraphChangeEvent beforeCommit( final TransactionData data ) throws Exception
+        {
+            return GraphChangeEvent.fromTransactionData( GraphDbServiceManager.this, data ).without(
+                    reported.build( GraphDbServiceManager.this ) );
+        }
+
+        @Override
+        public void afterCommit( final TransactionData data, final GraphChangeEvent state )
+        {
+            notifyGraphChangeListeners( state );
+        }
+
+        @Override
+        public void afterRollback( final TransactionData data, final GraphChangeEvent state )
+        {
+            // the ROLLBACK service event makes the views start over
+        }
+    };
+    private boolean changeFeedRegistered = false;
     private Transaction tx;
-    private final IPreferenceStore preferenceStore = Activator.getDefault().getPreferenceStore();
 
     /**
-     * The constructor.
+     * The constructor, takes the service mode from the preferences.
      */
     public GraphDbServiceManager()
     {
-        serviceMode = GraphDbServiceMode.valueOf( preferenceStore.getString( Preferences.CONNECTION_MODE ) );
+        this( readServiceMode( Activator.getDefault().getPreferenceStore() ) );
+        remoteCacheSize = Activator.getDefault().getPreferenceStore().getInt( Preferences.REMOTE_CACHE_SIZE ) * 1024L * 1024L;
+    }
+
+    /**
+     * Creates a service manager in the given mode, without access to the
+     * workbench preferences.
+     */
+    public GraphDbServiceManager( final GraphDbServiceMode serviceMode )
+    {
+        this.serviceMode = serviceMode;
         logInfo( "Starting " + this.getClass().getSimpleName() );
     }
 
+    private static GraphDbServiceMode readServiceMode( final IPreferenceStore preferenceStore )
+    {
+        return GraphDbServiceMode.valueOf( preferenceStore.getString( Preferences.CONNECTION_MODE ) );
+    }
+
     private void logFine( final String message )
     {
         logger.fine( message );
@@ -354,30 +541,119 @@ public class GraphDbServiceManager
         logFine( type + " -> " + name + ":\n" + info );
     }
 
+    /**
+     * Queue a task on the transaction thread.
+     * 
+     * @param task the task to run
+     * @param mayWrite true if the task may change the database, false if it is
+     *            known to only read
+     * @param info short description of the task, the metrics are kept per
+     *            description
+     */
+    private <T> Future<T> submitToTxThread( final Callable<T> task, final boolean mayWrite, final String info )
+    {
+        Callable<T> counted = new Callable<T>()
+        {
+            @Override
+            public T call() throws Exception
+            {
+                try
+                {
+                    if ( mayWrite )
+                    {
+                        txDirty = true;
+                    }
+                    return task.call();
+                }
+                finally
+                {
+                    pendingTxTasks.decrementAndGet();
+                }
+            }
+        };
+        synchronized ( routingLock )
+        {
+            pendingTxTasks.incrementAndGet();
+            return executor.submit( metrics.measure( counted, info, TaskMetrics.Queue.TRANSACTION ) );
+        }
+    }
+
+    private Future<?> submitToTxThread( final Runnable runnable, final boolean mayWrite, final String info )
+    {
+        return submitToTxThread( Executors.callable( runnable ), mayWrite, info );
+    }
+
+    /**
+     * Read tasks can go to the read threads when they can't miss anything
+     * the transaction thread has done or is about to do.
+     */
+    private boolean canReadConcurrently()
+    {
+        return pendingTxTasks.get() == 0 && ( isReadOnlyMode() || !txDirty );
+    }
+
+    private <T> Future<T> submitRead( final ReadTaskWrapper<T> wrapped, final String info )
+    {
+        synchronized ( routingLock )
+        {
+            if ( canReadConcurrently() )
+            {
+                return readExecutor.submit( metrics.measure( wrapped, info, TaskMetrics.Queue.READ ) );
+            }
+            return submitToTxThread( wrapped, false, info );
+        }
+    }
+
     public <T> Future<T> submitTask( final Callable<T> task, final String info )
     {
         printTask( task, "C", info );
-        return executor.submit( task );
+        return submitToTxThread( task, true, info );
     }
 
     public <T> Future<T> submitTask( final GraphCallable<T> callable, final String info )
     {
         printTask( callable, "GC", info );
         TaskWrapper<T> wrapped = new TaskWrapper<T>( callable );
-        return executor.submit( wrapped );
+        return submitToTxThread( wrapped, true, info );
     }
 
     public Future<?> submitTask( final Runnable runnable, final String info )
     {
         printTask( runnable, "R", info );
-        return executor.submit( runnable );
+        return submitToTxThread( runnable, true, info );
     }
 
     public Future<?> submitTask( final GraphRunnable runnable, final String info )
     {
         printTask( runnable, "GR", info );
         RunnableWrapper wrapped = new RunnableWrapper( runnable, info );
-        return executor.submit( wrapped );
+        return submitToTxThread( wrapped, true, info );
+    }
+
+    /**
+     * Submit a task that only reads from the database. It may run in parallel
+     * with other read tasks.
+     * 
+     * @param task task to execute
+     * @param info short description of the task
+     */
+    public <T> Future<T> submitReadTask( final Callable<T> task, final String info )
+    {
+        printTask( task, "RC", info );
+        return submitRead( new ReadTaskWrapper<T>( task ), info );
+    }
+
+    /**
+     * Submit a task that only reads from the database. It may run in parallel
+     * with other read tasks.
+     * 
+     * @param callable task to execute
+     * @param info short description of the task
+     */
+    public <T> Future<T> submitReadTask( final GraphCallable<T> callable, final String info )
+    {
+        printTask( callable, "RGC", info );
+        return submitRead( new ReadTaskWrapper<T>( callable ), info );
     }
 
     /**
@@ -390,7 +666,16 @@ public class GraphDbServiceManager
     public void submitDisplayTask( final Runnable runnable, final String info )
     {
         DisplayRunnable wrapped = new DisplayRunnable( runnable, info );
-        executor.submit( wrapped );
+        submitToTxThread( wrapped, false, info );
+    }
+
+    /**
+     * Returns the Cypher engine of the remote database, shared by all
+     * queries. Has to be called from a graph task.
+     */
+    RestCypherQueryEngine restCypherEngine()
+    {
+        return lifecycle.restCypherEngine();
     }
 
     public void executeTask( final GraphRunnable runnable, final String info )
@@ -406,12 +691,24 @@ public class GraphDbServiceManager
         return callable.call( lifecycle.graphDb() );
     }
 
+    /**
+     * Returns the metrics of the tasks run so far.
+     */
+    public TaskMetrics getTaskMetrics()
+    {
+        return metrics;
+    }
+
     public void stopExecutingTasks()
     {
         if ( !executor.isShutdown() )
         {
             executor.shutdown();
         }
+        if ( !readExecutor.isShutdown() )
+        {
+            readExecutor.shutdown();
+        }
     }
 
     public boolean isRunning()
@@ -490,7 +787,8 @@ public class GraphDbServiceManager
     }
 
     /**
-     * ExecuteCypher query.
+     * Execute a Cypher query. Only the first page of rows is fetched, use
+     * {@link #fetchCypherRows(CypherResultSet, int)} to get more.
      * 
      * @param cypherSql
      * @return CypherResultSet
@@ -498,7 +796,46 @@ public class GraphDbServiceManager
      */
     public CypherResultSet executeCypher( final String cypherSql ) throws Exception
     {
-        return submitTask( new GraphCallable<CypherResultSet>()
+        return executeCypher( cypherSql, Collections.<String, Object>emptyMap() );
+    }
+
+    /**
+     * Execute a parameterized Cypher query. The parameters are passed to the
+     * engine as they are, so queries that differ only in their parameters
+     * share one execution plan. The engine is kept for as long as the
+     * database is running.
+     * 
+     * @param cypherSql the query, referring to parameters as {name}
+     * @param parameters the parameter values by name
+     * @return CypherResultSet
+     * @throws Exception
+     */
+    public CypherResultSet executeCypher( final String cypherSql, final Map<String, Object> parameters )
+            throws Exception
+    {
+        return executeCypher( cypherSql, parameters, null, 0 ).get();
+    }
+
+    /**
+     * Execute a parameterized Cypher query that can be stopped by a guard and
+     * a row budget. On embedded databases the guard aborts the query inside
+     * the kernel, otherwise it stops the fetching of rows. Queries that only
+     * read are run as read tasks, so they stay out of the transaction while
+     * it holds no changes. If stopping a query has left the transaction
+     * unusable, the result tells so; the transaction is never rolled back
+     * here.
+     * 
+     * @param cypherSql the query, referring to parameters as {name}
+     * @param parameters the parameter values by name
+     * @param guard stops the query on timeout or cancel, may be null
+     * @param maxRows the most rows to fetch, 0 for no limit
+     * @return the result, with the reason in its message if it was stopped
+     */
+    public Future<CypherResultSet> executeCypher( final String cypherSql, final Map<String, Object> parameters,
+            final QueryGuard guard, final int maxRows )
+    {
+        final boolean updating = CypherResultSet.isUpdating( cypherSql );
+        GraphCallable<CypherResultSet> query = new GraphCallable<CypherResultSet>()
         {
             @Override
             public CypherResultSet call( GraphDatabaseService graphDb )
@@ -507,97 +844,286 @@ public class GraphDbServiceManager
                 {
                     throw new RuntimeException( "Please start the graphdb." );
                 }
-                final String cypherQuery = cypherSql.replace( '\"', '\'' ).replace( '\n', ' ' );
                 String message = null;
                 Iterator<Map<String, Object>> iterator = null;
                 List<String> columns = new ArrayList<String>();
-                //
-                if ( currentAlias.getConnectionMode() != ConnectionMode.REMOTE )
+                if ( guard != null && guard.isCancelled() )
                 {
-                    ExecutionEngine engine = new ExecutionEngine( graphDb );
-                    ExecutionResult result = engine.execute( cypherQuery );
-                    // message = result.toString().substring( result.toString().lastIndexOf( "+" ) + 1 ).trim();
-                    columns = result.columns();
-                    iterator = result.iterator();
+                    return new CypherResultSet( null, columns, "Cancelled." );
                 }
-                else if ( currentAlias.getConnectionMode() == ConnectionMode.REMOTE )
+                if ( updating )
                 {
-                    Iterable<Map<String, Object>> execute = new RestCypherQueryEngine(( (RestGraphDatabase) graphDb ).getRestAPI()).query(cypherQuery,
-                            new HashMap<String, Object>() );
-                    iterator = execute.iterator();
+                    // the query may touch what was reported already, let the commit report it again
+                    reported = new GraphChangeEvent.Builder();
                 }
+                Guard kernelGuard = startGuard( graphDb, guard );
+                CypherResultSet resultSet;
+                try
+                {
+                    if ( currentAlias.getConnectionMode() != ConnectionMode.REMOTE )
+                    {
+                        ExecutionResult result = lifecycle.executionEngine().execute( cypherSql, parameters );
+                        columns = new ArrayList<String>( result.columns() );
+                        iterator = result.iterator();
+                    }
+                    else if ( currentAlias.getConnectionMode() == ConnectionMode.REMOTE )
+                    {
+                        Iterable<Map<String, Object>> execute = lifecycle.restCypherEngine().query( cypherSql,
+                                parameters );
+                        iterator = execute.iterator();
+                    }
 
-                final LinkedList<Map<String, Object>> resultList = new LinkedList<Map<String, Object>>();
-                while ( iterator.hasNext() )
+                    resultSet = new CypherResultSet( iterator, columns, message, guard, maxRows, updating );
+                    resultSet.fetch( CypherResultSet.PAGE_SIZE );
+                }
+                catch ( RuntimeException e )
                 {
-                    Map<String, Object> resultMap = iterator.next();
-                    LinkedHashMap<String, Object> newMap = new LinkedHashMap<String, Object>();
-                    Set<Entry<String, Object>> entrySet = resultMap.entrySet();
-                    for ( Entry<String, Object> entry : entrySet )
+                    String reason = QueryGuard.abortReason( e );
+                    if ( reason == null )
                     {
-                        if ( !columns.contains( entry.getKey() ) )
-                        {
-                            columns.add( entry.getKey() );
-                        } 
-                        Object objectNode = entry.getValue();
-                        if ( objectNode == null )
-                        {
-                            continue;
-                        }
-
-                        Object obj = null;
-                        if ( objectNode instanceof Node )
-                        {
-                            Node node = (Node) objectNode;
-                            NodeWrapper oMap = ApplicationUtil.extractToNodeWrapper( node, true );
-                            obj = oMap;
-                        }
-                        else
-                        {
-                            obj = objectNode;
-                        }
-                        newMap.put( entry.getKey(), obj );
+                        throw e;
                     }
-                    resultList.add( newMap );
+                    resultSet = new CypherResultSet( null, columns, reason );
+                }
+                finally
+                {
+                    stopGuard( kernelGuard );
                 }
-                return new CypherResultSet( resultList, columns, message );
+                resultSet.setRollbackNeeded( isMarkedForRollback( graphDb ) );
+                return resultSet;
             }
+        };
+        if ( updating )
+        {
+            return submitTask( query, "execute cypher query" );
+        }
+        return submitReadTask( query, "execute cypher query" );
+    }
 
-            private List<String> getColumns( String cypherQuery )
+    /**
+     * Fetch more rows of a Cypher query result. The rows are pulled by the
+     * same kind of task the query was run by.
+     * 
+     * @param resultSet the result to fetch rows for
+     * @param count maximum number of rows to fetch
+     * @return the number of rows fetched
+     */
+    public Future<Integer> fetchCypherRows( final CypherResultSet resultSet, final int count )
+    {
+        return fetchCypherRows( resultSet, count, null );
+    }
+
+    /**
+     * Fetch more rows of a Cypher query result, then run a task in the UI
+     * thread.
+     * 
+     * @param resultSet the result to fetch rows for
+     * @param count maximum number of rows to fetch
+     * @param displayTask run in the UI thread once the rows are fetched, may
+     *            be null
+     * @return the number of rows fetched
+     */
+    public Future<Integer> fetchCypherRows( final CypherResultSet resultSet, final int count,
+            final Runnable displayTask )
+    {
+        GraphCallable<Integer> fetch = new GraphCallable<Integer>()
+        {
+            @Override
+            public Integer call( GraphDatabaseService graphDb )
             {
-                int indexOf = cypherQuery.toLowerCase().indexOf( "return" );
-                String[] columns = cypherQuery.substring( indexOf + 7 ).split( "," );
-                return Arrays.asList( columns );
+                Guard kernelGuard = startGuard( graphDb, resultSet.getGuard() );
+                try
+                {
+                    return resultSet.fetch( count );
+                }
+                finally
+                {
+                    stopGuard( kernelGuard );
+                    if ( isMarkedForRollback( graphDb ) )
+                    {
+                        resultSet.setRollbackNeeded( true );
+                    }
+                    if ( displayTask != null )
+                    {
+                        UiHelper.asyncExec( displayTask );
+                    }
+                }
             }
-
-        }, "execute cypher query" ).get();
+        };
+        if ( resultSet.isUpdating() )
+        {
+            return submitTask( fetch, "fetch cypher rows" );
+        }
+        return submitReadTask( fetch, "fetch cypher rows" );
     }
 
     
     /**
-     * getAllNodes
+     * Installs a query guard in the kernel of an embedded database, for the
+     * current thread. Remote databases have no kernel guard, there the guard
+     * is only checked between rows. Has to be called from inside a graph
+     * task.
      * 
-     * @return List<Map<String, Object>>
-     * @throws Exception
+     * @return the kernel guard to stop afterwards, or null
      */
-    public List<NodeWrapper> getAllNodes() throws Exception
+    private Guard startGuard( final GraphDatabaseService graphDb, final QueryGuard guard )
     {
-        return submitTask( new GraphCallable<List<NodeWrapper>>()
+        if ( guard == null )
         {
-            @Override
-            public List<NodeWrapper> call( GraphDatabaseService graphDb )
+            return null;
+        }
+        guard.restart();
+        if ( isRemote() || !( graphDb instanceof GraphDatabaseAPI ) )
+        {
+            return null;
+        }
+        Guard kernelGuard;
+        try
+        {
+            kernelGuard = ( (GraphDatabaseAPI) graphDb ).getGuard();
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            return null;
+        }
+        if ( kernelGuard != null )
+        {
+            kernelGuard.start( guard );
+        }
+        return kernelGuard;
+    }
+
+    private void stopGuard( final Guard kernelGuard )
+    {
+        if ( kernelGuard != null )
+        {
+            kernelGuard.stop();
+        }
+    }
+
+    /**
+     * A query failing inside the kernel may mark the open transaction for
+     * rollback, which would make the next commit fail. The uncommitted
+     * changes belong to the user, so it's up to the user to roll back. Has to
+     * be called from inside a graph task.
+     * 
+     * @return true if the transaction of the current thread can only be
+     *         rolled back
+     */
+    private boolean isMarkedForRollback( final GraphDatabaseService graphDb )
+    {
+        if ( isReadOnlyMode() || isRemote() || !( graphDb instanceof GraphDatabaseAPI ) )
+        {
+            return false;
+        }
+        try
+        {
+            if ( ( (GraphDatabaseAPI) graphDb ).getTxManager().getStatus() == Status.STATUS_MARKED_ROLLBACK )
+            {
+                logInfo( "transaction marked for rollback by a failed query" );
+                return true;
+            }
+        }
+        catch ( SystemException e )
+        {
+            logInfo( "could not read the transaction status: " + e.getMessage() );
+        }
+        return false;
+    }
+
+    /**
+     * Enables the execution guard of the kernel, so that queries can be
+     * stopped, unless the connection configures it.
+     */
+    private static Map<String, String> embeddedConfig( final Alias alias )
+    {
+        Map<String, String> config = new HashMap<String, String>( alias.getConfigurationMap() );
+        String guardSetting = GraphDatabaseSettings.execution_guard_enabled.name();
+        if ( !config.containsKey( guardSetting ) )
+        {
+            config.put( guardSetting, Boolean.TRUE.toString() );
+        }
+        return config;
+    }
+
+    /**
+     * Exports all nodes of the database to a new file. The nodes are read in
+     * chunks, each by a read task of its own, so the database can be stopped
+     * or written to while a large export is running. Blocks until the export
+     * is done, so has to be called from a background job.
+     * 
+     * @param format the format to write
+     * @param monitor progress monitor, checked for cancellation
+     * @return the file written, or null if the export was cancelled
+     * @throws IOException if the export failed
+     */
+    public File exportAllNodes( final Format format, final IProgressMonitor monitor ) throws IOException
+    {
+        File file = DataExportUtils.createExportFile( format );
+        Writer out = DataExportUtils.openExportFile( file );
+        monitor.beginTask( "Exporting nodes to " + file.getName(), IProgressMonitor.UNKNOWN );
+        boolean completed = false;
+        try
+        {
+            final DataExportUtils.NodeExport export = new DataExportUtils.NodeExport( format, out );
+            GraphCallable<Boolean> chunk = new GraphCallable<Boolean>()
             {
-                final LinkedList<NodeWrapper> list = new LinkedList<NodeWrapper>();
-                Iterable<Node> iterable =  graphDb.getAllNodes();
-                for ( Node node : iterable )
+                @Override
+                public Boolean call( final GraphDatabaseService graphDb )
                 {
-                    NodeWrapper nodeWrapper = ApplicationUtil.extractToNodeWrapper( node, true );
-                    list.add( nodeWrapper );
+                    if ( graphDb == null )
+                    {
+                        throw new IllegalStateException( "The database was stopped during the export." );
+                    }
+                    try
+                    {
+                        return export.writeNodes( graphDb, EXPORT_CHUNK_SIZE, monitor );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new RuntimeException( "Could not write the export file.", e );
+                    }
                 }
-                return list;
+            };
+            boolean more = true;
+            while ( more && !monitor.isCanceled() )
+            {
+                more = submitReadTask( chunk, "export nodes" ).get();
             }
-
-        }, "get all nodes" ).get();
+            if ( !more )
+            {
+                // writes what is still buffered, so a failure fails the export
+                out.close();
+                completed = true;
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "The export was interrupted." );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IOException( e.getCause().getMessage(), e.getCause() );
+        }
+        finally
+        {
+            monitor.done();
+            if ( !completed )
+            {
+                try
+                {
+                    out.close();
+                }
+                catch ( IOException e )
+                {
+                    // the export failed or was cancelled, the file is dropped
+                    logFine( "Could not close the export file: " + e.getMessage() );
+                }
+                file.delete();
+            }
+        }
+        return completed ? file : null;
     }
 
     /**
@@ -626,20 +1152,75 @@ public class GraphDbServiceManager
         listeners.remove( listener );
     }
 
+    /**
+     * Registers a listener for writes to the graph.
+     */
+    public void addGraphChangeListener( final GraphChangeListener listener )
+    {
+        changeListeners.add( listener );
+    }
+
+    /**
+     * Unregisters a graph change listener.
+     */
+    public void removeGraphChangeListener( final GraphChangeListener listener )
+    {
+        changeListeners.remove( listener );
+    }
+
+    /**
+     * Notifies all graph change listeners, on the calling thread, of a change
+     * made by the application. Embedded databases won't report it again at
+     * commit time.
+     */
+    public void fireGraphChangeEvent( final GraphChangeEvent event )
+    {
+        if ( event == null || event.isEmpty() )
+        {
+            return;
+        }
+        if ( changeFeedRegistered )
+        {
+            reported.include( event );
+        }
+        notifyGraphChangeListeners( event );
+    }
+
+    private void notifyGraphChangeListeners( final GraphChangeEvent event )
+    {
+        if ( event == null || event.isEmpty() )
+        {
+            return;
+        }
+        for ( Object listener : changeListeners.getListeners() )
+        {
+            try
+            {
+                ( (GraphChangeListener) listener ).graphChanged( event );
+            }
+            catch ( RuntimeException e )
+            {
+                logger.log( Level.WARNING, "graph change listener failed", e );
+            }
+        }
+    }
+
     /**
      * Notifies all registered listeners about the new service status. Actually
      * just queues up the task so running tasks can finish first.
      */
     public void fireServiceChangedEvent( final GraphDbServiceStatus status )
     {
-        submitTask( new Runnable()
+        Runnable fire = new Runnable()
         {
             @Override
             public void run()
             {
                 fireTheServiceChangedEvent( status );
             }
-        }, "fire changed event" );
+        };
+        printTask( fire, "R", "fire changed event" );
+        submitToTxThread( fire, false, "fire changed event" );
     }
 
     private void fireTheServiceChangedEvent( final GraphDbServiceStatus status )
@@ -663,9 +1244,9 @@ public class GraphDbServiceManager
 
     public Node getAnyReferenceNode() throws Exception
     {
-        List<Map<String, Object>> result = executeCypher( FIND_REFERENCE_NODE_WITH_RELS_STATEMENT ).getIterator();
+        List<Map<String, Object>> result = executeCypher( FIND_REFERENCE_NODE_WITH_RELS_STATEMENT ).getRows();
         if ( result.isEmpty() ) {
-            result = executeCypher( FIND_REFERENCE_NODE_STATEMENT ).getIterator();
+            result = executeCypher( FIND_REFERENCE_NODE_STATEMENT ).getRows();
         }
         if ( result.isEmpty() ) {
             return null;
@@ -689,6 +1270,24 @@ public class GraphDbServiceManager
 
     public boolean isRemote()
     {
-        return currentAlias.getConnectionMode() == ConnectionMode.REMOTE;
+        return currentAlias != null && currentAlias.getConnectionMode() == ConnectionMode.REMOTE;
+    }
+
+    /**
+     * Forget the entities and properties cached for a remote connection, so
+     * that changes made by others show up. Does nothing for embedded
+     * databases.
+     */
+    public void invalidateRemoteCache()
+    {
+        GraphDbLifecycle current = lifecycle;
+        if ( current != null && current.graphDb() instanceof RestGraphDatabase )
+        {
+            RestAPI restApi = ( (RestGraphDatabase) current.graphDb() ).getRestAPI();
+            if ( restApi instanceof CachingRestApi )
+            {
+                ( (CachingRestApi) restApi ).invalidateAll();
+            }
+        }
     }
 }
@@ -146,12 +146,14 @@ public class GraphDbUtil
         }
         Node newInputNode = null;
         Node createNode = null;
+        GraphChangeEvent.Builder change = new GraphChangeEvent.Builder();
         try
         {
             if ( destNodes == null )
             {
                 destNodes = new ArrayList<Node>();
                 createNode = graphDb.createNode();
+                change.nodeCreated( createNode );
                 destNodes.add( createNode );
                 newInputNode = sourceNodes.get( 0 );
             }
@@ -159,6 +161,7 @@ public class GraphDbUtil
             {
                 sourceNodes = new ArrayList<Node>();
                 createNode = graphDb.createNode();
+                change.nodeCreated( createNode );
                 sourceNodes.add( createNode );
                 newInputNode = destNodes.get( 0 );
             }
@@ -166,7 +169,8 @@ public class GraphDbUtil
             {
                 for ( Node dest : destNodes )
                 {
-                    source.createRelationshipTo( dest, relType );
+                    change.relationshipCreated( source.createRelationshipTo(
+                            dest, relType ) );
                 }
             }
         }
@@ -174,6 +178,7 @@ public class GraphDbUtil
         {
             e.printStackTrace();
         }
+        fireGraphChange( change, graphView );
         if ( graphView != null )
         {
             graphView.setDirty( true );
@@ -185,10 +190,6 @@ public class GraphDbUtil
             {
                 graphView.setInput( newInputNode );
             }
-            else
-            {
-                graphView.refreshPreserveLayout();
-            }
         }
     }
 
@@ -246,6 +247,7 @@ public class GraphDbUtil
             final List<? extends PropertyContainer> containers,
             final NeoGraphViewPart graphView, final GraphDatabaseService graphDb )
     {
+        GraphChangeEvent.Builder change = new GraphChangeEvent.Builder();
         try
         {
             Node inputNode = graphView.getCurrentNode();
@@ -276,14 +278,18 @@ public class GraphDbUtil
                     }
                     for ( Relationship rel : node.getRelationships() )
                     {
+                        change.relationshipDeleted( rel );
                         rel.delete();
                     }
                     iter.remove(); // remove from list to not mess up the list
+                    change.nodeDeleted( node );
                     node.delete();
                 }
                 else if ( container instanceof Relationship )
                 {
-                    ( (Relationship) container ).delete();
+                    Relationship rel = (Relationship) container;
+                    change.relationshipDeleted( rel );
+                    rel.delete();
                 }
                 graphView.setDirty( true );
                 if ( newInputNode != null )
@@ -296,6 +302,35 @@ public class GraphDbUtil
         {
             ErrorMessage.showDialog( "Error when deleting", e );
         }
+        finally
+        {
+            fireGraphChange( change, graphView );
+        }
+    }
+
+    /**
+     * Reports the recorded changes to the views right away, the commit of an
+     * embedded database leaves them out.
+     * 
+     * @param change the changes made so far
+     * @param source where the changes were made from
+     */
+    private static void fireGraphChange( final GraphChangeEvent.Builder change,
+            final Object source )
+    {
+        GraphDbServiceManager gsm = Activator.getDefault()
+                .getGraphDbServiceManager();
+        gsm.fireGraphChangeEvent( change.build( source != null ? source : gsm ) );
+    }
+
+    /**
+     * Reports a property change of a node or relationship.
+     */
+    private static void fireGraphChange( final PropertyContainer container,
+            final Object source )
+    {
+        fireGraphChange( new GraphChangeEvent.Builder().modified( container ),
+                source );
     }
 
     /**
@@ -483,6 +518,7 @@ public class GraphDbUtil
                         public void run()
                         {
                             container.removeProperty( key );
+                            fireGraphChange( container, propertySheet );
                         }
                     }, "removing a property" );
         }
@@ -539,7 +575,7 @@ public class GraphDbUtil
                     "Error parsing the input value, no changes will be performed." );
             return;
         }
-        if ( setTheProperty( container, key, val ) )
+        if ( setTheProperty( container, key, val, propertySheet ) )
         {
             stateChanged( container, key, true, propertySheet );
         }
@@ -557,14 +593,15 @@ public class GraphDbUtil
             final String key, final Object value,
             final NeoPropertySheetPage propertySheet )
     {
-        if ( setTheProperty( container, key, value ) )
+        if ( setTheProperty( container, key, value, propertySheet ) )
         {
             stateChanged( container, key, false, propertySheet );
         }
     }
 
     private static boolean setTheProperty( final PropertyContainer container,
-            final String key, final Object value )
+            final String key, final Object value,
+            final NeoPropertySheetPage propertySheet )
     {
         try
         {
@@ -576,6 +613,7 @@ public class GraphDbUtil
                         public void run()
                         {
                             container.setProperty( key, value );
+                            fireGraphChange( container, propertySheet );
                         }
                     }, "set property" )
                     .get();
@@ -619,6 +657,7 @@ public class GraphDbUtil
                             container.setProperty( newKey,
                                     container.getProperty( key ) );
                             container.removeProperty( key );
+                            fireGraphChange( container, propertySheet );
                         }
                     }, "rename property" )
                     .get();
@@ -637,7 +676,7 @@ public class GraphDbUtil
         {
             return Activator.getDefault()
                     .getGraphDbServiceManager()
-                    .submitTask( new Callable<Object>()
+                    .submitReadTask( new Callable<Object>()
                     {
                         @Override
                         public Object call() throws Exception
@@ -654,24 +693,54 @@ public class GraphDbUtil
         return null;
     }
 
-    public static Map<String, Object> getProperties(
+    /**
+     * Get the property keys of a container, without reading the values.
+     * 
+     * @param container container to read from
+     * @return the keys or null on failure
+     */
+    public static List<String> getPropertyKeys(
             final PropertyContainer container )
     {
         try
         {
             return Activator.getDefault()
                     .getGraphDbServiceManager()
-                    .submitTask( new Callable<Map<String, Object>>()
+                    .submitReadTask( new Callable<List<String>>()
                     {
                         @Override
-                        public Map<String, Object> call() throws Exception
+                        public List<String> call() throws Exception
                         {
-                            Map<String, Object> props = new HashMap<String, Object>();
+                            List<String> keys = new ArrayList<String>();
                             for ( String key : container.getPropertyKeys() )
                             {
-                                props.put( key, container.getProperty( key ) );
+                                keys.add( key );
                             }
-                            return props;
+                            return keys;
+                        }
+                    }, "get property keys" )
+                    .get();
+        }
+        catch ( Exception e )
+        {
+            ErrorMessage.showDialog( "Get property keys", e );
+        }
+        return null;
+    }
+
+    public static Map<String, Object> getProperties(
+            final PropertyContainer container )
+    {
+        try
+        {
+            return Activator.getDefault()
+                    .getGraphDbServiceManager()
+                    .submitReadTask( new Callable<Map<String, Object>>()
+                    {
+                        @Override
+                        public Map<String, Object> call() throws Exception
+                        {
+                            return readProperties( container );
                         }
                     }, "get properties" )
                     .get();
@@ -690,20 +759,12 @@ public class GraphDbUtil
         {
             return Activator.getDefault()
                     .getGraphDbServiceManager()
-                    .submitTask( new Callable<Map<String, Object>>()
+                    .submitReadTask( new Callable<Map<String, Object>>()
                     {
                         @Override
                         public Map<String, Object> call() throws Exception
                         {
-                            Map<String, Object> props = new HashMap<String, Object>();
-                            for ( String key : propertyKeys )
-                            {
-                                if ( container.hasProperty( key ) )
-                                {
-                                    props.put( key, container.getProperty( key ) );
-                                }
-                            }
-                            return props;
+                            return readProperties( container, propertyKeys );
                         }
                     }, "get properties" )
                     .get();
@@ -715,6 +776,47 @@ public class GraphDbUtil
         return null;
     }
 
+    /**
+     * Read all properties of a container. Has to be called from inside a graph
+     * task, use {@link #getProperties(PropertyContainer)} otherwise.
+     * 
+     * @param container container to read from
+     * @return the properties
+     */
+    public static Map<String, Object> readProperties(
+            final PropertyContainer container )
+    {
+        Map<String, Object> props = new HashMap<String, Object>();
+        for ( String key : container.getPropertyKeys() )
+        {
+            props.put( key, container.getProperty( key ) );
+        }
+        return props;
+    }
+
+    /**
+     * Read the given properties of a container. Has to be called from inside a
+     * graph task, use {@link #getProperties(PropertyContainer, List)}
+     * otherwise.
+     * 
+     * @param container container to read from
+     * @param propertyKeys keys of the properties to read
+     * @return the properties that exist
+     */
+    public static Map<String, Object> readProperties(
+            final PropertyContainer container, final List<String> propertyKeys )
+    {
+        Map<String, Object> props = new HashMap<String, Object>();
+        for ( String key : propertyKeys )
+        {
+            if ( container.hasProperty( key ) )
+            {
+                props.put( key, container.getProperty( key ) );
+            }
+        }
+        return props;
+    }
+
     /**
      * Get all relationships from the database. Note that relationship types not
      * more in use can show up in the result.
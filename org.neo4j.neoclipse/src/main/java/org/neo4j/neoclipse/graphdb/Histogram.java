@@ -0,0 +1,102 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, in buckets that double in size: bucket i
+ * holds durations below 2^i microseconds, the last bucket everything above.
+ */
+class Histogram
+{
+    static final int BUCKETS = 25;
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+
+    void record( final long nanos )
+    {
+        long micros = nanos / 1000;
+        int bucket = micros <= 0 ? 0 : Math.min( 64 - Long.numberOfLeadingZeros( micros ), BUCKETS - 1 );
+        buckets.incrementAndGet( bucket );
+    }
+
+    long[] snapshot()
+    {
+        long[] counts = new long[BUCKETS];
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[i] = buckets.get( i );
+        }
+        return counts;
+    }
+
+    void reset()
+    {
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            buckets.set( i, 0 );
+        }
+    }
+
+    /**
+     * @return upper bound in microseconds of each bucket, the last one is
+     *         unbounded
+     */
+    static long[] upperBoundsMicros()
+    {
+        long[] bounds = new long[BUCKETS];
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            bounds[i] = i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+        return bounds;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in.
+     * 
+     * @param fraction the percentile, between 0 and 1
+     * @return the estimate in milliseconds, 0 if nothing was recorded
+     */
+    static double percentileMillis( final long[] counts, final double fraction )
+    {
+        long total = 0;
+        for ( long count : counts )
+        {
+            total += count;
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        long target = (long) Math.ceil( fraction * total );
+        long cumulative = 0;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            cumulative += counts[i];
+            if ( cumulative >= target )
+            {
+                // the last bucket is unbounded, report its lower bound
+                return ( i == counts.length - 1 ? 1L << ( i - 1 ) : 1L << i ) / 1000.0;
+            }
+        }
+        return ( 1L << ( counts.length - 2 ) ) / 1000.0;
+    }
+}
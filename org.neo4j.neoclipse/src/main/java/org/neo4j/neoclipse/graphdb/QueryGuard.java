@@ -0,0 +1,110 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import org.neo4j.kernel.guard.Guard;
+import org.neo4j.kernel.guard.GuardException;
+
+/**
+ * Limits the running time of a query and lets it be cancelled from another
+ * thread. For embedded databases the guard is installed in the kernel while
+ * the query runs, so it's checked on every node and relationship the query
+ * touches. Otherwise it's checked between result rows.
+ */
+public class QueryGuard implements Guard.GuardInternal
+{
+    /**
+     * Thrown from the query when the guard stops it.
+     */
+    public static class QueryAbortedException extends GuardException
+    {
+        private static final long serialVersionUID = 1L;
+
+        QueryAbortedException( final String message )
+        {
+            super( message );
+        }
+    }
+
+    private final long timeoutMillis;
+    private volatile long deadline;
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param timeoutMillis the time each run of the query may take, 0 for no
+     *            limit
+     */
+    public QueryGuard( final long timeoutMillis )
+    {
+        this.timeoutMillis = timeoutMillis;
+        restart();
+    }
+
+    /**
+     * Starts a new time slot, used for each page of rows that is fetched.
+     */
+    public void restart()
+    {
+        deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    /**
+     * Stop the query at the next check, can be called from any thread.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    @Override
+    public void check()
+    {
+        if ( cancelled )
+        {
+            throw new QueryAbortedException( "Cancelled." );
+        }
+        if ( System.currentTimeMillis() > deadline )
+        {
+            throw new QueryAbortedException( "Stopped after " + timeoutMillis / 1000.0 + " s." );
+        }
+    }
+
+    /**
+     * Tells if an exception, or one of its causes, comes from a guard
+     * stopping the query.
+     * 
+     * @return the reason the query was stopped, or null if it wasn't
+     */
+    public static String abortReason( final Throwable exception )
+    {
+        for ( Throwable cause = exception; cause != null; cause = cause.getCause() )
+        {
+            if ( cause instanceof QueryAbortedException )
+            {
+                return cause.getMessage();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * Breadth first traversal that, when a level doesn't fit in the node limit,
+ * keeps the nodes with the most relationships to the nodes already shown.
+ * Densely connected neighborhoods win over the long tail of a hub.
+ */
+public class RelevanceTraverser extends AbstractTraverser
+{
+    @Override
+    protected void collectNodes( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final List<Node> nodes,
+            final GraphDbServiceManager gsm )
+    {
+        LongHashSet visited = new LongHashSet( nodeLimit );
+        visited.add( start.getId() );
+        nodes.add( start );
+        List<Node> frontier = new ArrayList<Node>();
+        frontier.add( start );
+        for ( int level = 0; level < depth && !frontier.isEmpty()
+                             && nodes.size() < nodeLimit; level++ )
+        {
+            final Map<Node,Integer> links = new LinkedHashMap<Node,Integer>();
+            for ( Node current : frontier )
+            {
+                for ( DirectedRelationship directedRel : directedRels )
+                {
+                    int scanned = 0;
+                    for ( Relationship rel : expand( current, directedRel ) )
+                    {
+                        if ( ++scanned > MAX_SCANNED_RELATIONSHIPS )
+                        {
+                            break;
+                        }
+                        Node other = rel.getOtherNode( current );
+                        if ( visited.contains( other.getId() ) )
+                        {
+                            continue;
+                        }
+                        Integer count = links.get( other );
+                        links.put( other, count == null ? 1 : count + 1 );
+                    }
+                }
+            }
+            List<Node> candidates = new ArrayList<Node>( links.keySet() );
+            if ( nodes.size() + candidates.size() > nodeLimit )
+            {
+                Collections.sort( candidates, new Comparator<Node>()
+                {
+                    @Override
+                    public int compare( final Node a, final Node b )
+                    {
+                        return links.get( b ) - links.get( a );
+                    }
+                } );
+                candidates = candidates.subList( 0, nodeLimit - nodes.size() );
+            }
+            for ( Node candidate : candidates )
+            {
+                visited.add( candidate.getId() );
+            }
+            nodes.addAll( candidates );
+            frontier = candidates;
+        }
+    }
+}
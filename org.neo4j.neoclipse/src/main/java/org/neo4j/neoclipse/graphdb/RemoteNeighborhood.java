@@ -0,0 +1,163 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.neo4j.neoclipse.util.LongHashSet;
+import org.neo4j.rest.graphdb.entity.RestNode;
+import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
+
+/**
+ * Fetches the neighborhood of a node on a remote database with two Cypher
+ * queries: one for the nodes within the depth, closest first, together with
+ * their properties, and one for the relationships of the followed types
+ * between those nodes. The view is then built from the results without
+ * further requests.
+ */
+final class RemoteNeighborhood
+{
+    private RemoteNeighborhood()
+    {
+        // no instances
+    }
+
+    /**
+     * Adds the start node and the nodes reached from it to the list.
+     * 
+     * @return the relationships between the nodes, or null when the query
+     *         can't express the traversal, as when the relationship types are
+     *         followed in different directions
+     */
+    static EdgeIndex fetch( final Node start, final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final List<Node> nodes, final GraphDbServiceManager gsm )
+    {
+        if ( !( start instanceof RestNode ) || depth < 1 || nodeLimit < 1 )
+        {
+            return null;
+        }
+        String types = typesOf( directedRels );
+        String query = buildQuery( directedRels, depth );
+        if ( types == null || query == null )
+        {
+            return null;
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put( "start", start.getId() );
+        params.put( "limit", nodeLimit );
+        RestCypherQueryEngine engine = gsm.restCypherEngine();
+        LongHashSet seen = new LongHashSet( nodeLimit );
+        List<Long> ids = new ArrayList<Long>();
+        for ( Map<String, Object> row : engine.query( query, params ) )
+        {
+            Node node = (Node) row.get( "m" );
+            if ( seen.add( node.getId() ) )
+            {
+                nodes.add( node );
+                ids.add( node.getId() );
+            }
+        }
+        if ( nodes.isEmpty() )
+        {
+            nodes.add( start );
+            return EdgeIndex.EMPTY;
+        }
+        params.clear();
+        params.put( "ids", ids );
+        List<Relationship> rels = new ArrayList<Relationship>();
+        for ( Map<String, Object> row : engine.query( buildRelationshipQuery( types ), params ) )
+        {
+            rels.add( (Relationship) row.get( "r" ) );
+        }
+        return EdgeIndex.fromRelationships( nodes, rels );
+    }
+
+    /**
+     * @return the relationships of the given types that start and end at
+     *         one of the nodes passed in the <code>ids</code> parameter
+     */
+    static String buildRelationshipQuery( final String types )
+    {
+        return "START m=node({ids}) MATCH m-[r" + types + "]->other WHERE id(other) IN {ids} RETURN r";
+    }
+
+    /**
+     * @return the relationship types as a Cypher pattern, like
+     *         <code>:`A`|`B`</code>, or null if there are none
+     */
+    private static String typesOf( final Collection<? extends DirectedRelationship> directedRels )
+    {
+        StringBuilder types = new StringBuilder();
+        for ( DirectedRelationship directedRel : directedRels )
+        {
+            types.append( types.length() == 0 ? ":" : "|" )
+                    .append( '`' )
+                    .append( directedRel.getRelType().name() )
+                    .append( '`' );
+        }
+        return types.length() == 0 ? null : types.toString();
+    }
+
+    /**
+     * @return the query for the nodes, or null if the relationship types
+     *         don't share one direction
+     */
+    static String buildQuery( final Collection<? extends DirectedRelationship> directedRels, final int depth )
+    {
+        Direction direction = null;
+        for ( DirectedRelationship directedRel : directedRels )
+        {
+            Direction current = directedRel.hasDirection() ? directedRel.getDirection() : Direction.BOTH;
+            if ( direction != null && direction != current )
+            {
+                return null;
+            }
+            direction = current;
+        }
+        if ( direction == null )
+        {
+            return null;
+        }
+        String hops = "[" + typesOf( directedRels ) + "*0.." + depth + "]";
+        String pattern;
+        switch ( direction )
+        {
+        case OUTGOING:
+            pattern = "n-" + hops + "->m";
+            break;
+        case INCOMING:
+            pattern = "n<-" + hops + "-m";
+            break;
+        default:
+            pattern = "n-" + hops + "-m";
+            break;
+        }
+        return "START n=node({start}) MATCH p=" + pattern
+               + " WITH m, min(length(p)) AS distance ORDER BY distance LIMIT {limit}"
+               + " RETURN m, distance ORDER BY distance";
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.neo4j.rest.graphdb.ExecutingRestRequest;
+import org.neo4j.rest.graphdb.RestAPIFacade;
+import org.neo4j.rest.graphdb.RestRequest;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
+
+/**
+ * HTTP settings of a remote connection, read from the configuration of the
+ * connection alias. The REST binding talks through the JDK HTTP client, which
+ * keeps idle connections alive and reuses them; it doesn't pipeline
+ * requests.
+ */
+public final class RestTransport
+{
+    /**
+     * Seconds to wait for a connection to the server.
+     */
+    public static final String CONNECT_TIMEOUT = "rest.connect_timeout";
+    /**
+     * Seconds to wait for data from the server.
+     */
+    public static final String READ_TIMEOUT = "rest.read_timeout";
+    /**
+     * Ask the server for gzip compressed responses, "true" or "false".
+     */
+    public static final String GZIP = "rest.gzip";
+    /**
+     * Idle connections kept alive per server. This is a setting of the JDK
+     * HTTP client and applies to the whole application, the first
+     * connection that sets it wins.
+     */
+    public static final String MAX_CONNECTIONS = "rest.max_connections";
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 30;
+    private static final int DEFAULT_READ_TIMEOUT = 30;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10;
+    private static final String KEEP_ALIVE_PROPERTY = "http.keepAlive";
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+
+    private static final Logger logger = Logger.getLogger( RestTransport.class.getName() );
+
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final boolean gzip;
+    private final int maxConnections;
+
+    private RestTransport( final int connectTimeout, final int readTimeout, final boolean gzip,
+            final int maxConnections )
+    {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.gzip = gzip;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Read the settings from the configuration of an alias, missing or
+     * invalid values get their defaults.
+     */
+    public static RestTransport fromConfiguration( final Map<String, String> configuration )
+    {
+        int connectTimeout = intValue( configuration, CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT );
+        int readTimeout = intValue( configuration, READ_TIMEOUT, DEFAULT_READ_TIMEOUT );
+        boolean gzip = !Boolean.FALSE.toString().equalsIgnoreCase( configuration.get( GZIP ) );
+        int maxConnections = intValue( configuration, MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS );
+        return new RestTransport( connectTimeout, readTimeout, gzip, maxConnections );
+    }
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public boolean isGzip()
+    {
+        return gzip;
+    }
+
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    /**
+     * Apply the settings to the HTTP client of a REST API. The client isn't
+     * exposed by the REST binding, if it can't be reached the binding's
+     * defaults stay in place.
+     */
+    void install( final RestAPIFacade restApi )
+    {
+        if ( System.getProperty( MAX_CONNECTIONS_PROPERTY ) == null )
+        {
+            System.setProperty( KEEP_ALIVE_PROPERTY, Boolean.TRUE.toString() );
+            System.setProperty( MAX_CONNECTIONS_PROPERTY, Integer.toString( maxConnections ) );
+        }
+        Client client = client( restApi.getDirect().getRestRequest() );
+        if ( client == null )
+        {
+            logger.warning( "Can't configure the HTTP client, using the default settings." );
+            return;
+        }
+        client.setConnectTimeout( (int) TimeUnit.SECONDS.toMillis( connectTimeout ) );
+        client.setReadTimeout( (int) TimeUnit.SECONDS.toMillis( readTimeout ) );
+        if ( gzip )
+        {
+            // only responses, the server doesn't accept compressed requests
+            client.addFilter( new GZIPContentEncodingFilter( false ) );
+        }
+    }
+
+    private static Client client( final RestRequest request )
+    {
+        if ( !( request instanceof ExecutingRestRequest ) )
+        {
+            return null;
+        }
+        try
+        {
+            Field field = ExecutingRestRequest.class.getDeclaredField( "client" );
+            field.setAccessible( true );
+            return (Client) field.get( request );
+        }
+        catch ( Exception e )
+        {
+            return null;
+        }
+    }
+
+    private static int intValue( final Map<String, String> configuration, final String key, final int defaultValue )
+    {
+        String value = configuration.get( key );
+        if ( value == null )
+        {
+            return defaultValue;
+        }
+        try
+        {
+            int parsed = Integer.parseInt( value.trim() );
+            return parsed < 0 ? defaultValue : parsed;
+        }
+        catch ( NumberFormatException e )
+        {
+            return defaultValue;
+        }
+    }
+}
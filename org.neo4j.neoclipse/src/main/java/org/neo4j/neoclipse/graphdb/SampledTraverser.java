@@ -0,0 +1,204 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.neoclipse.reltype.DirectedRelationship;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * Breadth first traversal that follows at most a fixed number of
+ * relationships per node and relationship type, so a hub doesn't use up the
+ * whole node limit on the first hop. On nodes with more neighbors than that,
+ * a sample is taken that favors neighbors with few relationships, as they
+ * show more of the structure around the start node than other hubs do. The
+ * degrees are estimated by counting up to {@link #DEGREE_LIMIT}
+ * relationships, for a uniform pre-sample of the first
+ * {@link #MAX_SCANNED_RELATIONSHIPS} relationships of the node. The sample
+ * is seeded from the start node, so refreshing the view shows the same
+ * nodes again.
+ */
+public class SampledTraverser extends AbstractTraverser
+{
+    /**
+     * Relationships followed per node and relationship type.
+     */
+    public static final int FAN_OUT_PER_TYPE = 25;
+
+    /**
+     * Neighbors per node and relationship type whose degree is estimated.
+     */
+    private static final int CANDIDATES_PER_TYPE = 4 * FAN_OUT_PER_TYPE;
+
+    /**
+     * Relationships counted at most to estimate the degree of a neighbor.
+     */
+    public static final int DEGREE_LIMIT = 100;
+
+    @Override
+    protected void collectNodes( final Node start,
+            final Collection<? extends DirectedRelationship> directedRels,
+            final int depth, final int nodeLimit, final List<Node> nodes,
+            final GraphDbServiceManager gsm )
+    {
+        Random random = new Random( start.getId() );
+        LongHashSet visited = new LongHashSet( nodeLimit );
+        visited.add( start.getId() );
+        nodes.add( start );
+        List<Node> frontier = new ArrayList<Node>();
+        frontier.add( start );
+        for ( int level = 0; level < depth && !frontier.isEmpty(); level++ )
+        {
+            List<Node> next = new ArrayList<Node>();
+            for ( Node current : frontier )
+            {
+                for ( DirectedRelationship directedRel : directedRels )
+                {
+                    for ( Node other : sample( current, directedRel, visited, random ) )
+                    {
+                        if ( nodes.size() >= nodeLimit )
+                        {
+                            return;
+                        }
+                        visited.add( other.getId() );
+                        nodes.add( other );
+                        next.add( other );
+                    }
+                }
+            }
+            frontier = next;
+        }
+    }
+
+    /**
+     * Sample of the neighbors of a node for one relationship type that
+     * weren't visited yet, weighted by one over the estimated degree of each
+     * neighbor. Each neighbor counts once, however many relationships lead
+     * to it.
+     */
+    private static List<Node> sample( final Node node,
+            final DirectedRelationship directedRel, final LongHashSet visited,
+            final Random random )
+    {
+        List<Node> candidates = candidates( node, directedRel, visited, random );
+        if ( candidates.size() <= FAN_OUT_PER_TYPE )
+        {
+            return candidates;
+        }
+        // weighted sampling without replacement: keep the largest keys
+        // u^(1/weight), with u uniform in [0,1) and weight 1/degree
+        List<Candidate> keyed = new ArrayList<Candidate>( candidates.size() );
+        for ( Node candidate : candidates )
+        {
+            keyed.add( new Candidate( candidate, Math.pow( random.nextDouble(), estimateDegree( candidate ) ) ) );
+        }
+        Collections.sort( keyed );
+        List<Node> sample = new ArrayList<Node>( FAN_OUT_PER_TYPE );
+        for ( Candidate candidate : keyed.subList( 0, FAN_OUT_PER_TYPE ) )
+        {
+            sample.add( candidate.node );
+        }
+        return sample;
+    }
+
+    /**
+     * Uniform reservoir sample of the neighbors that weren't visited yet,
+     * among the first {@link #MAX_SCANNED_RELATIONSHIPS} relationships.
+     */
+    private static List<Node> candidates( final Node node,
+            final DirectedRelationship directedRel, final LongHashSet visited,
+            final Random random )
+    {
+        List<Node> reservoir = new ArrayList<Node>( CANDIDATES_PER_TYPE );
+        LongHashSet seenIds = new LongHashSet();
+        int scanned = 0;
+        int seen = 0;
+        for ( Relationship rel : expand( node, directedRel ) )
+        {
+            if ( ++scanned > MAX_SCANNED_RELATIONSHIPS )
+            {
+                break;
+            }
+            Node other = rel.getOtherNode( node );
+            if ( visited.contains( other.getId() ) || !seenIds.add( other.getId() ) )
+            {
+                continue;
+            }
+            seen++;
+            if ( reservoir.size() < CANDIDATES_PER_TYPE )
+            {
+                reservoir.add( other );
+            }
+            else
+            {
+                int slot = random.nextInt( seen );
+                if ( slot < CANDIDATES_PER_TYPE )
+                {
+                    reservoir.set( slot, other );
+                }
+            }
+        }
+        return reservoir;
+    }
+
+    /**
+     * Counts the relationships of a node, up to {@link #DEGREE_LIMIT}. At
+     * least one, the relationship the node was reached by.
+     */
+    private static int estimateDegree( final Node node )
+    {
+        int degree = 0;
+        Iterator<Relationship> rels = node.getRelationships().iterator();
+        while ( degree < DEGREE_LIMIT && rels.hasNext() )
+        {
+            rels.next();
+            degree++;
+        }
+        return Math.max( degree, 1 );
+    }
+
+    /**
+     * A neighbor with its sampling key, largest key first.
+     */
+    private static final class Candidate implements Comparable<Candidate>
+    {
+        private final Node node;
+        private final double key;
+
+        Candidate( final Node node, final double key )
+        {
+            this.node = node;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo( final Candidate other )
+        {
+            return Double.compare( other.key, key );
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of the tasks run by the {@link GraphDbServiceManager}: per task name
+ * counters, queue wait and execution time histograms, the current queue
+ * depths and the number of tasks running. Published as MBeans in the {@value #DOMAIN} domain.
+ */
+public class TaskMetrics implements TaskMetricsMBean
+{
+    public static final String DOMAIN = "org.neo4j.neoclipse";
+
+    /**
+     * The queues tasks wait in.
+     */
+    enum Queue
+    {
+        TRANSACTION,
+        READ
+    }
+
+    private static Logger logger = Logger.getLogger( TaskMetrics.class.getName() );
+
+    private final ConcurrentMap<String, TaskStats> stats = new ConcurrentHashMap<String, TaskStats>();
+    private final AtomicInteger transactionQueued = new AtomicInteger();
+    private final AtomicInteger readQueued = new AtomicInteger();
+    private final AtomicInteger transactionRunning = new AtomicInteger();
+    private final AtomicInteger readRunning = new AtomicInteger();
+    private final boolean publish;
+
+    /**
+     * @param publish true to register the metrics as MBeans
+     */
+    public TaskMetrics( final boolean publish )
+    {
+        this.publish = publish;
+        register( this, "type=Executor" );
+    }
+
+    /**
+     * Wraps a task so that its wait and execution times are recorded under
+     * the given name. Has to be called when the task is queued.
+     */
+    <T> Callable<T> measure( final Callable<T> task, final String name, final Queue queue )
+    {
+        final long submitted = System.nanoTime();
+        final AtomicInteger queued = queue == Queue.TRANSACTION ? transactionQueued : readQueued;
+        final AtomicInteger running = queue == Queue.TRANSACTION ? transactionRunning : readRunning;
+        queued.incrementAndGet();
+        return new Callable<T>()
+        {
+            @Override
+            public T call() throws Exception
+            {
+                long started = System.nanoTime();
+                queued.decrementAndGet();
+                running.incrementAndGet();
+                boolean failed = true;
+                try
+                {
+                    T result = task.call();
+                    failed = false;
+                    return result;
+                }
+                finally
+                {
+                    running.decrementAndGet();
+                    statsFor( name ).record( started - submitted, System.nanoTime() - started, failed );
+                }
+            }
+        };
+    }
+
+    private TaskStats statsFor( final String name )
+    {
+        TaskStats taskStats = stats.get( name );
+        if ( taskStats == null )
+        {
+            TaskStats created = new TaskStats( name );
+            taskStats = stats.putIfAbsent( name, created );
+            if ( taskStats == null )
+            {
+                taskStats = created;
+                register( created, "type=Tasks,name=" + ObjectName.quote( name ) );
+            }
+        }
+        return taskStats;
+    }
+
+    private void register( final Object bean, final String properties )
+    {
+        if ( !publish )
+        {
+            return;
+        }
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName( DOMAIN + ":" + properties );
+            if ( !server.isRegistered( objectName ) )
+            {
+                server.registerMBean( bean, objectName );
+            }
+        }
+        catch ( JMException e )
+        {
+            logger.log( Level.INFO, "Could not register the " + properties + " MBean", e );
+        }
+    }
+
+    /**
+     * Returns the metrics of all task names seen so far.
+     */
+    public List<TaskStats> getTaskStats()
+    {
+        return new ArrayList<TaskStats>( stats.values() );
+    }
+
+    @Override
+    public int getTransactionQueueDepth()
+    {
+        return transactionQueued.get();
+    }
+
+    @Override
+    public int getReadQueueDepth()
+    {
+        return readQueued.get();
+    }
+
+    @Override
+    public int getTransactionTasksRunning()
+    {
+        return transactionRunning.get();
+    }
+
+    @Override
+    public int getReadTasksRunning()
+    {
+        return readRunning.get();
+    }
+
+    @Override
+    public String[] getTaskNames()
+    {
+        return stats.keySet().toArray( new String[0] );
+    }
+
+    @Override
+    public long[] getHistogramBoundsMicros()
+    {
+        return Histogram.upperBoundsMicros();
+    }
+
+    @Override
+    public void reset()
+    {
+        for ( TaskStats taskStats : stats.values() )
+        {
+            taskStats.reset();
+        }
+    }
+}
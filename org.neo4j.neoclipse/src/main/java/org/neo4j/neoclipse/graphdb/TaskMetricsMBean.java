@@ -0,0 +1,54 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+/**
+ * JMX view of the executor metrics of the {@link GraphDbServiceManager}.
+ */
+public interface TaskMetricsMBean
+{
+    /**
+     * Tasks waiting for the transaction thread.
+     */
+    int getTransactionQueueDepth();
+
+    /**
+     * Tasks waiting for a read thread.
+     */
+    int getReadQueueDepth();
+
+    /**
+     * Tasks running on the transaction thread, at most one.
+     */
+    int getTransactionTasksRunning();
+
+    /**
+     * Tasks running on the read threads.
+     */
+    int getReadTasksRunning();
+
+    String[] getTaskNames();
+
+    /**
+     * Upper bounds of the histogram buckets of the tasks, in microseconds.
+     */
+    long[] getHistogramBoundsMicros();
+
+    void reset();
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and histograms for the tasks submitted under one name. Updated
+ * from the executor threads without locking.
+ */
+public class TaskStats implements TaskStatsMBean
+{
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String name;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalWait = new AtomicLong();
+    private final AtomicLong totalExecution = new AtomicLong();
+    private final AtomicLong maxWait = new AtomicLong();
+    private final AtomicLong maxExecution = new AtomicLong();
+    private final Histogram waitHistogram = new Histogram();
+    private final Histogram executionHistogram = new Histogram();
+
+    TaskStats( final String name )
+    {
+        this.name = name;
+    }
+
+    void record( final long waitNanos, final long executionNanos, final boolean failed )
+    {
+        count.incrementAndGet();
+        if ( failed )
+        {
+            failures.incrementAndGet();
+        }
+        totalWait.addAndGet( waitNanos );
+        totalExecution.addAndGet( executionNanos );
+        raise( maxWait, waitNanos );
+        raise( maxExecution, executionNanos );
+        waitHistogram.record( waitNanos );
+        executionHistogram.record( executionNanos );
+    }
+
+    private static void raise( final AtomicLong max, final long value )
+    {
+        long current;
+        while ( value > ( current = max.get() ) && !max.compareAndSet( current, value ) )
+        {
+            // retry
+        }
+    }
+
+    void reset()
+    {
+        count.set( 0 );
+        failures.set( 0 );
+        totalWait.set( 0 );
+        totalExecution.set( 0 );
+        maxWait.set( 0 );
+        maxExecution.set( 0 );
+        waitHistogram.reset();
+        executionHistogram.reset();
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    @Override
+    public long getFailures()
+    {
+        return failures.get();
+    }
+
+    /**
+     * Time spent running tasks of this name in total.
+     */
+    public double getTotalExecutionMillis()
+    {
+        return totalExecution.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanWaitMillis()
+    {
+        long n = count.get();
+        return n == 0 ? 0 : totalWait.get() / NANOS_PER_MILLI / n;
+    }
+
+    @Override
+    public double getMeanExecutionMillis()
+    {
+        long n = count.get();
+        return n == 0 ? 0 : totalExecution.get() / NANOS_PER_MILLI / n;
+    }
+
+    @Override
+    public double getMaxWaitMillis()
+    {
+        return maxWait.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxExecutionMillis()
+    {
+        return maxExecution.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getWaitMillis90thPercentile()
+    {
+        return Histogram.percentileMillis( waitHistogram.snapshot(), 0.9 );
+    }
+
+    @Override
+    public double getExecutionMillis90thPercentile()
+    {
+        return Histogram.percentileMillis( executionHistogram.snapshot(), 0.9 );
+    }
+
+    @Override
+    public long[] getWaitHistogram()
+    {
+        return waitHistogram.snapshot();
+    }
+
+    @Override
+    public long[] getExecutionHistogram()
+    {
+        return executionHistogram.snapshot();
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.graphdb;
+
+/**
+ * The traversal strategies the graph view can expand nodes with.
+ */
+public enum TraversalStrategies
+{
+    BREADTH_FIRST
+    {
+        @Override
+        public TraversalStrategy create()
+        {
+            return new DefaultTraverser();
+        }
+    },
+    DEPTH_FIRST
+    {
+        @Override
+        public TraversalStrategy create()
+        {
+            return new DepthFirstTraverser();
+        }
+    },
+    SAMPLED
+    {
+        @Override
+        public TraversalStrategy create()
+        {
+            return new SampledTraverser();
+        }
+    },
+    MOST_CONNECTED
+    {
+        @Override
+        public TraversalStrategy create()
+        {
+            return new RelevanceTraverser();
+        }
+    };
+
+    /**
+     * Creates a new traverser for this strategy.
+     */
+    public abstract TraversalStrategy create();
+}
@@ -31,4 +31,9 @@ public interface TraversalStrategy
             int nodeLimit, GraphDbServiceManager gsm );
 
     Collection<Relationship> getRelationships( Node start, Node end );
+
+    /**
+     * Returns the relationships between the nodes of the latest traversal.
+     */
+    Collection<Relationship> getRelationships();
 }
@@ -25,6 +25,7 @@ import org.neo4j.neoclipse.connection.ConnectionsView;
 import org.neo4j.neoclipse.editor.SqlEditorView;
 import org.neo4j.neoclipse.reltype.RelationshipTypeView;
 import org.neo4j.neoclipse.view.NeoGraphViewPart;
+import org.neo4j.neoclipse.view.TaskMetricsView;
 
 /**
  * This class represents a perspective for neo which consists of neo-specific
@@ -64,6 +65,7 @@ public class NeoPerspectiveFactory implements IPerspectiveFactory
         // relationship types view
         IFolderLayout types = layout.createFolder( "typesArea", IPageLayout.RIGHT, 0.55f, PROPERTIES_AREA );
         types.addView( RelationshipTypeView.ID );
+        types.addPlaceholder( TaskMetricsView.ID );
 
         // // Connection view
         IFolderLayout connection = layout.createFolder( "connectionsArea", IPageLayout.LEFT, 0.20f, GRAPH_AREA );
@@ -74,5 +76,6 @@ public class NeoPerspectiveFactory implements IPerspectiveFactory
         layout.addShowViewShortcut( IPageLayout.ID_PROP_SHEET );
         layout.addShowViewShortcut( RelationshipTypeView.ID );
         layout.addShowViewShortcut( ConnectionsView.ID );
+        layout.addShowViewShortcut( TaskMetricsView.ID );
     }
 }
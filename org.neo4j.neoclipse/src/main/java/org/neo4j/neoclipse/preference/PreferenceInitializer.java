@@ -44,7 +44,12 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer
         pref.setDefault( Preferences.CONNECTION_MODE,
                 GraphDbServiceMode.READ_WRITE_EMBEDDED.name() );
         pref.setDefault( Preferences.MAX_NODES, 500 );
+        pref.setDefault( Preferences.CLUSTER_SIZE, 0 );
+        pref.setDefault( Preferences.LABEL_ZOOM, 40 );
         pref.setDefault( Preferences.MAX_TRAVERSAL_DEPTH, 1 );
+        pref.setDefault( Preferences.CYPHER_TIMEOUT, 60 );
+        pref.setDefault( Preferences.CYPHER_MAX_ROWS, 100000 );
+        pref.setDefault( Preferences.REMOTE_CACHE_SIZE, 32 );
 
 
     }
@@ -37,6 +37,11 @@ public class PreferencePage extends AbstractPreferencePage
     private RadioGroupFieldEditor connectionMode;
     private IntegerFieldEditor maxNodesField;
     private IntegerFieldEditor maxTraversalDepthField;
+    private IntegerFieldEditor clusterSizeField;
+    private IntegerFieldEditor labelZoomField;
+    private IntegerFieldEditor cypherTimeoutField;
+    private IntegerFieldEditor cypherMaxRowsField;
+    private IntegerFieldEditor remoteCacheSizeField;
 
     /**
      * Initializes the several input fields.
@@ -71,5 +76,30 @@ public class PreferencePage extends AbstractPreferencePage
                 getFieldEditorParent(), 4 );
         maxTraversalDepthField.setEmptyStringAllowed( false );
         addField( maxTraversalDepthField );
+
+        clusterSizeField = new IntegerFieldEditor( Preferences.CLUSTER_SIZE,
+                "Group sibling leaves from (0 = never)", getFieldEditorParent(), 4 );
+        clusterSizeField.setEmptyStringAllowed( false );
+        addField( clusterSizeField );
+
+        labelZoomField = new IntegerFieldEditor( Preferences.LABEL_ZOOM,
+                "Hide labels below zoom in % (0 = never)", getFieldEditorParent(), 4 );
+        labelZoomField.setEmptyStringAllowed( false );
+        addField( labelZoomField );
+
+        cypherTimeoutField = new IntegerFieldEditor( Preferences.CYPHER_TIMEOUT,
+                "Cypher query timeout in seconds (0 for none)", getFieldEditorParent(), 6 );
+        cypherTimeoutField.setEmptyStringAllowed( false );
+        addField( cypherTimeoutField );
+
+        cypherMaxRowsField = new IntegerFieldEditor( Preferences.CYPHER_MAX_ROWS,
+                "Maximum rows of a Cypher query (0 for no limit)", getFieldEditorParent(), 9 );
+        cypherMaxRowsField.setEmptyStringAllowed( false );
+        addField( cypherMaxRowsField );
+
+        remoteCacheSizeField = new IntegerFieldEditor( Preferences.REMOTE_CACHE_SIZE,
+                "Cache size for remote databases in MB", getFieldEditorParent(), 6 );
+        remoteCacheSizeField.setEmptyStringAllowed( false );
+        addField( remoteCacheSizeField );
     }
 }
@@ -55,4 +55,26 @@ public final class Preferences
     public static final String MAX_NODES = "maxNodes";
 
     public static final String MAX_TRAVERSAL_DEPTH = "maxTraversalDepth";
+    /**
+     * Number of sibling leaves from which they are shown as one summary node.
+     * 0, the default, to always show every node.
+     */
+    public static final String CLUSTER_SIZE = "clusterSize";
+    /**
+     * Zoom level in percent below which the graph view hides labels and
+     * icons. 0 to always show them.
+     */
+    public static final String LABEL_ZOOM = "labelZoom";
+    /**
+     * Seconds a Cypher query, or a page of its rows, may take. 0 for no limit.
+     */
+    public static final String CYPHER_TIMEOUT = "cypherTimeout";
+    /**
+     * Maximum number of rows to fetch from a Cypher query. 0 for no limit.
+     */
+    public static final String CYPHER_MAX_ROWS = "cypherMaxRows";
+    /**
+     * Megabytes of entities and properties to cache for remote connections.
+     */
+    public static final String REMOTE_CACHE_SIZE = "remoteCacheSize";
 }
@@ -26,6 +26,7 @@ import org.eclipse.draw2d.ChangeListener;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.INullSelectionListener;
@@ -37,7 +38,10 @@ import org.eclipse.ui.views.properties.PropertySheetEntry;
 import org.eclipse.ui.views.properties.PropertySheetPage;
 import org.eclipse.ui.views.properties.PropertySheetSorter;
 import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.Icons;
+import org.neo4j.neoclipse.graphdb.GraphChangeEvent;
+import org.neo4j.neoclipse.graphdb.GraphChangeListener;
 import org.neo4j.neoclipse.help.HelpContextConstants;
 import org.neo4j.neoclipse.property.action.AddNodeLabelAction;
 import org.neo4j.neoclipse.property.action.CopyAction;
@@ -89,6 +93,14 @@ public class NeoPropertySheetPage extends PropertySheetPage implements
     private PropertyContainer containerSelection;
     private final List<ChangeListener> listeners = new ArrayList<ChangeListener>();
     private AddNodeLabelAction addNodeLabelAction;
+    private final GraphChangeListener graphChangeHandler = new GraphChangeListener()
+    {
+        @Override
+        public void graphChanged( final GraphChangeEvent event )
+        {
+            handleGraphChange( event );
+        }
+    };
 
     public NeoPropertySheetPage()
     {
@@ -152,10 +164,48 @@ public class NeoPropertySheetPage extends PropertySheetPage implements
         createMenu( parent );
         getControl().setMenu( menu );
         getSite().getPage().addSelectionListener( NeoGraphViewPart.ID, this );
+        Activator.getDefault().getGraphDbServiceManager().addGraphChangeListener( graphChangeHandler );
         PlatformUI.getWorkbench().getHelpSystem().setHelp( parent,
                 HelpContextConstants.NEO_PROPERTY_SHEET_PAGE );
     }
 
+    @Override
+    public void dispose()
+    {
+        Activator.getDefault().getGraphDbServiceManager().removeGraphChangeListener( graphChangeHandler );
+        super.dispose();
+    }
+
+    /**
+     * Refresh when the shown node or relationship was changed from somewhere
+     * else, and empty the sheet if it was deleted. Changes made through this
+     * sheet are already shown.
+     */
+    private void handleGraphChange( final GraphChangeEvent event )
+    {
+        final PropertyContainer container = containerSelection;
+        if ( event.getSource() == this || !event.affects( container ) )
+        {
+            return;
+        }
+        if ( !event.isDeleted( container ) )
+        {
+            refreshSafely();
+            return;
+        }
+        UiHelper.asyncExec( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if ( getControl() != null && !getControl().isDisposed() && container == containerSelection )
+                {
+                    selectionChanged( null, StructuredSelection.EMPTY );
+                }
+            }
+        } );
+    }
+
     /**
      * Create the context menu for this property sheet.
      * 
@@ -0,0 +1,107 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.property;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import org.eclipse.ui.views.properties.IPropertyDescriptor;
+import org.eclipse.ui.views.properties.IPropertySource;
+
+/**
+ * Read-only properties of a range of a large value: its pages, or the items
+ * of an array range small enough to be shown in full.
+ */
+public class PagedPropertySource implements IPropertySource
+{
+    private final PagedValue range;
+    private List<PagedValue> pages = null;
+
+    public PagedPropertySource( final PagedValue range )
+    {
+        this.range = range;
+    }
+
+    @Override
+    public Object getEditableValue()
+    {
+        return null;
+    }
+
+    @Override
+    public IPropertyDescriptor[] getPropertyDescriptors()
+    {
+        if ( range.isPaged() )
+        {
+            List<PagedValue> list = getPages();
+            IPropertyDescriptor[] descs = new IPropertyDescriptor[list.size()];
+            for ( int i = 0; i < descs.length; i++ )
+            {
+                descs[i] = new PropertyDescriptor( Integer.valueOf( i ),
+                        list.get( i ).toString(), null );
+            }
+            return descs;
+        }
+        int count = range.getTo() - range.getFrom();
+        IPropertyDescriptor[] descs = new IPropertyDescriptor[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            int index = range.getFrom() + i;
+            descs[i] = new PropertyDescriptor( Integer.valueOf( index ), "["
+                + index + "]", null );
+        }
+        return descs;
+    }
+
+    @Override
+    public Object getPropertyValue( final Object id )
+    {
+        int index = ( (Integer) id ).intValue();
+        if ( range.isPaged() )
+        {
+            return getPages().get( index );
+        }
+        return Array.get( range.getValue(), index );
+    }
+
+    private List<PagedValue> getPages()
+    {
+        if ( pages == null )
+        {
+            pages = range.getPages();
+        }
+        return pages;
+    }
+
+    @Override
+    public boolean isPropertySet( final Object id )
+    {
+        return false;
+    }
+
+    @Override
+    public void resetPropertyValue( final Object id )
+    {
+    }
+
+    @Override
+    public void setPropertyValue( final Object id, final Object value )
+    {
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.property;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of a large array or string property value. The property sheet
+ * shows a truncated preview of it, and expanding it shows its pages, down to
+ * single array items, so only what is opened gets rendered.
+ */
+public final class PagedValue
+{
+    /**
+     * Maximum number of pages a range is split into.
+     */
+    static final int FAN_OUT = 100;
+
+    private final Object value;
+    private final int from;
+    private final int to;
+
+    /**
+     * Wrap a whole value.
+     * 
+     * @param value array or string
+     */
+    public PagedValue( final Object value )
+    {
+        this( value, 0, PropertyTransform.length( value ) );
+    }
+
+    private PagedValue( final Object value, final int from, final int to )
+    {
+        this.value = value;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Get the whole value this is a range of.
+     */
+    public Object getValue()
+    {
+        return value;
+    }
+
+    public int getFrom()
+    {
+        return from;
+    }
+
+    public int getTo()
+    {
+        return to;
+    }
+
+    /**
+     * Tell if this range is split into pages; otherwise an array range is
+     * shown item by item and a string range in full.
+     */
+    public boolean isPaged()
+    {
+        return to - from > PropertyTransform.previewSize( value );
+    }
+
+    /**
+     * Get the pages of this range.
+     * 
+     * @return the pages, each spanning a power of the fan out times the
+     *         preview size
+     */
+    public List<PagedValue> getPages()
+    {
+        long step = PropertyTransform.previewSize( value );
+        while ( step * FAN_OUT < to - from )
+        {
+            step *= FAN_OUT;
+        }
+        List<PagedValue> pages = new ArrayList<PagedValue>();
+        for ( long start = from; start < to; start += step )
+        {
+            pages.add( new PagedValue( value, (int) start, (int) Math.min( to,
+                    start + step ) ) );
+        }
+        return pages;
+    }
+
+    /**
+     * Render the beginning of this range.
+     */
+    public String preview()
+    {
+        return PropertyTransform.preview( value, from, to );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + from + ".." + ( to - 1 ) + "]";
+    }
+}
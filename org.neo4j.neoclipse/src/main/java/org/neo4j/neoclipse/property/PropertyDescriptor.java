@@ -48,6 +48,10 @@ public class PropertyDescriptor implements IPropertyDescriptor
      */
     private Class<?> cls = null;
     private PropertyHandler propertyHandler;
+    /**
+     * Source to ask for the class of the property, as long as it's unknown.
+     */
+    private PropertySource source = null;
     private final static ILabelProvider labelProvider = new PropertyLabelProvider();
     private final static ILabelProvider containerLabelProvider = new ContainerLabelProvider();
     /**
@@ -76,6 +80,27 @@ public class PropertyDescriptor implements IPropertyDescriptor
         this.propertyHandler = PropertyTransform.getHandler( cls );
     }
 
+    /**
+     * Create a Neo property cell whose class is looked up when it's needed,
+     * so the value isn't read just to describe the property.
+     * @param key
+     *            the key of the property
+     * @param name
+     *            the name of the property
+     * @param category
+     *            the category of the property
+     * @param source
+     *            the source to read the property from
+     */
+    public PropertyDescriptor( String key, String name, String category,
+        PropertySource source )
+    {
+        this.key = key;
+        this.name = name;
+        this.category = category;
+        this.source = source;
+    }
+
     /**
      * Create a Neo property cell without editing capabilities. Use this for id
      * and relationship types "fake properties".
@@ -98,6 +123,7 @@ public class PropertyDescriptor implements IPropertyDescriptor
     @Override
     public CellEditor createPropertyEditor( Composite parent )
     {
+        resolveClass();
         if ( propertyHandler != null )
         {
             return propertyHandler.getEditor( parent );
@@ -114,6 +140,7 @@ public class PropertyDescriptor implements IPropertyDescriptor
     @Override
     public String getDescription()
     {
+        resolveClass();
         if ( cls != null )
         {
             return "The property '" + key + "' is of type "
@@ -122,6 +149,19 @@ public class PropertyDescriptor implements IPropertyDescriptor
         return "";
     }
 
+    private void resolveClass()
+    {
+        if ( cls == null && source != null )
+        {
+            cls = source.getValueClass( (String) key );
+            if ( cls != null )
+            {
+                propertyHandler = PropertyTransform.getHandler( cls );
+                source = null;
+            }
+        }
+    }
+
     @Override
     public String getDisplayName()
     {
@@ -75,6 +75,11 @@ public enum PropertyEditor
         @Override
         protected Object doGetValue()
         {
+            if ( untouched instanceof PagedValue )
+            {
+                // only a preview was shown
+                return untouched;
+            }
             String value = text.getText();
             if ( !propertyHandler.isType( String.class )
                  && "".equals( ( value ).trim() ) )
@@ -96,6 +101,14 @@ public enum PropertyEditor
         protected void doSetValue( final Object value )
         {
             untouched = value;
+            if ( value instanceof PagedValue )
+            {
+                // rendering a large value in full would freeze the editor
+                text.setEditable( false );
+                super.doSetValue( ( (PagedValue) value ).preview() );
+                return;
+            }
+            text.setEditable( true );
             super.doSetValue( propertyHandler.render( value ) );
         }
 
@@ -28,16 +28,29 @@ public class PropertyLabelProvider implements ILabelProvider
     @Override
     public Image getImage( Object value )
     {
-        return PropertyTransform.getHandler( value ).image();
+        if ( value instanceof PagedValue )
+        {
+            value = ( (PagedValue) value ).getValue();
+        }
+        PropertyHandler propertyHandler = PropertyTransform.getHandler( value );
+        if ( propertyHandler == null )
+        {
+            return null;
+        }
+        return propertyHandler.image();
     }
 
     @Override
     public String getText( Object value )
     {
+        if ( value instanceof PagedValue )
+        {
+            return ( (PagedValue) value ).preview();
+        }
         PropertyHandler propertyHandler = PropertyTransform.getHandler( value );
         if ( propertyHandler != null )
         {
-            return propertyHandler.render( value );
+            return propertyHandler.preview( value );
         }
         else
         {
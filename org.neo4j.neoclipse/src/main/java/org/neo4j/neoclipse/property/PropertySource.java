@@ -19,9 +19,9 @@
 package org.neo4j.neoclipse.property;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -49,6 +49,10 @@ public class PropertySource implements IPropertySource
      */
     protected PropertyContainer container;
     protected NeoPropertySheetPage propertySheet;
+    /**
+     * Classes of the property values read so far.
+     */
+    private final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
 
     /**
      * The constructor.
@@ -69,19 +73,22 @@ public class PropertySource implements IPropertySource
     }
 
     /**
-     * Returns the descriptors for the properties of the relationship.
+     * Returns the descriptors for the properties of the relationship. Only
+     * the keys are read, the values are read when their rows are shown.
      */
     @Override
     public IPropertyDescriptor[] getPropertyDescriptors()
     {
         final List<IPropertyDescriptor> descs = new ArrayList<IPropertyDescriptor>();
         descs.addAll( getHeadPropertyDescriptors() );
-        Map<String, Object> properties = GraphDbUtil.getProperties( container );
-        for ( Entry<String, Object> entry : properties.entrySet() )
+        List<String> keys = GraphDbUtil.getPropertyKeys( container );
+        if ( keys != null )
         {
-            String key = entry.getKey();
-            Class<?> c = entry.getValue().getClass();
-            descs.add( new PropertyDescriptor( key, key, PROPERTIES_CATEGORY, c ) );
+            for ( String key : keys )
+            {
+                descs.add( new PropertyDescriptor( key, key,
+                        PROPERTIES_CATEGORY, this ) );
+            }
         }
         return descs.toArray( new IPropertyDescriptor[descs.size()] );
     }
@@ -108,7 +115,35 @@ public class PropertySource implements IPropertySource
      */
     protected Object getValue( final Object id )
     {
-        return GraphDbUtil.getProperty( container, (String) id );
+        Object value = GraphDbUtil.getProperty( container, (String) id );
+        if ( value == null )
+        {
+            return null;
+        }
+        classes.put( (String) id, value.getClass() );
+        if ( PropertyTransform.isLarge( value ) )
+        {
+            return new PagedValue( value );
+        }
+        return value;
+    }
+
+    /**
+     * Get the class of a property value, reading the value only if it wasn't
+     * read before.
+     * 
+     * @param key key of the property
+     * @return the class or null if the property doesn't exist
+     */
+    Class<?> getValueClass( final String key )
+    {
+        Class<?> c = classes.get( key );
+        if ( c == null )
+        {
+            getValue( key );
+            c = classes.get( key );
+        }
+        return c;
     }
 
     /**
@@ -131,7 +166,7 @@ public class PropertySource implements IPropertySource
         GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
         try
         {
-            return gsm.submitTask( new Callable<Boolean>()
+            return gsm.submitReadTask( new Callable<Boolean>()
             {
                 @Override
                 public Boolean call() throws Exception
@@ -167,10 +202,15 @@ public class PropertySource implements IPropertySource
 
     private void setProperty( final String key, final Object value )
     {
-        if ( container.hasProperty( key ) )
+        if ( value instanceof PagedValue )
+        {
+            // large values are only previewed, never edited
+            return;
+        }
+        Class<?> c = container.hasProperty( key ) ? getValueClass( key ) : null;
+        if ( c != null )
         {
             // try to keep the same type as the previous value
-            Class<?> c = GraphDbUtil.getProperty( container, key ).getClass();
             PropertyHandler propertyHandler = PropertyTransform.getHandler( c );
             if ( propertyHandler == null )
             {
@@ -50,6 +50,15 @@ public class PropertySourceProvider implements IPropertySourceProvider
             return new RelationshipPropertySource( (Relationship) source,
                     propertySheet );
         }
+        else if ( source instanceof PagedValue )
+        {
+            PagedValue range = (PagedValue) source;
+            if ( range.isPaged() || !( range.getValue() instanceof String ) )
+            {
+                return new PagedPropertySource( range );
+            }
+            return null;
+        }
         else
         {
             return null;
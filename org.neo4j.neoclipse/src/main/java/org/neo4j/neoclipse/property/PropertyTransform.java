@@ -21,6 +21,7 @@ package org.neo4j.neoclipse.property;
 import java.io.IOException;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -48,16 +49,14 @@ public final class PropertyTransform
     public static abstract class PropertyHandler
     {
         private final Class<?> type;
-        private final Icons icon;
         private final Object standard;
         private Validator validator = null;
         private final boolean isArray;
 
-        private PropertyHandler( final Class<?> type, final Icons icon,
-                final Object standard, final boolean array )
+        private PropertyHandler( final Class<?> type, final Object standard,
+                final boolean array )
         {
             this.type = type;
-            this.icon = icon;
             this.standard = standard;
             this.isArray = array;
         }
@@ -109,6 +108,22 @@ public final class PropertyTransform
             return type.cast( o ).toString();
         }
 
+        /**
+         * Transform from property value to a representation for display,
+         * which is truncated for large arrays and strings.
+         * 
+         * @param o property value
+         * @return display representation of the value
+         */
+        public String preview( final Object o )
+        {
+            if ( isLarge( o ) )
+            {
+                return PropertyTransform.preview( o, 0, length( o ) );
+            }
+            return render( o );
+        }
+
         /**
          * Get the icon image for this type.
          * 
@@ -116,7 +131,7 @@ public final class PropertyTransform
          */
         public ImageDescriptor descriptor()
         {
-            return icon.descriptor();
+            return TypeIcons.get( type ).descriptor();
         }
 
         /**
@@ -126,7 +141,7 @@ public final class PropertyTransform
          */
         public Image image()
         {
-            return icon.image();
+            return TypeIcons.get( type ).image();
         }
 
         /**
@@ -245,6 +260,91 @@ public final class PropertyTransform
         // no instances
     }
 
+    /**
+     * Number of array items shown in a preview, and per page when browsing a
+     * large array.
+     */
+    public static final int PREVIEW_ITEMS = 100;
+    /**
+     * Number of characters shown in a preview, and per page when browsing a
+     * large string.
+     */
+    public static final int PREVIEW_CHARS = 1000;
+
+    /**
+     * Get the number of items of an array or characters of a string.
+     * 
+     * @param o the value
+     * @return the length, or -1 for other values
+     */
+    public static int length( final Object o )
+    {
+        if ( o instanceof String )
+        {
+            return ( (String) o ).length();
+        }
+        if ( o != null && o.getClass().isArray() )
+        {
+            return Array.getLength( o );
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of items or characters shown of a value at a time.
+     * 
+     * @param o array or string
+     * @return the preview size
+     */
+    public static int previewSize( final Object o )
+    {
+        return o instanceof String ? PREVIEW_CHARS : PREVIEW_ITEMS;
+    }
+
+    /**
+     * Tell if a value is too large to be rendered in full.
+     * 
+     * @param o the value
+     * @return true for arrays and strings longer than their preview
+     */
+    public static boolean isLarge( final Object o )
+    {
+        return length( o ) > previewSize( o );
+    }
+
+    /**
+     * Render the beginning of a range of an array or string. Only the items
+     * of the preview are copied and rendered.
+     * 
+     * @param o array or string
+     * @param from first index of the range
+     * @param to index after the range
+     * @return rendition of the range, truncated if needed
+     */
+    public static String preview( final Object o, final int from, final int to )
+    {
+        int end = Math.min( to, from + previewSize( o ) );
+        if ( o instanceof String )
+        {
+            String text = ( (String) o ).substring( from, end );
+            if ( end < to )
+            {
+                text += "... (" + ( to - from ) + " characters)";
+            }
+            return text;
+        }
+        Object slice = Array.newInstance( o.getClass().getComponentType(),
+                end - from );
+        System.arraycopy( o, from, slice, 0, end - from );
+        String text = getHandler( o ).render( slice );
+        if ( end < to )
+        {
+            text = text.substring( 0, text.length() - 1 ) + ", ...] ("
+                   + ( to - from ) + " items)";
+        }
+        return text;
+    }
+
     /**
      * Transform a String to a List of Strings.
      * 
@@ -346,6 +446,44 @@ public final class PropertyTransform
         return HANDLERS.get( o.getClass() ).render( o );
     }
 
+    /**
+     * The icons of the property types. Kept apart from the handlers so that
+     * values can be parsed and rendered without the workbench, the icon
+     * registry is only touched once an icon is asked for.
+     */
+    private static final class TypeIcons
+    {
+        private static final Map<Class<?>, Icons> ICONS = new HashMap<Class<?>, Icons>()
+        {
+            private static final long serialVersionUID = 1L;
+            {
+                put( String.class, Icons.TYPE_STRING );
+                put( String[].class, Icons.TYPE_STRINGS );
+                put( Integer.class, Icons.TYPE_INT );
+                put( int[].class, Icons.TYPE_INTS );
+                put( Double.class, Icons.TYPE_DOUBLE );
+                put( double[].class, Icons.TYPE_DOUBLES );
+                put( Float.class, Icons.TYPE_FLOAT );
+                put( float[].class, Icons.TYPE_FLOATS );
+                put( Boolean.class, Icons.TYPE_BOOLEAN );
+                put( boolean[].class, Icons.TYPE_BOOLEANS );
+                put( Byte.class, Icons.TYPE_BYTE );
+                put( byte[].class, Icons.TYPE_BYTES );
+                put( Short.class, Icons.TYPE_SHORT );
+                put( short[].class, Icons.TYPE_SHORTS );
+                put( Long.class, Icons.TYPE_LONG );
+                put( long[].class, Icons.TYPE_LONGS );
+                put( Character.class, Icons.TYPE_CHAR );
+                put( char[].class, Icons.TYPE_CHARS );
+            }
+        };
+
+        static Icons get( final Class<?> type )
+        {
+            return ICONS.get( type );
+        }
+    }
+
     /**
      * A Map from property type classes to property handlers. Use get() on the
      * map to retrieve the correct property handler with parse(), render() and
@@ -355,8 +493,7 @@ public final class PropertyTransform
     {
         private static final long serialVersionUID = 1L;
         {
-            put( String.class, new PropertyHandler( String.class,
-                    Icons.TYPE_STRING, "", false )
+            put( String.class, new PropertyHandler( String.class, "", false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -364,8 +501,7 @@ public final class PropertyTransform
                     return o;
                 }
             } );
-            put( String[].class, new PropertyHandler( String[].class,
-                    Icons.TYPE_STRINGS, new String[0], true )
+            put( String[].class, new PropertyHandler( String[].class, new String[0], true )
             {
                 @Override
                 protected Object parser( final Object o ) throws IOException
@@ -392,8 +528,7 @@ public final class PropertyTransform
                     return Arrays.toString( res );
                 }
             } );
-            put( Integer.class, new PropertyHandler( Integer.class,
-                    Icons.TYPE_INT, 0, false )
+            put( Integer.class, new PropertyHandler( Integer.class, 0, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -401,8 +536,7 @@ public final class PropertyTransform
                     return Integer.parseInt( (String) o );
                 }
             } );
-            put( int[].class, new PropertyHandler( int[].class,
-                    Icons.TYPE_INTS, new int[0], true )
+            put( int[].class, new PropertyHandler( int[].class, new int[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -422,8 +556,7 @@ public final class PropertyTransform
                     return Arrays.toString( (int[]) o );
                 }
             } );
-            put( Double.class, new PropertyHandler( Double.class,
-                    Icons.TYPE_DOUBLE, 0d, false )
+            put( Double.class, new PropertyHandler( Double.class, 0d, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -431,8 +564,7 @@ public final class PropertyTransform
                     return Double.parseDouble( (String) o );
                 }
             } );
-            put( double[].class, new PropertyHandler( double[].class,
-                    Icons.TYPE_DOUBLES, new double[0], true )
+            put( double[].class, new PropertyHandler( double[].class, new double[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -452,8 +584,7 @@ public final class PropertyTransform
                     return Arrays.toString( (double[]) o );
                 }
             } );
-            put( Float.class, new PropertyHandler( Float.class,
-                    Icons.TYPE_FLOAT, 0f, false )
+            put( Float.class, new PropertyHandler( Float.class, 0f, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -461,8 +592,7 @@ public final class PropertyTransform
                     return Float.parseFloat( (String) o );
                 }
             } );
-            put( float[].class, new PropertyHandler( float[].class,
-                    Icons.TYPE_FLOATS, new float[0], true )
+            put( float[].class, new PropertyHandler( float[].class, new float[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -482,8 +612,7 @@ public final class PropertyTransform
                     return Arrays.toString( (float[]) o );
                 }
             } );
-            put( Boolean.class, new PropertyHandler( Boolean.class,
-                    Icons.TYPE_BOOLEAN, false, false )
+            put( Boolean.class, new PropertyHandler( Boolean.class, false, false )
             {
                 // has it's dedicated editor, handling transforms,
                 // so we just pass things through here
@@ -493,8 +622,7 @@ public final class PropertyTransform
                     return Boolean.parseBoolean( (String) o );
                 }
             } );
-            put( boolean[].class, new PropertyHandler( boolean[].class,
-                    Icons.TYPE_BOOLEANS, new boolean[0], true )
+            put( boolean[].class, new PropertyHandler( boolean[].class, new boolean[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -514,8 +642,7 @@ public final class PropertyTransform
                     return Arrays.toString( (boolean[]) o );
                 }
             } );
-            put( Byte.class, new PropertyHandler( Byte.class, Icons.TYPE_BYTE,
-                    (byte) 0, false )
+            put( Byte.class, new PropertyHandler( Byte.class, (byte) 0, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -523,8 +650,7 @@ public final class PropertyTransform
                     return Byte.parseByte( (String) o );
                 }
             } );
-            put( byte[].class, new PropertyHandler( byte[].class,
-                    Icons.TYPE_BYTES, new byte[0], true )
+            put( byte[].class, new PropertyHandler( byte[].class, new byte[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -544,8 +670,7 @@ public final class PropertyTransform
                     return Arrays.toString( (byte[]) o );
                 }
             } );
-            put( Short.class, new PropertyHandler( Short.class,
-                    Icons.TYPE_SHORT, (short) 0, false )
+            put( Short.class, new PropertyHandler( Short.class, (short) 0, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -553,8 +678,7 @@ public final class PropertyTransform
                     return Short.parseShort( (String) o );
                 }
             } );
-            put( short[].class, new PropertyHandler( short[].class,
-                    Icons.TYPE_SHORTS, new short[0], true )
+            put( short[].class, new PropertyHandler( short[].class, new short[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -574,8 +698,7 @@ public final class PropertyTransform
                     return Arrays.toString( (short[]) o );
                 }
             } );
-            put( Long.class, new PropertyHandler( Long.class, Icons.TYPE_LONG,
-                    0L, false )
+            put( Long.class, new PropertyHandler( Long.class, 0L, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -583,8 +706,7 @@ public final class PropertyTransform
                     return Long.parseLong( (String) o );
                 }
             } );
-            put( long[].class, new PropertyHandler( long[].class,
-                    Icons.TYPE_LONGS, new long[0], true )
+            put( long[].class, new PropertyHandler( long[].class, new long[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -604,8 +726,7 @@ public final class PropertyTransform
                     return Arrays.toString( (long[]) o );
                 }
             } );
-            put( Character.class, new PropertyHandler( Character.class,
-                    Icons.TYPE_CHAR, (char) 0, false )
+            put( Character.class, new PropertyHandler( Character.class, (char) 0, false )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -618,8 +739,7 @@ public final class PropertyTransform
                     return null;
                 }
             } );
-            put( char[].class, new PropertyHandler( char[].class,
-                    Icons.TYPE_CHARS, new char[0], true )
+            put( char[].class, new PropertyHandler( char[].class, new char[0], true )
             {
                 @Override
                 protected Object parser( final Object o )
@@ -67,6 +67,8 @@ import org.neo4j.neoclipse.action.reltype.NewRelationshipTypeAction;
 import org.neo4j.neoclipse.decorate.UserIcons;
 import org.neo4j.neoclipse.event.NeoclipseEvent;
 import org.neo4j.neoclipse.event.NeoclipseEventListener;
+import org.neo4j.neoclipse.graphdb.GraphChangeEvent;
+import org.neo4j.neoclipse.graphdb.GraphChangeListener;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEvent;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEventListener;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceStatus;
@@ -112,6 +114,7 @@ public class RelationshipTypeView extends ViewPart implements
     private FileDialog iconFileDialog;
     private Action deleteIncomingIcon;
     private Action deleteOutgoingIcon;
+    private final GraphChangeListener graphChangeHandler = new GraphChangeHandler();
     static
     {
         // build filters for file selection dialog.
@@ -157,6 +160,17 @@ public class RelationshipTypeView extends ViewPart implements
         return graphView;
     }
 
+    /**
+     * Cleans up.
+     */
+    @Override
+    public void dispose()
+    {
+        Activator.getDefault().getGraphDbServiceManager().removeGraphChangeListener(
+                graphChangeHandler );
+        super.dispose();
+    }
+
     /**
      * Initialization of the workbench part.
      */
@@ -176,6 +190,8 @@ public class RelationshipTypeView extends ViewPart implements
         viewer.setInput( getViewSite() );
         Activator.getDefault().getGraphDbServiceManager().addServiceEventListener(
                 new ServiceChangeHandler() );
+        Activator.getDefault().getGraphDbServiceManager().addGraphChangeListener(
+                graphChangeHandler );
         PlatformUI.getWorkbench().getHelpSystem().setHelp( viewer.getControl(),
                 HelpContextConstants.NEO_RELATIONSHIP_TYPE_VIEW );
         makeActions();
@@ -906,6 +922,42 @@ public class RelationshipTypeView extends ViewPart implements
         }
     }
 
+    /**
+     * Show relationship types that were used for the first time. The
+     * filter settings of the known types are kept.
+     */
+    private class GraphChangeHandler implements GraphChangeListener
+    {
+        @Override
+        public void graphChanged( final GraphChangeEvent event )
+        {
+            if ( event.getCreatedRelationshipTypes().isEmpty() )
+            {
+                return;
+            }
+            UiHelper.asyncExec( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if ( viewer.getControl().isDisposed() )
+                    {
+                        return;
+                    }
+                    Set<String> known = new HashSet<String>();
+                    for ( RelationshipType relType : provider.getCurrentRelationshipTypes() )
+                    {
+                        known.add( relType.name() );
+                    }
+                    if ( !known.containsAll( event.getCreatedRelationshipTypes() ) )
+                    {
+                        viewer.refresh();
+                    }
+                }
+            } );
+        }
+    }
+
     /**
      * Handle change in the relationship color settings.
      */
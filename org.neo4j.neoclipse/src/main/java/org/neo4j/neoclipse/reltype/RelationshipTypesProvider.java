@@ -123,7 +123,7 @@ IStructuredContentProvider
     {
         try
         {
-            return Activator.getDefault().getGraphDbServiceManager().submitTask(
+            return Activator.getDefault().getGraphDbServiceManager().submitReadTask(
                     new GraphCallable<Set<RelationshipType>>()
                     {
                         @Override
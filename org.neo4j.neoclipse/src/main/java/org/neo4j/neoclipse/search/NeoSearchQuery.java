@@ -18,8 +18,12 @@
  */
 package org.neo4j.neoclipse.search;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -38,16 +42,26 @@ import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.graphdb.GraphCallable;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
 import org.neo4j.neoclipse.view.ErrorMessage;
-import org.neo4j.neoclipse.view.UiHelper;
 
 /**
- * This class represents a search query for Neo objects.
+ * This class represents a search query for Neo objects. Every selected index
+ * is queried in its own read task, and the hits are handed to the result in
+ * batches while the search is still running.
  * 
  * @author Peter H&auml;nsgen
  * @author Anders Nawroth
  */
 public class NeoSearchQuery implements ISearchQuery
 {
+    /**
+     * Number of matches shown before the user has to ask for more.
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+    /**
+     * Number of hits delivered to the result at a time.
+     */
+    private static final int BATCH_SIZE = 100;
+
     /**
      * The found matches.
      */
@@ -55,6 +69,8 @@ public class NeoSearchQuery implements ISearchQuery
 
     private final IndexSearch search;
 
+    private volatile int limit = DEFAULT_LIMIT;
+
     /**
      * The constructor.
      */
@@ -73,6 +89,22 @@ public class NeoSearchQuery implements ISearchQuery
         return search.getValueOrQuery();
     }
 
+    /**
+     * Returns the maximum number of matches the next run will collect.
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * Raises the limit so the next run of this query returns more matches.
+     */
+    public void loadMore()
+    {
+        limit += DEFAULT_LIMIT;
+    }
+
     /**
      * Returns true.
      */
@@ -121,25 +153,55 @@ public class NeoSearchQuery implements ISearchQuery
             return new Status( IStatus.ERROR, Activator.PLUGIN_ID, "There is no active Neo4j service." );
         }
 
-        try
+        result.clear();
+        final int maxMatches = limit;
+        final AtomicInteger found = new AtomicInteger();
+        final AtomicBoolean limited = new AtomicBoolean();
+        List<Future<Boolean>> searches = new ArrayList<Future<Boolean>>();
+        for ( final String indexName : search.getNodeIndexNames() )
         {
-            gsm.submitTask( new GraphCallable<Boolean>()
+            searches.add( gsm.submitReadTask( new GraphCallable<Boolean>()
             {
                 @Override
                 public Boolean call( final GraphDatabaseService graphDb )
                 {
-                    final Iterable<PropertyContainer> matches = getMatchingNodesFromIndices( monitor, graphDb );
-                    UiHelper.asyncExec( new Runnable()
+                    IndexManager indexManager = graphDb.index();
+                    if ( !indexManager.existsForNodes( indexName ) )
                     {
-                        @Override
-                        public void run()
-                        {
-                            result.setMatches( matches );
-                        }
-                    } );
-                    return true;
+                        return true;
+                    }
+                    Index<Node> index = indexManager.forNodes( indexName );
+                    return collectHits( getHits( index ), monitor, found, maxMatches, limited );
                 }
-            }, "run search" ).get();
+            }, "search node index " + indexName ) );
+        }
+        for ( final String indexName : search.getRelationshipIndexNames() )
+        {
+            searches.add( gsm.submitReadTask( new GraphCallable<Boolean>()
+            {
+                @Override
+                public Boolean call( final GraphDatabaseService graphDb )
+                {
+                    IndexManager indexManager = graphDb.index();
+                    if ( !indexManager.existsForRelationships( indexName ) )
+                    {
+                        return true;
+                    }
+                    Index<Relationship> index = indexManager.forRelationships( indexName );
+                    return collectHits( getHits( index ), monitor, found, maxMatches, limited );
+                }
+            }, "search relationship index " + indexName ) );
+        }
+
+        monitor.beginTask( "Searching " + searches.size() + " indexes", searches.size() );
+        try
+        {
+            for ( Future<Boolean> future : searches )
+            {
+                future.get();
+                monitor.worked( 1 );
+            }
+            result.setLimited( limited.get() );
             if ( monitor.isCanceled() )
             {
                 return new Status( IStatus.CANCEL, Activator.PLUGIN_ID, "Cancelled." );
@@ -151,7 +213,8 @@ public class NeoSearchQuery implements ISearchQuery
         }
         catch ( Exception e )
         {
-            String message = ErrorMessage.getErrorMessage( e );
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            String message = ErrorMessage.getErrorMessage( cause );
             if ( message.indexOf( "org.apache.lucene.index.CorruptIndexException: Unknown format version" ) != -1 )
             {
                 ErrorMessage.showDialog( "Search error", "The index can't be read as the Neo4j database "
@@ -159,66 +222,67 @@ public class NeoSearchQuery implements ISearchQuery
             }
             else
             {
-                ErrorMessage.showDialog( "Search error", e );
+                ErrorMessage.showDialog( "Search error", cause );
             }
         }
+        finally
+        {
+            monitor.done();
+        }
         return null;
     }
 
-    private Iterable<PropertyContainer> getMatchingNodesFromIndices( final IProgressMonitor monitor,
-            final GraphDatabaseService graphDb )
+    private <T extends PropertyContainer> IndexHits<T> getHits( final Index<T> index )
     {
-        List<PropertyContainer> matches = new LinkedList<PropertyContainer>();
-        IndexManager indexManager = graphDb.index();
-        for ( String indexName : search.getNodeIndexNames() )
+        switch ( search.getMode() )
         {
-            if ( !indexManager.existsForNodes( indexName ) )
-            {
-                continue;
-            }
-            Index<Node> nodeIndex = indexManager.forNodes( indexName );
-            Iterable<Node> hits;
-            switch ( search.getMode() )
-            {
-            case EXACT_MATCH:
-                hits = nodeIndex.get( search.getKey(), search.getValueOrQuery() );
-                break;
-            case QUERY:
-                String key = search.getKey();
-                hits = nodeIndex.query( key, search.getValueOrQuery() );
-                break;
-            default:
-                hits = null;
-            }
-            for ( Node hit : hits )
-            {
-                matches.add( hit );
-            }
+        case EXACT_MATCH:
+            return index.get( search.getKey(), search.getValueOrQuery() );
+        case QUERY:
+            return index.query( search.getKey(), search.getValueOrQuery() );
+        default:
+            throw new IllegalStateException( "Unknown search mode: " + search.getMode() );
         }
-        for ( String indexName : search.getRelationshipIndexNames() )
+    }
+
+    /**
+     * Moves the hits of one index into the result, a batch at a time. The
+     * hits are closed as soon as the search is cancelled or the limit shared
+     * by all indexes is reached.
+     */
+    private boolean collectHits( final IndexHits<? extends PropertyContainer> hits, final IProgressMonitor monitor,
+            final AtomicInteger found, final int maxMatches, final AtomicBoolean limited )
+    {
+        List<PropertyContainer> batch = new ArrayList<PropertyContainer>( BATCH_SIZE );
+        try
         {
-            if ( !indexManager.existsForRelationships( indexName ) )
+            for ( PropertyContainer hit : hits )
             {
-                continue;
-            }
-            Index<Relationship> relIndex = indexManager.forRelationships( indexName );
-            IndexHits<Relationship> hits;
-            switch ( search.getMode() )
-            {
-            case EXACT_MATCH:
-                hits = relIndex.get( search.getKey(), search.getValueOrQuery() );
-                break;
-            case QUERY:
-                hits = relIndex.query( search.getKey(), search.getValueOrQuery() );
-                break;
-            default:
-                hits = null;
-            }
-            for ( Relationship hit : hits )
-            {
-                matches.add( hit );
+                if ( monitor.isCanceled() )
+                {
+                    return false;
+                }
+                if ( found.incrementAndGet() > maxMatches )
+                {
+                    limited.set( true );
+                    break;
+                }
+                batch.add( hit );
+                if ( batch.size() == BATCH_SIZE )
+                {
+                    result.addMatches( batch );
+                    batch = new ArrayList<PropertyContainer>( BATCH_SIZE );
+                }
             }
         }
-        return matches;
+        finally
+        {
+            hits.close();
+        }
+        if ( !batch.isEmpty() )
+        {
+            result.addMatches( batch );
+        }
+        return true;
     }
 }
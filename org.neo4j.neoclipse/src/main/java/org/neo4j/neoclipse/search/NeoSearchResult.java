@@ -19,8 +19,9 @@
 package org.neo4j.neoclipse.search;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
@@ -28,8 +29,11 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.ISearchResultListener;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.neoclipse.Icons;
+import org.neo4j.neoclipse.util.LongHashSet;
 
 /**
  * This class represents the result of a Neo search.
@@ -43,9 +47,18 @@ public class NeoSearchResult implements ISearchResult
      */
     private final NeoSearchQuery query;
     /**
-     * The found matches.
+     * The found matches, filled in by the search tasks as they go.
      */
-    private Iterable<PropertyContainer> matches;
+    private final List<PropertyContainer> matches = new ArrayList<PropertyContainer>();
+    /**
+     * Ids of the matches, the same entity can be found in several indexes.
+     */
+    private final LongHashSet nodeIds = new LongHashSet();
+    private final LongHashSet relationshipIds = new LongHashSet();
+    /**
+     * Whether the search stopped at the limit of its query.
+     */
+    private volatile boolean limited = false;
     /**
      * The observers.
      */
@@ -57,11 +70,8 @@ public class NeoSearchResult implements ISearchResult
     public NeoSearchResult( final NeoSearchQuery query )
     {
         this.query = query;
-        // we have to initialize an empty list, as the result will already be
-        // shown before
-        // the search is actually started
-        this.matches = Collections.emptyList();
-        listeners = new ArrayList<ISearchResultListener>();
+        // listeners are notified from the search threads
+        listeners = new CopyOnWriteArrayList<ISearchResultListener>();
     }
 
     /**
@@ -69,15 +79,73 @@ public class NeoSearchResult implements ISearchResult
      */
     public Iterable<PropertyContainer> getMatches()
     {
-        return matches;
+        synchronized ( matches )
+        {
+            return new ArrayList<PropertyContainer>( matches );
+        }
+    }
+
+    /**
+     * Returns the found nodes and relationships as an array.
+     */
+    public Object[] getMatchArray()
+    {
+        synchronized ( matches )
+        {
+            return matches.toArray();
+        }
+    }
+
+    /**
+     * Adds a batch of matches. The registered listeners will be notified.
+     */
+    public void addMatches( final Collection<? extends PropertyContainer> batch )
+    {
+        synchronized ( matches )
+        {
+            for ( PropertyContainer match : batch )
+            {
+                boolean added = match instanceof Node ? nodeIds.add( ( (Node) match ).getId() )
+                        : relationshipIds.add( ( (Relationship) match ).getId() );
+                if ( added )
+                {
+                    matches.add( match );
+                }
+            }
+        }
+        fireSearchResultEvent();
+    }
+
+    /**
+     * Removes all matches. The registered listeners will be notified.
+     */
+    public void clear()
+    {
+        synchronized ( matches )
+        {
+            matches.clear();
+            nodeIds.clear();
+            relationshipIds.clear();
+        }
+        limited = false;
+        fireSearchResultEvent();
+    }
+
+    /**
+     * Returns true if there are more matches than the query collected.
+     */
+    public boolean isLimited()
+    {
+        return limited;
     }
 
     /**
-     * Sets the matches. The registered listeners will be notified.
+     * Marks the result as cut off at the limit of the query. The registered
+     * listeners will be notified.
      */
-    public void setMatches( final Iterable<PropertyContainer> matches )
+    public void setLimited( final boolean limited )
     {
-        this.matches = matches;
+        this.limited = limited;
         fireSearchResultEvent();
     }
 
@@ -145,9 +213,8 @@ public class NeoSearchResult implements ISearchResult
     protected void fireSearchResultEvent()
     {
         final NeoSearchResultEvent e = new NeoSearchResultEvent( this );
-        for ( int i = 0; i < listeners.size(); i++ )
+        for ( final ISearchResultListener l : listeners )
         {
-            final ISearchResultListener l = listeners.get( i );
             ISafeRunnable job = new ISafeRunnable()
             {
                 @Override
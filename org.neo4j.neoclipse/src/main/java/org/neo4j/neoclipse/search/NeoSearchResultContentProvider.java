@@ -18,12 +18,8 @@
  */
 package org.neo4j.neoclipse.search;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.Viewer;
-import org.neo4j.graphdb.PropertyContainer;
 
 /**
  * This is the content provider for populating the result list tree viewer.
@@ -32,8 +28,6 @@ import org.neo4j.graphdb.PropertyContainer;
  */
 public class NeoSearchResultContentProvider implements ITreeContentProvider
 {
-    private final List<PropertyContainer> list = new ArrayList<PropertyContainer>();
-
     /**
      * Called when the input has changed, does nothing.
      */
@@ -50,20 +44,9 @@ public class NeoSearchResultContentProvider implements ITreeContentProvider
     @Override
     public Object[] getElements( final Object inputElement )
     {
-        NeoSearchResult result = (NeoSearchResult) inputElement;
-        Iterable<PropertyContainer> matches = result.getMatches();
-        // TODO make search results being added to the list
-        // and the UI updated during the search.
-        list.clear();
-        // the actual search are not performed until
-        // this iterator is performed.
-        // so this should be run with frequent
-        // updates of the UI somehow.
-        for ( PropertyContainer entity : matches )
-        {
-            list.add( entity );
-        }
-        return list.toArray();
+        // the result is filled in while the search runs,
+        // so every refresh shows the matches found so far
+        return ( (NeoSearchResult) inputElement ).getMatchArray();
     }
 
     /**
@@ -18,6 +18,9 @@
  */
 package org.neo4j.neoclipse.search;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jface.action.Action;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.StructuredSelection;
@@ -26,6 +29,7 @@ import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.ISearchResultListener;
 import org.eclipse.search.ui.ISearchResultPage;
 import org.eclipse.search.ui.ISearchResultViewPart;
+import org.eclipse.search.ui.NewSearchUI;
 import org.eclipse.search.ui.SearchResultEvent;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
@@ -36,11 +40,13 @@ import org.eclipse.ui.part.Page;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.Icons;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEvent;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEventListener;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
 import org.neo4j.neoclipse.view.NeoGraphLabelProviderWrapper;
 import org.neo4j.neoclipse.view.NeoGraphViewPart;
+import org.neo4j.neoclipse.view.UiHelper;
 
 /**
  * This class represents a page in the search view that displays Neo search
@@ -60,6 +66,49 @@ public class NeoSearchResultPage extends Page implements ISearchResultPage
     private TreeViewer viewer;
     private GraphDbServiceManager gsm;
     private GraphDbServiceEventListener listener;
+    /**
+     * The result currently shown, and the listener observing it.
+     */
+    private ISearchResult currentResult;
+    private final ISearchResultListener resultListener = new ISearchResultListener()
+    {
+        @Override
+        public void searchResultChanged( final SearchResultEvent e )
+        {
+            // matches arrive in batches from the search threads, only
+            // queue one refresh at a time
+            if ( refreshPending.compareAndSet( false, true ) )
+            {
+                UiHelper.asyncExec( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        refreshPending.set( false );
+                        if ( !viewer.getControl().isDisposed() && viewer.getInput() == e.getSearchResult() )
+                        {
+                            viewer.refresh();
+                            updateLoadMore();
+                        }
+                    }
+                } );
+            }
+        }
+    };
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Action loadMoreAction = new Action( "Load more results", Icons.PLUS_ENABLED.descriptor() )
+    {
+        @Override
+        public void run()
+        {
+            if ( currentResult != null )
+            {
+                NeoSearchQuery query = (NeoSearchQuery) currentResult.getQuery();
+                query.loadMore();
+                NewSearchUI.runQueryInBackground( query );
+            }
+        }
+    };
 
     /**
      * Creates the control
@@ -72,6 +121,10 @@ public class NeoSearchResultPage extends Page implements ISearchResultPage
         viewer.setLabelProvider( NeoGraphLabelProviderWrapper.getInstance() );
         viewer.addDoubleClickListener( new NeoSearchResultDoubleClickListener() );
 
+        loadMoreAction.setDisabledImageDescriptor( Icons.PLUS_DISABLED.descriptor() );
+        loadMoreAction.setEnabled( false );
+        getSite().getActionBars().getToolBarManager().add( loadMoreAction );
+
         gsm = Activator.getDefault().getGraphDbServiceManager();
 
         listener = new GraphDbServiceEventListener()
@@ -160,27 +213,24 @@ public class NeoSearchResultPage extends Page implements ISearchResultPage
     @Override
     public void setInput( final ISearchResult result, final Object uiState )
     {
+        if ( currentResult != null )
+        {
+            currentResult.removeListener( resultListener );
+        }
+        currentResult = result;
         setInput( result );
         if ( result != null )
         {
             // observe changes in the result and update the view accordingly
-            result.addListener( new ISearchResultListener()
-            {
-                @Override
-                public void searchResultChanged( final SearchResultEvent e )
-                {
-                    PlatformUI.getWorkbench().getDisplay().syncExec(
-                            new Runnable()
-                            {
-                                @Override
-                                public void run()
-                                {
-                                    setInput( e.getSearchResult() );
-                                }
-                            } );
-                }
-            } );
+            result.addListener( resultListener );
         }
+        updateLoadMore();
+    }
+
+    private void updateLoadMore()
+    {
+        loadMoreAction.setEnabled( currentResult instanceof NeoSearchResult
+                                   && ( (NeoSearchResult) currentResult ).isLimited() );
     }
 
     /**
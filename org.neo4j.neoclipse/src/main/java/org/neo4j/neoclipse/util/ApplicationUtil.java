@@ -41,17 +41,53 @@ public class ApplicationUtil
                                                         + ".neoclipse";
 
     private static final Gson gson = new Gson();
+    /**
+     * Integral numbers beyond this can't be told apart from doubles in JSON.
+     */
+    private static final double MAX_EXACT_LONG = 1L << 53;
 
     public static String toJson( Object object )
     {
         return gson.toJson( object );
     }
 
+    public static void toJson( Object object, Appendable writer )
+    {
+        gson.toJson( object, writer );
+    }
+
     public static <T> T toJson( String json, Class<T> clazz )
     {
         return gson.fromJson( json, clazz );
     }
 
+    /**
+     * JSON doesn't tell integers from floating point values, and Gson reads
+     * all numbers as doubles. Turns a double holding a whole number back into
+     * a long, returns any other value as it is.
+     */
+    public static Object fromJsonNumber( final Object value )
+    {
+        if ( value instanceof Double )
+        {
+            double number = (Double) value;
+            if ( isWholeNumber( number ) )
+            {
+                return (long) number;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * True if the number is whole and exactly representable as a long after
+     * a round trip through JSON.
+     */
+    public static boolean isWholeNumber( final double number )
+    {
+        return number == Math.rint( number ) && Math.abs( number ) < MAX_EXACT_LONG;
+    }
+
     public static File dirInWorkspace( final String... elements )
     {
         String path = NEOCLIPSE_SETTINGS_DIR;
@@ -20,17 +20,78 @@ package org.neo4j.neoclipse.util;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.json.CDL;
 import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.json.XML;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.neoclipse.editor.NodeWrapper;
+import org.neo4j.rest.graphdb.RestGraphDatabase;
+import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
 
 public class DataExportUtils
 {
+    /**
+     * Size of the write buffer used when streaming an export to disk.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * How often to report progress, in number of nodes.
+     */
+    private static final int PROGRESS_INTERVAL = 1000;
+    /**
+     * Columns of the CSV export, matching the fields of {@link NodeWrapper}.
+     */
+    private static final JSONArray CSV_COLUMNS = new JSONArray().put( "id" )
+            .put( "propertyMap" )
+            .put( "relation" );
+    /**
+     * Next nodes of an export of a remote database, the limit is appended.
+     */
+    private static final String NEXT_NODES_QUERY = "START n=node(*) WHERE id(n) > {after} "
+                                                   + "RETURN n ORDER BY id(n) LIMIT ";
+
+    /**
+     * The formats a full database export can be written in.
+     */
+    public enum Format
+    {
+        JSON( ".json", "Json" ),
+        CSV( ".csv", "CSV" ),
+        XML( ".xml", "XML" );
+
+        private final String fileExtension;
+        private final String label;
+
+        private Format( final String fileExtension, final String label )
+        {
+            this.fileExtension = fileExtension;
+            this.label = label;
+        }
+
+        public String label()
+        {
+            return label;
+        }
+    }
 
     public static File exportToXml( String jsonString ) throws Exception
     {
@@ -65,6 +126,213 @@ public class DataExportUtils
         return file;
     }
 
+    /**
+     * Writes an export of all nodes in parts, one record per node including
+     * its outgoing relationships. Records are written as they are read, so
+     * memory use doesn't depend on the size of the database, and each part
+     * can be written by a graph task of its own. Nodes are written in id
+     * order and each part starts after the id of the last node written, so
+     * nothing read from the database is kept between parts. The writer is
+     * neither buffered nor closed here.
+     */
+    public static final class NodeExport
+    {
+        private final Format format;
+        private final Writer out;
+        private long lastId = -1;
+        private long count = 0;
+
+        public NodeExport( final Format format, final Writer out )
+                throws IOException
+        {
+            this.format = format;
+            this.out = out;
+            writeHeader( out, format );
+        }
+
+        /**
+         * Writes the next nodes of the database, and the end of the export
+         * after the last one. Has to be called from inside a graph task.
+         * 
+         * @param graphDb the database to export
+         * @param max the most nodes to write
+         * @param monitor progress monitor
+         * @return false when all nodes have been written
+         * @throws IOException
+         */
+        public boolean writeNodes( final GraphDatabaseService graphDb,
+                final int max, final IProgressMonitor monitor )
+                throws IOException
+        {
+            List<Node> nodes = nextNodes( graphDb, max );
+            try
+            {
+                for ( Node node : nodes )
+                {
+                    NodeWrapper record = ApplicationUtil.extractToNodeWrapper(
+                            node, true );
+                    writeRecord( out, format, record, count == 0 );
+                    lastId = node.getId();
+                    count++;
+                    if ( count % PROGRESS_INTERVAL == 0 )
+                    {
+                        monitor.subTask( count + " nodes exported" );
+                        monitor.worked( 1 );
+                    }
+                }
+            }
+            catch ( JSONException e )
+            {
+                throw new IOException( "Could not convert node: "
+                                       + e.getMessage() );
+            }
+            if ( nodes.size() == max )
+            {
+                return true;
+            }
+            writeFooter( out, format );
+            return false;
+        }
+
+        /**
+         * Returns up to <code>max</code> nodes following the last node
+         * written, in id order.
+         */
+        private List<Node> nextNodes( final GraphDatabaseService graphDb,
+                final int max )
+        {
+            List<Node> nodes = new ArrayList<Node>();
+            if ( graphDb instanceof RestGraphDatabase )
+            {
+                Map<String, Object> params = new HashMap<String, Object>();
+                params.put( "after", lastId );
+                RestCypherQueryEngine engine = new RestCypherQueryEngine(
+                        ( (RestGraphDatabase) graphDb ).getRestAPI() );
+                for ( Node node : engine.query(
+                        NEXT_NODES_QUERY + max, params ).to( Node.class ) )
+                {
+                    nodes.add( node );
+                }
+                return nodes;
+            }
+            long highestId = ( (GraphDatabaseAPI) graphDb ).getNodeManager()
+                    .getHighestPossibleIdInUse( Node.class );
+            for ( long id = lastId + 1; id <= highestId && nodes.size() < max; id++ )
+            {
+                try
+                {
+                    nodes.add( graphDb.getNodeById( id ) );
+                }
+                catch ( NotFoundException e )
+                {
+                    // the id of a deleted node
+                }
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Returns a new file in the export directory for the given format.
+     */
+    public static File createExportFile( final Format format )
+    {
+        return getFile( format.fileExtension );
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer on an export file.
+     */
+    public static Writer openExportFile( final File file ) throws IOException
+    {
+        FileChannel channel = new FileOutputStream( file ).getChannel();
+        return new BufferedWriter( Channels.newWriter( channel, "UTF-8" ),
+                BUFFER_SIZE );
+    }
+
+    /**
+     * Write all nodes of the database to a writer at once, see
+     * {@link NodeExport}. Has to be called from inside a graph task.
+     * 
+     * @param graphDb the database to export
+     * @param format the format to write
+     * @param out where to write the records
+     * @param monitor progress monitor, checked for cancellation
+     * @return false if the export was cancelled
+     * @throws IOException
+     */
+    public static boolean writeAllNodes( final GraphDatabaseService graphDb,
+            final Format format, final Writer out,
+            final IProgressMonitor monitor ) throws IOException
+    {
+        NodeExport export = new NodeExport( format, out );
+        while ( export.writeNodes( graphDb, PROGRESS_INTERVAL, monitor ) )
+        {
+            if ( monitor.isCanceled() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeHeader( final Writer out, final Format format )
+            throws IOException
+    {
+        switch ( format )
+        {
+        case JSON:
+            out.write( '[' );
+            break;
+        case CSV:
+            out.write( CDL.rowToString( CSV_COLUMNS ) );
+            break;
+        case XML:
+            out.write( "<rootnode>" );
+            break;
+        }
+    }
+
+    private static void writeRecord( final Writer out, final Format format,
+            final NodeWrapper record, final boolean first ) throws IOException,
+            JSONException
+    {
+        switch ( format )
+        {
+        case JSON:
+            if ( !first )
+            {
+                out.write( ',' );
+            }
+            ApplicationUtil.toJson( record, out );
+            break;
+        case CSV:
+            JSONObject row = new JSONObject( ApplicationUtil.toJson( record ) );
+            out.write( CDL.rowToString( row.toJSONArray( CSV_COLUMNS ) ) );
+            break;
+        case XML:
+            out.write( XML.toString(
+                    new JSONObject( ApplicationUtil.toJson( record ) ), "node" ) );
+            break;
+        }
+    }
+
+    private static void writeFooter( final Writer out, final Format format )
+            throws IOException
+    {
+        switch ( format )
+        {
+        case JSON:
+            out.write( ']' );
+            break;
+        case CSV:
+            break;
+        case XML:
+            out.write( "</rootnode>" );
+            break;
+        }
+    }
+
     private static File getFile( String fileExtention )
     {
 
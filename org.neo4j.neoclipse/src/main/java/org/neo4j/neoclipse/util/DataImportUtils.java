@@ -0,0 +1,865 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.json.CDL;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONTokener;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.neoclipse.editor.NodeWrapper;
+import org.neo4j.neoclipse.editor.RelationshipWrapper;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+/**
+ * Imports files into a stopped database through the batch inserter. Reads the
+ * JSON and CSV files written by {@link DataExportUtils}, as well as plain CSV
+ * files with one node or one relationship per line:
+ * <ul>
+ * <li>nodes: an "id" column, the other columns are properties</li>
+ * <li>relationships: "start", "end" and "type" columns referring to the ids
+ * of the node files, the other columns are properties</li>
+ * </ul>
+ * Nodes get new ids in the database, relationships are resolved through the
+ * ids of the imported files. Records are parsed in parallel while a single
+ * thread writes them.
+ * <p>
+ * The CSV export quotes its JSON cells without escaping them, so those rows
+ * aren't read as CSV but as an id followed by two JSON values. This is best
+ * effort: a cell that isn't valid JSON still fails the import.
+ */
+public class DataImportUtils
+{
+    private static final String UTF_8 = "UTF-8";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Number of records handed to a parser task at a time.
+     */
+    private static final int BATCH_SIZE = 2000;
+    /**
+     * How often to report progress, in number of records.
+     */
+    private static final int PROGRESS_INTERVAL = 10000;
+    private static final String[] EXPORT_COLUMNS = { "id", "propertyMap",
+            "relation" };
+    private static final String ID = "id";
+    private static final String START = "start";
+    private static final String END = "end";
+    private static final String TYPE = "type";
+
+    /**
+     * The kinds of import files, told apart by extension and CSV header.
+     */
+    private enum FileKind
+    {
+        JSON( true, true ),
+        EXPORT_CSV( true, true ),
+        NODE_CSV( true, false ),
+        RELATIONSHIP_CSV( false, true );
+
+        private final boolean hasNodes;
+        private final boolean hasRelationships;
+
+        private FileKind( final boolean hasNodes,
+                final boolean hasRelationships )
+        {
+            this.hasNodes = hasNodes;
+            this.hasRelationships = hasRelationships;
+        }
+    }
+
+    /**
+     * What an import did.
+     */
+    public static class ImportSummary
+    {
+        private long nodes;
+        private long relationships;
+        private long skippedRelationships;
+        private int duplicateIds;
+        private boolean completed;
+
+        public long getNodes()
+        {
+            return nodes;
+        }
+
+        public long getRelationships()
+        {
+            return relationships;
+        }
+
+        /**
+         * Relationships left out because a node they refer to wasn't in the
+         * imported files.
+         */
+        public long getSkippedRelationships()
+        {
+            return skippedRelationships;
+        }
+
+        /**
+         * Ids used by more than one node of the imported files.
+         * Relationships referring to such an id end up at one of those
+         * nodes.
+         */
+        public int getDuplicateIds()
+        {
+            return duplicateIds;
+        }
+
+        /**
+         * @return false if the import was cancelled
+         */
+        public boolean isCompleted()
+        {
+            return completed;
+        }
+
+        @Override
+        public String toString()
+        {
+            return nodes + " nodes and " + relationships
+                   + " relationships imported"
+                   + ( skippedRelationships > 0 ? ", " + skippedRelationships
+                                                  + " relationships skipped"
+                           : "" )
+                   + ( duplicateIds > 0 ? ", " + duplicateIds
+                                          + " node ids used more than once"
+                           : "" ) + ( completed ? "." : " before cancelling." );
+        }
+    }
+
+    /**
+     * Import files into the database at the given location. All nodes are
+     * written before the relationships, so the files can come in any order.
+     * The database must not be running.
+     * 
+     * @param storeDir location of the database
+     * @param config database configuration
+     * @param files the files to import
+     * @param monitor progress monitor, checked for cancellation
+     * @return what was imported
+     * @throws IOException if a file can't be read or parsed
+     */
+    public static ImportSummary importFiles( final String storeDir,
+            final Map<String,String> config, final List<File> files,
+            final IProgressMonitor monitor ) throws IOException
+    {
+        List<FileKind> kinds = new ArrayList<FileKind>( files.size() );
+        for ( File file : files )
+        {
+            kinds.add( kindOf( file ) );
+        }
+        monitor.beginTask( "Importing into " + storeDir,
+                IProgressMonitor.UNKNOWN );
+        BatchImport batchImport = new BatchImport( BatchInserters.inserter(
+                storeDir, config ), monitor );
+        try
+        {
+            for ( int i = 0; i < files.size() && !monitor.isCanceled(); i++ )
+            {
+                if ( kinds.get( i ).hasNodes )
+                {
+                    batchImport.importFile( files.get( i ), kinds.get( i ),
+                            true );
+                }
+            }
+            batchImport.summary.duplicateIds = batchImport.ids.sort();
+            for ( int i = 0; i < files.size() && !monitor.isCanceled(); i++ )
+            {
+                if ( kinds.get( i ).hasRelationships )
+                {
+                    batchImport.importFile( files.get( i ), kinds.get( i ),
+                            false );
+                }
+            }
+            batchImport.summary.completed = !monitor.isCanceled();
+            return batchImport.summary;
+        }
+        finally
+        {
+            batchImport.shutdown();
+            monitor.done();
+        }
+    }
+
+    private static FileKind kindOf( final File file ) throws IOException
+    {
+        if ( file.getName().toLowerCase().endsWith( ".json" ) )
+        {
+            return FileKind.JSON;
+        }
+        BufferedReader reader = open( file );
+        try
+        {
+            String line = reader.readLine();
+            List<String> header = line == null ? new ArrayList<String>()
+                    : header( line );
+            if ( header.equals( Arrays.asList( EXPORT_COLUMNS ) ) )
+            {
+                return FileKind.EXPORT_CSV;
+            }
+            if ( header.contains( START ) && header.contains( END )
+                 && header.contains( TYPE ) )
+            {
+                return FileKind.RELATIONSHIP_CSV;
+            }
+            if ( header.contains( ID ) )
+            {
+                return FileKind.NODE_CSV;
+            }
+            throw new IOException( file.getName()
+                                   + ": the CSV header needs an \"" + ID
+                                   + "\" column, or \"" + START + "\", \""
+                                   + END + "\" and \"" + TYPE + "\" columns." );
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static BufferedReader open( final File file ) throws IOException
+    {
+        return new BufferedReader( new InputStreamReader( new FileInputStream(
+                file ), UTF_8 ), BUFFER_SIZE );
+    }
+
+    private static List<String> header( final String line ) throws IOException
+    {
+        JSONArray columns = row( line );
+        List<String> header = new ArrayList<String>( columns.length() );
+        for ( int i = 0; i < columns.length(); i++ )
+        {
+            header.add( columns.optString( i ).trim() );
+        }
+        return header;
+    }
+
+    private static JSONArray row( final String line ) throws IOException
+    {
+        try
+        {
+            JSONArray row = CDL.rowToJSONArray( new JSONTokener( line ) );
+            return row == null ? new JSONArray() : row;
+        }
+        catch ( JSONException e )
+        {
+            throw new IOException( "Could not parse CSV line: "
+                                   + e.getMessage() );
+        }
+    }
+
+    /**
+     * Writes the parsed records, on the thread calling
+     * {@link DataImportUtils#importFiles}.
+     */
+    private static class BatchImport
+    {
+        private final BatchInserter inserter;
+        private final IProgressMonitor monitor;
+        private final ExecutorService parsers;
+        private final int window;
+        private final IdMapping ids = new IdMapping();
+        private final Map<String,RelationshipType> relTypes = new HashMap<String,RelationshipType>();
+        private final ImportSummary summary = new ImportSummary();
+        private long reported = 0;
+
+        BatchImport( final BatchInserter inserter,
+                final IProgressMonitor monitor )
+        {
+            this.inserter = inserter;
+            this.monitor = monitor;
+            int threads = Math.max( 1,
+                    Runtime.getRuntime().availableProcessors() - 1 );
+            parsers = Executors.newFixedThreadPool( threads );
+            window = threads * 2;
+        }
+
+        /**
+         * Reads a file in batches of raw records, parses them on the pool and
+         * writes the results in file order.
+         */
+        void importFile( final File file, final FileKind kind,
+                final boolean nodes ) throws IOException
+        {
+            monitor.subTask( ( nodes ? "Nodes from " : "Relationships from " )
+                             + file.getName() );
+            BufferedReader reader = open( file );
+            Deque<Future<List<NodeWrapper>>> pending = new ArrayDeque<Future<List<NodeWrapper>>>();
+            try
+            {
+                RecordReader records = kind == FileKind.JSON ? new JsonRecordReader(
+                        reader ) : new CsvRecordReader( reader );
+                List<String> header = kind == FileKind.JSON ? null
+                        : header( reader.readLine() );
+                List<String> batch;
+                while ( ( batch = records.next( BATCH_SIZE ) ) != null )
+                {
+                    if ( monitor.isCanceled() )
+                    {
+                        break;
+                    }
+                    pending.add( parsers.submit( new ParseTask( kind, header,
+                            batch ) ) );
+                    if ( pending.size() > window )
+                    {
+                        write( pending.poll(), nodes );
+                    }
+                }
+                while ( !pending.isEmpty() && !monitor.isCanceled() )
+                {
+                    write( pending.poll(), nodes );
+                }
+            }
+            finally
+            {
+                for ( Future<List<NodeWrapper>> future : pending )
+                {
+                    future.cancel( false );
+                }
+                reader.close();
+            }
+        }
+
+        private void write( final Future<List<NodeWrapper>> parsed,
+                final boolean nodes ) throws IOException
+        {
+            List<NodeWrapper> records;
+            try
+            {
+                records = parsed.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Import interrupted." );
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause
+                        : new IOException( cause.getMessage() );
+            }
+            if ( nodes )
+            {
+                writeNodes( records );
+            }
+            else
+            {
+                writeRelationships( records );
+            }
+            long total = summary.nodes + summary.relationships;
+            if ( total - reported >= PROGRESS_INTERVAL )
+            {
+                reported = total;
+                monitor.subTask( summary.nodes + " nodes, "
+                                 + summary.relationships
+                                 + " relationships imported" );
+                monitor.worked( 1 );
+            }
+        }
+
+        private void writeNodes( final List<NodeWrapper> records )
+        {
+            for ( NodeWrapper record : records )
+            {
+                long node = inserter.createNode( record.getPropertyMap() );
+                ids.put( record.getId(), node );
+                summary.nodes++;
+            }
+        }
+
+        private void writeRelationships( final List<NodeWrapper> records )
+        {
+            for ( NodeWrapper record : records )
+            {
+                long start = ids.get( record.getId() );
+                for ( RelationshipWrapper rel : record.getRelation() )
+                {
+                    long end = ids.get( rel.getEndNodeId() );
+                    if ( start == -1 || end == -1
+                         || rel.getRelationshipType() == null )
+                    {
+                        summary.skippedRelationships++;
+                        continue;
+                    }
+                    inserter.createRelationship( start, end,
+                            relType( rel.getRelationshipType() ),
+                            rel.getPropertyMap() );
+                    summary.relationships++;
+                }
+            }
+        }
+
+        private RelationshipType relType( final String name )
+        {
+            RelationshipType relType = relTypes.get( name );
+            if ( relType == null )
+            {
+                relType = DynamicRelationshipType.withName( name );
+                relTypes.put( name, relType );
+            }
+            return relType;
+        }
+
+        void shutdown()
+        {
+            parsers.shutdownNow();
+            inserter.shutdown();
+        }
+    }
+
+    private interface RecordReader
+    {
+        /**
+         * @return up to max raw records, or null at the end of the file
+         */
+        List<String> next( int max ) throws IOException;
+    }
+
+    /**
+     * One record per line, the header has been read already.
+     */
+    private static class CsvRecordReader implements RecordReader
+    {
+        private final BufferedReader reader;
+
+        CsvRecordReader( final BufferedReader reader )
+        {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<String> next( final int max ) throws IOException
+        {
+            List<String> batch = new ArrayList<String>( max );
+            String line;
+            while ( batch.size() < max && ( line = reader.readLine() ) != null )
+            {
+                if ( line.trim().length() > 0 )
+                {
+                    batch.add( line );
+                }
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+    }
+
+    /**
+     * Splits a JSON array into the text of its elements without parsing
+     * them, leaving that to the parser tasks.
+     */
+    private static class JsonRecordReader implements RecordReader
+    {
+        private final Reader reader;
+        private final StringBuilder record = new StringBuilder( 256 );
+        private int depth = 0;
+        private boolean inString = false;
+        private boolean escaped = false;
+
+        JsonRecordReader( final Reader reader )
+        {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<String> next( final int max ) throws IOException
+        {
+            List<String> batch = new ArrayList<String>( max );
+            int c;
+            while ( batch.size() < max && ( c = reader.read() ) != -1 )
+            {
+                char ch = (char) c;
+                if ( depth > 1 )
+                {
+                    record.append( ch );
+                }
+                if ( inString )
+                {
+                    if ( escaped )
+                    {
+                        escaped = false;
+                    }
+                    else if ( ch == '\\' )
+                    {
+                        escaped = true;
+                    }
+                    else if ( ch == '"' )
+                    {
+                        inString = false;
+                    }
+                }
+                else if ( ch == '"' )
+                {
+                    inString = true;
+                }
+                else if ( ch == '{' || ch == '[' )
+                {
+                    if ( ++depth == 2 )
+                    {
+                        record.append( ch );
+                    }
+                }
+                else if ( ch == '}' || ch == ']' )
+                {
+                    if ( --depth == 1 )
+                    {
+                        batch.add( record.toString() );
+                        record.setLength( 0 );
+                    }
+                }
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+    }
+
+    /**
+     * Turns raw records into nodes with their outgoing relationships, with
+     * property values converted to the types the database can store.
+     */
+    private static class ParseTask implements Callable<List<NodeWrapper>>
+    {
+        private final FileKind kind;
+        private final List<String> header;
+        private final List<String> records;
+
+        ParseTask( final FileKind kind, final List<String> header,
+                final List<String> records )
+        {
+            this.kind = kind;
+            this.header = header;
+            this.records = records;
+        }
+
+        @Override
+        public List<NodeWrapper> call() throws IOException
+        {
+            List<NodeWrapper> parsed = new ArrayList<NodeWrapper>(
+                    records.size() );
+            for ( String record : records )
+            {
+                NodeWrapper node;
+                switch ( kind )
+                {
+                case JSON:
+                    node = fromJson( record );
+                    break;
+                case EXPORT_CSV:
+                    node = fromExportRow( exportRow( record ) );
+                    break;
+                case NODE_CSV:
+                    node = fromNodeRow( row( record ) );
+                    break;
+                default:
+                    node = fromRelationshipRow( row( record ) );
+                    break;
+                }
+                parsed.add( node );
+            }
+            return parsed;
+        }
+
+        private NodeWrapper fromJson( final String json ) throws IOException
+        {
+            NodeWrapper node;
+            try
+            {
+                node = ApplicationUtil.toJson( json, NodeWrapper.class );
+            }
+            catch ( RuntimeException e )
+            {
+                throw new IOException( "Could not parse record: "
+                                       + e.getMessage() );
+            }
+            node.setPropertyMap( convert( node.getPropertyMap() ) );
+            if ( node.getRelation() == null )
+            {
+                node.setRelation( new ArrayList<RelationshipWrapper>() );
+            }
+            for ( RelationshipWrapper rel : node.getRelation() )
+            {
+                rel.setPropertyMap( convert( rel.getPropertyMap() ) );
+            }
+            return node;
+        }
+
+        private NodeWrapper fromExportRow( final String[] row )
+                throws IOException
+        {
+            String properties = row[1];
+            String relations = row[2];
+            return fromJson( "{\"id\":" + parseId( row[0] )
+                             + ",\"propertyMap\":"
+                             + ( properties.length() > 0 ? properties : "null" )
+                             + ",\"relation\":"
+                             + ( relations.length() > 0 ? relations : "null" )
+                             + "}" );
+        }
+
+        private NodeWrapper fromNodeRow( final JSONArray row )
+                throws IOException
+        {
+            NodeWrapper node = new NodeWrapper( parseId( cell( row, ID ) ) );
+            node.setPropertyMap( properties( row, ID ) );
+            return node;
+        }
+
+        private NodeWrapper fromRelationshipRow( final JSONArray row )
+                throws IOException
+        {
+            NodeWrapper node = new NodeWrapper( parseId( cell( row, START ) ) );
+            RelationshipWrapper rel = new RelationshipWrapper();
+            rel.setEndNodeId( parseId( cell( row, END ) ) );
+            rel.setRelationshipType( cell( row, TYPE ) );
+            rel.setPropertyMap( properties( row, START, END, TYPE ) );
+            node.addRelation( rel );
+            return node;
+        }
+
+        private String cell( final JSONArray row, final String column )
+        {
+            return row.optString( header.indexOf( column ) ).trim();
+        }
+
+        private Map<String,Object> properties( final JSONArray row,
+                final String... reserved )
+        {
+            Map<String,Object> properties = new HashMap<String,Object>();
+            columns: for ( int i = 0; i < header.size(); i++ )
+            {
+                for ( String column : reserved )
+                {
+                    if ( column.equals( header.get( i ) ) )
+                    {
+                        continue columns;
+                    }
+                }
+                String value = row.optString( i );
+                if ( value.length() > 0 )
+                {
+                    properties.put( header.get( i ), infer( value ) );
+                }
+            }
+            return properties;
+        }
+    }
+
+    /**
+     * Splits a row of the CSV export into the id and the JSON text of the
+     * properties and the relationships. The JSON cells may be quoted, quotes
+     * inside them aren't escaped.
+     */
+    private static String[] exportRow( final String line ) throws IOException
+    {
+        int comma = line.indexOf( ',' );
+        if ( comma < 0 )
+        {
+            throw new IOException( "Could not parse CSV line: " + line );
+        }
+        String[] cells = { line.substring( 0, comma ), "", "" };
+        JSONTokener tokener = new JSONTokener( line.substring( comma + 1 ) );
+        try
+        {
+            for ( int i = 1; i < cells.length; i++ )
+            {
+                char quote = tokener.nextClean();
+                if ( quote == ',' || quote == 0 )
+                {
+                    // empty cell
+                    continue;
+                }
+                if ( quote != '\'' && quote != '"' )
+                {
+                    tokener.back();
+                    quote = 0;
+                }
+                cells[i] = tokener.nextValue().toString();
+                if ( quote != 0 && tokener.nextClean() != quote )
+                {
+                    throw new IOException( "Could not parse CSV line, missing " + quote + ": " + line );
+                }
+                if ( i < cells.length - 1 && tokener.nextClean() != ',' )
+                {
+                    throw new IOException( "Could not parse CSV line, missing column: " + line );
+                }
+            }
+        }
+        catch ( JSONException e )
+        {
+            throw new IOException( "Could not parse CSV line: " + e.getMessage() );
+        }
+        return cells;
+    }
+
+    private static long parseId( final String id ) throws IOException
+    {
+        try
+        {
+            return Long.parseLong( id.trim() );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IOException( "Not a valid id: " + id );
+        }
+    }
+
+    /**
+     * Guesses the type of a CSV value: boolean, long, double or string.
+     */
+    private static Object infer( final String value )
+    {
+        if ( "true".equalsIgnoreCase( value ) || "false".equalsIgnoreCase( value ) )
+        {
+            return Boolean.valueOf( value );
+        }
+        char first = value.charAt( 0 );
+        if ( first == '-' || first == '+' || first == '.'
+             || Character.isDigit( first ) )
+        {
+            try
+            {
+                return Long.valueOf( value );
+            }
+            catch ( NumberFormatException e )
+            {
+                try
+                {
+                    return Double.valueOf( value );
+                }
+                catch ( NumberFormatException e2 )
+                {
+                    // not a number
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Converts property values read from JSON to types the database can
+     * store. JSON doesn't tell integers from floating point values, so whole
+     * numbers become longs and the rest doubles. Lists become arrays, nested
+     * objects are stored as their JSON text.
+     */
+    private static Map<String,Object> convert( final Map<String,Object> values )
+    {
+        Map<String,Object> converted = new LinkedHashMap<String,Object>();
+        if ( values == null )
+        {
+            return converted;
+        }
+        for ( Map.Entry<String,Object> entry : values.entrySet() )
+        {
+            Object value = convert( entry.getValue() );
+            if ( value != null )
+            {
+                converted.put( entry.getKey(), value );
+            }
+        }
+        return converted;
+    }
+
+    private static Object convert( final Object value )
+    {
+        if ( value instanceof Collection )
+        {
+            return toArray( (Collection<?>) value );
+        }
+        if ( value instanceof Map )
+        {
+            return ApplicationUtil.toJson( value );
+        }
+        return ApplicationUtil.fromJsonNumber( value );
+    }
+
+    private static Object toArray( final Collection<?> list )
+    {
+        boolean numbers = true;
+        boolean whole = true;
+        boolean booleans = true;
+        for ( Object element : list )
+        {
+            numbers &= element instanceof Number;
+            whole &= element instanceof Number
+                     && ApplicationUtil.isWholeNumber( ( (Number) element ).doubleValue() );
+            booleans &= element instanceof Boolean;
+        }
+        int i = 0;
+        if ( !list.isEmpty() && whole )
+        {
+            long[] array = new long[list.size()];
+            for ( Object element : list )
+            {
+                array[i++] = ( (Number) element ).longValue();
+            }
+            return array;
+        }
+        if ( !list.isEmpty() && numbers )
+        {
+            double[] array = new double[list.size()];
+            for ( Object element : list )
+            {
+                array[i++] = ( (Number) element ).doubleValue();
+            }
+            return array;
+        }
+        if ( !list.isEmpty() && booleans )
+        {
+            boolean[] array = new boolean[list.size()];
+            for ( Object element : list )
+            {
+                array[i++] = (Boolean) element;
+            }
+            return array;
+        }
+        String[] array = new String[list.size()];
+        for ( Object element : list )
+        {
+            array[i++] = element instanceof String ? (String) element
+                    : ApplicationUtil.toJson( element );
+        }
+        return array;
+    }
+}
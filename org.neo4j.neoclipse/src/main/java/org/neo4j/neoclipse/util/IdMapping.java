@@ -0,0 +1,159 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.util;
+
+import java.util.Arrays;
+
+/**
+ * Maps the node ids of an import file to the ids given by the database. Ids
+ * are collected first, then sorted once so that lookups are binary searches
+ * over two primitive arrays. Not thread safe.
+ */
+final class IdMapping
+{
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private LongArrayList collectedKeys = new LongArrayList( 1024 );
+    private LongArrayList collectedValues = new LongArrayList( 1024 );
+    private long[] keys;
+    private long[] values;
+
+    void put( final long key, final long value )
+    {
+        if ( keys != null )
+        {
+            throw new IllegalStateException( "The id mapping is already sorted." );
+        }
+        collectedKeys.add( key );
+        collectedValues.add( value );
+    }
+
+    /**
+     * Sorts the collected ids, has to be called before the first lookup.
+     * 
+     * @return the number of ids that were put more than once; lookups of
+     *         such an id return one of its values
+     */
+    int sort()
+    {
+        keys = collectedKeys.toArray();
+        values = collectedValues.toArray();
+        collectedKeys = null;
+        collectedValues = null;
+        for ( int i = 1; i < keys.length; i++ )
+        {
+            if ( keys[i - 1] > keys[i] )
+            {
+                sort( 0, keys.length - 1 );
+                break;
+            }
+        }
+        int duplicates = 0;
+        for ( int i = 1; i < keys.length; i++ )
+        {
+            if ( keys[i - 1] == keys[i] && ( i == 1 || keys[i - 2] != keys[i] ) )
+            {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return the database id, or -1 if the id wasn't imported
+     */
+    long get( final long key )
+    {
+        int index = Arrays.binarySearch( keys, key );
+        return index < 0 ? -1 : values[index];
+    }
+
+    int size()
+    {
+        return keys != null ? keys.length : collectedKeys.size();
+    }
+
+    /**
+     * Quicksort of the keys, moving the values along. Recurses into the
+     * smaller part only, to keep the stack shallow.
+     */
+    private void sort( int low, int high )
+    {
+        while ( high - low > INSERTION_SORT_THRESHOLD )
+        {
+            long pivot = medianOfThree( low, ( low + high ) >>> 1, high );
+            int i = low;
+            int j = high;
+            while ( i <= j )
+            {
+                while ( keys[i] < pivot )
+                {
+                    i++;
+                }
+                while ( keys[j] > pivot )
+                {
+                    j--;
+                }
+                if ( i <= j )
+                {
+                    swap( i++, j-- );
+                }
+            }
+            if ( j - low < high - i )
+            {
+                sort( low, j );
+                low = i;
+            }
+            else
+            {
+                sort( i, high );
+                high = j;
+            }
+        }
+        for ( int i = low + 1; i <= high; i++ )
+        {
+            for ( int j = i; j > low && keys[j - 1] > keys[j]; j-- )
+            {
+                swap( j - 1, j );
+            }
+        }
+    }
+
+    private long medianOfThree( final int a, final int b, final int c )
+    {
+        long x = keys[a];
+        long y = keys[b];
+        long z = keys[c];
+        if ( x < y )
+        {
+            return y < z ? y : x < z ? z : x;
+        }
+        return x < z ? x : y < z ? z : y;
+    }
+
+    private void swap( final int i, final int j )
+    {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
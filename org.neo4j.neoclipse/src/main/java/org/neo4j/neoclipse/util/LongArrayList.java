@@ -0,0 +1,90 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive longs. Not thread safe.
+ */
+public final class LongArrayList
+{
+    private long[] elements;
+    private int size;
+
+    public LongArrayList()
+    {
+        this( 10 );
+    }
+
+    public LongArrayList( final int initialCapacity )
+    {
+        elements = new long[Math.max( initialCapacity, 1 )];
+    }
+
+    public void add( final long value )
+    {
+        if ( size == elements.length )
+        {
+            elements = Arrays.copyOf( elements, size << 1 );
+        }
+        elements[size++] = value;
+    }
+
+    public long get( final int index )
+    {
+        if ( index < 0 || index >= size )
+        {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + size );
+        }
+        return elements[index];
+    }
+
+    /**
+     * Drops all elements from the index on.
+     */
+    public void truncate( final int newSize )
+    {
+        if ( newSize < 0 || newSize > size )
+        {
+            throw new IndexOutOfBoundsException( "Size: " + newSize + ", current size: " + size );
+        }
+        size = newSize;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public long[] toArray()
+    {
+        return Arrays.copyOf( elements, size );
+    }
+}
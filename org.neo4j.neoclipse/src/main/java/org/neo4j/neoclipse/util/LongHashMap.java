@@ -0,0 +1,194 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open addressing hash map from primitive longs to objects. Not thread safe.
+ * 
+ * @param <V> the value type
+ */
+public final class LongHashMap<V>
+{
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private V freeValue;
+    private boolean containsFree;
+    private int size;
+    private int resizeAt;
+
+    public LongHashMap()
+    {
+        this( 0 );
+    }
+
+    /**
+     * Creates a map that can hold the expected number of entries without
+     * growing.
+     */
+    public LongHashMap( final int expectedSize )
+    {
+        allocate( LongHashSet.capacityFor( expectedSize ) );
+    }
+
+    private void allocate( final int capacity )
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeAt = capacity * 3 / 4;
+    }
+
+    private int indexOf( final long key )
+    {
+        int mask = keys.length - 1;
+        int i = LongHashSet.slot( key, mask );
+        while ( keys[i] != FREE )
+        {
+            if ( keys[i] == key )
+            {
+                return i;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public V get( final long key )
+    {
+        if ( key == FREE )
+        {
+            return freeValue;
+        }
+        int i = indexOf( key );
+        return i < 0 ? null : (V) values[i];
+    }
+
+    public boolean containsKey( final long key )
+    {
+        return key == FREE ? containsFree : indexOf( key ) >= 0;
+    }
+
+    /**
+     * Maps the key to the value.
+     * 
+     * @return the previous value or null
+     */
+    @SuppressWarnings( "unchecked" )
+    public V put( final long key, final V value )
+    {
+        if ( key == FREE )
+        {
+            V previous = freeValue;
+            if ( !containsFree )
+            {
+                containsFree = true;
+                size++;
+            }
+            freeValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int i = LongHashSet.slot( key, mask );
+        while ( keys[i] != FREE )
+        {
+            if ( keys[i] == key )
+            {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if ( ++size > resizeAt )
+        {
+            rehash( keys.length << 1 );
+        }
+        return null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns a snapshot of the values, in no particular order.
+     */
+    @SuppressWarnings( "unchecked" )
+    public List<V> values()
+    {
+        List<V> list = new ArrayList<V>( size );
+        if ( containsFree )
+        {
+            list.add( freeValue );
+        }
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            if ( keys[i] != FREE )
+            {
+                list.add( (V) values[i] );
+            }
+        }
+        return list;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        if ( size > 0 )
+        {
+            allocate( LongHashSet.capacityFor( 0 ) );
+            freeValue = null;
+            containsFree = false;
+            size = 0;
+        }
+    }
+
+    private void rehash( final int capacity )
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate( capacity );
+        int mask = capacity - 1;
+        for ( int j = 0; j < oldKeys.length; j++ )
+        {
+            if ( oldKeys[j] != FREE )
+            {
+                int i = LongHashSet.slot( oldKeys[j], mask );
+                while ( keys[i] != FREE )
+                {
+                    i = ( i + 1 ) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
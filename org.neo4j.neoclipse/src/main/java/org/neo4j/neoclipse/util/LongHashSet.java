@@ -0,0 +1,233 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.util;
+
+/**
+ * Open addressing hash set of primitive longs, used to keep track of node
+ * and relationship ids without boxing them or holding on to the entities.
+ * Not thread safe.
+ */
+public final class LongHashSet
+{
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * Marks a free slot, the key 0 is kept in a separate flag.
+     */
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private boolean containsFree;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet()
+    {
+        this( MIN_CAPACITY );
+    }
+
+    /**
+     * Creates a set that can hold the expected number of ids without
+     * growing.
+     */
+    public LongHashSet( final int expectedSize )
+    {
+        allocate( capacityFor( expectedSize ) );
+    }
+
+    static int capacityFor( final int expectedSize )
+    {
+        int capacity = MIN_CAPACITY;
+        while ( capacity * 3 / 4 < expectedSize )
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int slot( final long key, final int mask )
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) ( h ^ ( h >>> 32 ) ) & mask;
+    }
+
+    private void allocate( final int capacity )
+    {
+        keys = new long[capacity];
+        resizeAt = capacity * 3 / 4;
+    }
+
+    /**
+     * Adds an id.
+     * 
+     * @return true if the id wasn't in the set already
+     */
+    public boolean add( final long key )
+    {
+        if ( key == FREE )
+        {
+            if ( containsFree )
+            {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = slot( key, mask );
+        while ( keys[i] != FREE )
+        {
+            if ( keys[i] == key )
+            {
+                return false;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        keys[i] = key;
+        if ( ++size > resizeAt )
+        {
+            rehash( keys.length << 1 );
+        }
+        return true;
+    }
+
+    public boolean contains( final long key )
+    {
+        if ( key == FREE )
+        {
+            return containsFree;
+        }
+        int mask = keys.length - 1;
+        int i = slot( key, mask );
+        while ( keys[i] != FREE )
+        {
+            if ( keys[i] == key )
+            {
+                return true;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes an id.
+     * 
+     * @return true if the id was in the set
+     */
+    public boolean remove( final long key )
+    {
+        if ( key == FREE )
+        {
+            if ( !containsFree )
+            {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = slot( key, mask );
+        while ( keys[i] != key )
+        {
+            if ( keys[i] == FREE )
+            {
+                return false;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        // shift the following keys of the probe sequence back
+        int gap = i;
+        i = ( i + 1 ) & mask;
+        while ( keys[i] != FREE )
+        {
+            int home = slot( keys[i], mask );
+            if ( ( ( i - home ) & mask ) >= ( ( i - gap ) & mask ) )
+            {
+                keys[gap] = keys[i];
+                gap = i;
+            }
+            i = ( i + 1 ) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        if ( size > 0 )
+        {
+            allocate( MIN_CAPACITY );
+            containsFree = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the ids in no particular order.
+     */
+    public long[] toArray()
+    {
+        long[] result = new long[size];
+        int pos = 0;
+        if ( containsFree )
+        {
+            result[pos++] = FREE;
+        }
+        for ( long key : keys )
+        {
+            if ( key != FREE )
+            {
+                result[pos++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash( final int capacity )
+    {
+        long[] old = keys;
+        allocate( capacity );
+        int mask = capacity - 1;
+        for ( long key : old )
+        {
+            if ( key != FREE )
+            {
+                int i = slot( key, mask );
+                while ( keys[i] != FREE )
+                {
+                    i = ( i + 1 ) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Force directed layout of nodes given as coordinate arrays. Connected nodes
+ * attract each other and all nodes repel each other, the repulsion is
+ * approximated with a Barnes-Hut quadtree so an iteration takes O(n log n)
+ * time. The forces on the nodes are computed in parallel. Iterations stop
+ * when the nodes have settled or the iteration budget is used up.
+ */
+class BarnesHutLayout
+{
+    /**
+     * Cells that look smaller than this from a node are treated as one body.
+     */
+    private static final double THETA = 0.9;
+    private static final double COOLING = 0.9;
+    /**
+     * Nodes have settled when they move less than this fraction of the ideal
+     * edge length on average.
+     */
+    private static final double SETTLED = 0.05;
+    private static final int MIN_CHUNK = 256;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService pool;
+
+    private final double idealLength;
+    private final int maxIterations;
+    private int iterations = 0;
+
+    BarnesHutLayout( final double idealLength, final int maxIterations )
+    {
+        this.idealLength = idealLength;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Number of iterations the last layout took.
+     */
+    int getIterations()
+    {
+        return iterations;
+    }
+
+    private static synchronized ExecutorService pool()
+    {
+        if ( pool == null )
+        {
+            pool = Executors.newFixedThreadPool( THREADS, new ThreadFactory()
+            {
+                @Override
+                public Thread newThread( final Runnable runnable )
+                {
+                    Thread thread = new Thread( runnable, "neoclipse-layout" );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        }
+        return pool;
+    }
+
+    /**
+     * Moves the nodes to their new positions.
+     * 
+     * @param x x coordinates of the node centers
+     * @param y y coordinates of the node centers
+     * @param adjacency indexes of the neighbors of every node
+     */
+    void layout( final double[] x, final double[] y, final int[][] adjacency )
+    {
+        final int count = x.length;
+        iterations = 0;
+        if ( count < 2 )
+        {
+            return;
+        }
+        final double[] dx = new double[count];
+        final double[] dy = new double[count];
+        final double[] temperature = { idealLength * Math.sqrt( count ) / 10 };
+        int chunkCount = Math.min( THREADS * 4, ( count + MIN_CHUNK - 1 ) / MIN_CHUNK );
+        final int chunkSize = ( count + chunkCount - 1 ) / chunkCount;
+        while ( iterations < maxIterations )
+        {
+            iterations++;
+            final QuadTree tree = new QuadTree( x, y );
+            List<Callable<Double>> chunks = new ArrayList<Callable<Double>>( chunkCount );
+            for ( int start = 0; start < count; start += chunkSize )
+            {
+                final int from = start;
+                final int to = Math.min( count, start + chunkSize );
+                chunks.add( new Callable<Double>()
+                {
+                    @Override
+                    public Double call()
+                    {
+                        return Double.valueOf( forces( tree, x, y, adjacency, dx, dy, from, to, temperature[0] ) );
+                    }
+                } );
+            }
+            double moved = 0;
+            for ( Double chunkMoved : run( chunks ) )
+            {
+                moved += chunkMoved.doubleValue();
+            }
+            for ( int i = 0; i < count; i++ )
+            {
+                x[i] += dx[i];
+                y[i] += dy[i];
+            }
+            temperature[0] *= COOLING;
+            if ( moved / count < SETTLED * idealLength )
+            {
+                return;
+            }
+        }
+    }
+
+    private static List<Double> run( final List<Callable<Double>> chunks )
+    {
+        List<Double> results = new ArrayList<Double>( chunks.size() );
+        if ( chunks.size() == 1 )
+        {
+            try
+            {
+                results.add( chunks.get( 0 ).call() );
+            }
+            catch ( Exception e )
+            {
+                throw new IllegalStateException( e );
+            }
+            return results;
+        }
+        try
+        {
+            for ( Future<Double> future : pool().invokeAll( chunks ) )
+            {
+                results.add( future.get() );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Layout interrupted", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IllegalStateException( "Layout failed", e.getCause() );
+        }
+        return results;
+    }
+
+    /**
+     * Computes the displacement of the nodes in [from, to), limited by the
+     * temperature.
+     * 
+     * @return the sum of the displacements
+     */
+    private double forces( final QuadTree tree, final double[] x, final double[] y, final int[][] adjacency,
+            final double[] dx, final double[] dy, final int from, final int to, final double temperature )
+    {
+        double k2 = idealLength * idealLength;
+        double[] force = new double[2];
+        int[][] stack = { new int[64] };
+        double moved = 0;
+        for ( int i = from; i < to; i++ )
+        {
+            force[0] = 0;
+            force[1] = 0;
+            tree.repulsion( i, x[i], y[i], k2, force, stack );
+            for ( int j : adjacency[i] )
+            {
+                double ex = x[j] - x[i];
+                double ey = y[j] - y[i];
+                double distance = Math.sqrt( ex * ex + ey * ey );
+                if ( distance > 0 )
+                {
+                    force[0] += ex * distance / idealLength;
+                    force[1] += ey * distance / idealLength;
+                }
+            }
+            double length = Math.sqrt( force[0] * force[0] + force[1] * force[1] );
+            if ( length > 0 )
+            {
+                double step = Math.min( length, temperature );
+                dx[i] = force[0] / length * step;
+                dy[i] = force[1] / length * step;
+                moved += step;
+            }
+            else
+            {
+                dx[i] = 0;
+                dy[i] = 0;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Region quadtree over the node positions, kept in flat arrays. Every cell
+     * knows the number of nodes in it and their center of mass.
+     */
+    static final class QuadTree
+    {
+        /**
+         * Cells below this size aren't split, nodes at (almost) the same
+         * position end up in the same leaf.
+         */
+        private static final double MIN_SIZE = 1e-3;
+        private static final int EMPTY = -1;
+        private static final int SPLIT = -2;
+
+        private final double[] x;
+        private final double[] y;
+        // per cell
+        private double[] centerX;
+        private double[] centerY;
+        private double[] half;
+        private double[] massX;
+        private double[] massY;
+        private int[] mass;
+        private int[] firstChild;
+        // the node in a leaf, EMPTY or SPLIT
+        private int[] body;
+        // nodes sharing a leaf that can't be split further
+        private int[] next;
+        private int cells = 0;
+
+        QuadTree( final double[] x, final double[] y )
+        {
+            this.x = x;
+            this.y = y;
+            int count = x.length;
+            int capacity = Math.max( 16, count * 2 );
+            centerX = new double[capacity];
+            centerY = new double[capacity];
+            half = new double[capacity];
+            massX = new double[capacity];
+            massY = new double[capacity];
+            mass = new int[capacity];
+            firstChild = new int[capacity];
+            body = new int[capacity];
+            next = new int[count];
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for ( int i = 0; i < count; i++ )
+            {
+                minX = Math.min( minX, x[i] );
+                minY = Math.min( minY, y[i] );
+                maxX = Math.max( maxX, x[i] );
+                maxY = Math.max( maxY, y[i] );
+            }
+            double size = Math.max( Math.max( maxX - minX, maxY - minY ), 1 );
+            newCell( ( minX + maxX ) / 2, ( minY + maxY ) / 2, size / 2 + 1 );
+            for ( int i = 0; i < count; i++ )
+            {
+                next[i] = EMPTY;
+                insert( i );
+            }
+        }
+
+        private int newCell( final double cx, final double cy, final double h )
+        {
+            if ( cells == half.length )
+            {
+                int capacity = cells * 2;
+                centerX = copy( centerX, capacity );
+                centerY = copy( centerY, capacity );
+                half = copy( half, capacity );
+                massX = copy( massX, capacity );
+                massY = copy( massY, capacity );
+                mass = copy( mass, capacity );
+                firstChild = copy( firstChild, capacity );
+                body = copy( body, capacity );
+            }
+            int cell = cells++;
+            centerX[cell] = cx;
+            centerY[cell] = cy;
+            half[cell] = h;
+            massX[cell] = 0;
+            massY[cell] = 0;
+            mass[cell] = 0;
+            firstChild[cell] = EMPTY;
+            body[cell] = EMPTY;
+            return cell;
+        }
+
+        private static double[] copy( final double[] array, final int length )
+        {
+            double[] copy = new double[length];
+            System.arraycopy( array, 0, copy, 0, array.length );
+            return copy;
+        }
+
+        private static int[] copy( final int[] array, final int length )
+        {
+            int[] copy = new int[length];
+            System.arraycopy( array, 0, copy, 0, array.length );
+            return copy;
+        }
+
+        private void insert( final int node )
+        {
+            int cell = 0;
+            while ( true )
+            {
+                massX[cell] += x[node];
+                massY[cell] += y[node];
+                mass[cell]++;
+                if ( body[cell] == EMPTY )
+                {
+                    body[cell] = node;
+                    return;
+                }
+                if ( body[cell] != SPLIT )
+                {
+                    if ( half[cell] < MIN_SIZE )
+                    {
+                        next[node] = next[body[cell]];
+                        next[body[cell]] = node;
+                        return;
+                    }
+                    split( cell );
+                }
+                cell = child( cell, node );
+            }
+        }
+
+        private void split( final int cell )
+        {
+            int resident = body[cell];
+            double h = half[cell] / 2;
+            double cx = centerX[cell];
+            double cy = centerY[cell];
+            int first = newCell( cx - h, cy - h, h );
+            newCell( cx + h, cy - h, h );
+            newCell( cx - h, cy + h, h );
+            newCell( cx + h, cy + h, h );
+            firstChild[cell] = first;
+            body[cell] = SPLIT;
+            int target = child( cell, resident );
+            massX[target] = x[resident];
+            massY[target] = y[resident];
+            mass[target] = 1;
+            body[target] = resident;
+        }
+
+        private int child( final int cell, final int node )
+        {
+            int quadrant = ( x[node] < centerX[cell] ? 0 : 1 ) + ( y[node] < centerY[cell] ? 0 : 2 );
+            return firstChild[cell] + quadrant;
+        }
+
+        /**
+         * Adds the repulsion of all other nodes on a node to the force.
+         * 
+         * @param stacks holds the traversal stack, which is grown as needed
+         */
+        void repulsion( final int node, final double px, final double py, final double k2, final double[] force,
+                final int[][] stacks )
+        {
+            int[] stack = stacks[0];
+            int top = 0;
+            stack[top++] = 0;
+            while ( top > 0 )
+            {
+                int cell = stack[--top];
+                if ( mass[cell] == 0 )
+                {
+                    continue;
+                }
+                if ( body[cell] != SPLIT )
+                {
+                    for ( int other = body[cell]; other != EMPTY; other = next[other] )
+                    {
+                        if ( other != node )
+                        {
+                            push( px - x[other], py - y[other], 1, k2, force, node, other );
+                        }
+                    }
+                    continue;
+                }
+                double mx = massX[cell] / mass[cell];
+                double my = massY[cell] / mass[cell];
+                double ex = px - mx;
+                double ey = py - my;
+                double distance = Math.sqrt( ex * ex + ey * ey );
+                if ( 2 * half[cell] < THETA * distance )
+                {
+                    push( ex, ey, mass[cell], k2, force, node, cell );
+                    continue;
+                }
+                if ( top + 4 > stack.length )
+                {
+                    int[] larger = new int[stack.length * 2];
+                    System.arraycopy( stack, 0, larger, 0, top );
+                    stack = larger;
+                    stacks[0] = larger;
+                }
+                for ( int c = firstChild[cell]; c < firstChild[cell] + 4; c++ )
+                {
+                    stack[top++] = c;
+                }
+            }
+        }
+
+        private static void push( double ex, double ey, final int weight, final double k2, final double[] force,
+                final int node, final int other )
+        {
+            double d2 = ex * ex + ey * ey;
+            if ( d2 < 1e-6 )
+            {
+                // same position, push apart in a direction given by the ids
+                double angle = ( node * 31 + other ) * 2.399963;
+                ex = Math.cos( angle );
+                ey = Math.sin( angle );
+                d2 = 1;
+            }
+            double scale = weight * k2 / d2;
+            force[0] += ex * scale;
+            force[1] += ey * scale;
+        }
+    }
+}
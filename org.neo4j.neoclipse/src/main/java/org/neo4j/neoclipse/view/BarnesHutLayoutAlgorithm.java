@@ -0,0 +1,192 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.zest.layouts.algorithms.AbstractLayoutAlgorithm;
+import org.eclipse.zest.layouts.dataStructures.InternalNode;
+import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
+
+/**
+ * Force directed layout for large graphs, see {@link BarnesHutLayout}. The
+ * result is scaled to fit the layout bounds, like the other Zest algorithms
+ * do.
+ */
+public class BarnesHutLayoutAlgorithm extends AbstractLayoutAlgorithm
+{
+    private static final double IDEAL_LENGTH = 80;
+    private static final int MAX_ITERATIONS = 300;
+    private int currentStep = 0;
+    private int totalSteps = 0;
+
+    public BarnesHutLayoutAlgorithm( final int styles )
+    {
+        super( styles );
+    }
+
+    @Override
+    protected void applyLayoutInternal( final InternalNode[] entitiesToLayout,
+            final InternalRelationship[] relationshipsToConsider, final double boundsX, final double boundsY,
+            final double boundsWidth, final double boundsHeight )
+    {
+        int count = entitiesToLayout.length;
+        if ( count == 0 )
+        {
+            return;
+        }
+        double[] x = new double[count];
+        double[] y = new double[count];
+        Map<InternalNode, Integer> index = new HashMap<InternalNode, Integer>();
+        Set<List<Double>> taken = new HashSet<List<Double>>();
+        Random random = new Random( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            InternalNode node = entitiesToLayout[i];
+            index.put( node, Integer.valueOf( i ) );
+            x[i] = node.getInternalX() + node.getInternalWidth() / 2;
+            y[i] = node.getInternalY() + node.getInternalHeight() / 2;
+            List<Double> position = new ArrayList<Double>( 2 );
+            position.add( Double.valueOf( x[i] ) );
+            position.add( Double.valueOf( y[i] ) );
+            if ( !taken.add( position ) )
+            {
+                // new nodes share a position, start them anywhere
+                x[i] = boundsX + random.nextDouble() * boundsWidth;
+                y[i] = boundsY + random.nextDouble() * boundsHeight;
+            }
+        }
+        BarnesHutLayout layout = new BarnesHutLayout( IDEAL_LENGTH, MAX_ITERATIONS );
+        totalSteps = MAX_ITERATIONS;
+        layout.layout( x, y, adjacency( relationshipsToConsider, index, count ) );
+        currentStep = layout.getIterations();
+        fitWithinBounds( entitiesToLayout, x, y, boundsX, boundsY, boundsWidth, boundsHeight );
+    }
+
+    private static int[][] adjacency( final InternalRelationship[] relationships,
+            final Map<InternalNode, Integer> index, final int count )
+    {
+        int[] degree = new int[count];
+        int[] sources = new int[relationships.length];
+        int[] destinations = new int[relationships.length];
+        for ( int r = 0; r < relationships.length; r++ )
+        {
+            Integer source = index.get( relationships[r].getSource() );
+            Integer destination = index.get( relationships[r].getDestination() );
+            if ( source == null || destination == null || source.equals( destination ) )
+            {
+                sources[r] = -1;
+                continue;
+            }
+            sources[r] = source.intValue();
+            destinations[r] = destination.intValue();
+            degree[sources[r]]++;
+            degree[destinations[r]]++;
+        }
+        int[][] adjacency = new int[count][];
+        for ( int i = 0; i < count; i++ )
+        {
+            adjacency[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+        for ( int r = 0; r < relationships.length; r++ )
+        {
+            if ( sources[r] != -1 )
+            {
+                adjacency[sources[r]][degree[sources[r]]++] = destinations[r];
+                adjacency[destinations[r]][degree[destinations[r]]++] = sources[r];
+            }
+        }
+        return adjacency;
+    }
+
+    private static void fitWithinBounds( final InternalNode[] nodes, final double[] x, final double[] y,
+            final double boundsX, final double boundsY, final double boundsWidth, final double boundsHeight )
+    {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        double maxWidth = 0;
+        double maxHeight = 0;
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            minX = Math.min( minX, x[i] );
+            minY = Math.min( minY, y[i] );
+            maxX = Math.max( maxX, x[i] );
+            maxY = Math.max( maxY, y[i] );
+            maxWidth = Math.max( maxWidth, nodes[i].getInternalWidth() );
+            maxHeight = Math.max( maxHeight, nodes[i].getInternalHeight() );
+        }
+        double width = Math.max( boundsWidth - maxWidth, 1 );
+        double height = Math.max( boundsHeight - maxHeight, 1 );
+        double scale = Math.min( width / Math.max( maxX - minX, 1 ), height / Math.max( maxY - minY, 1 ) );
+        double offsetX = boundsX + maxWidth / 2 + ( width - ( maxX - minX ) * scale ) / 2;
+        double offsetY = boundsY + maxHeight / 2 + ( height - ( maxY - minY ) * scale ) / 2;
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            InternalNode node = nodes[i];
+            node.setInternalLocation( offsetX + ( x[i] - minX ) * scale - node.getInternalWidth() / 2,
+                    offsetY + ( y[i] - minY ) * scale - node.getInternalHeight() / 2 );
+        }
+    }
+
+    @Override
+    protected int getCurrentLayoutStep()
+    {
+        return currentStep;
+    }
+
+    @Override
+    protected int getTotalNumberOfLayoutSteps()
+    {
+        return totalSteps;
+    }
+
+    @Override
+    protected boolean isValidConfiguration( final boolean asynchronous, final boolean continuous )
+    {
+        return !continuous;
+    }
+
+    @Override
+    protected void preLayoutAlgorithm( final InternalNode[] entitiesToLayout,
+            final InternalRelationship[] relationshipsToConsider, final double x, final double y,
+            final double width, final double height )
+    {
+        currentStep = 0;
+    }
+
+    @Override
+    protected void postLayoutAlgorithm( final InternalNode[] entitiesToLayout,
+            final InternalRelationship[] relationshipsToConsider )
+    {
+    }
+
+    @Override
+    public void setLayoutArea( final double x, final double y, final double width, final double height )
+    {
+    }
+}
@@ -18,15 +18,12 @@
  */
 package org.neo4j.neoclipse.view;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
-
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.graphdb.GraphCallable;
+import org.neo4j.neoclipse.util.LongArrayList;
 
 /**
  * Keep track of browsing history and preserve states.
@@ -36,83 +33,14 @@ import org.neo4j.neoclipse.graphdb.GraphCallable;
 public class BrowserHistory
 {
     /**
-     * A list of browser states.
+     * The ids of the starting nodes of the browser states.
      */
-    private final List<BrowserState> states = new LinkedList<BrowserState>();
+    private final LongArrayList states = new LongArrayList();
     /**
      * Position of last added item.
      */
     private Integer position = null;
 
-    /**
-     * Class to save one browser state.
-     */
-    private static class BrowserState
-    {
-        /**
-         * Id of current node in state.
-         */
-        private final long id;
-
-        /**
-         * Create a state.
-         * 
-         * @param node the starting point of this state
-         */
-        BrowserState( final Node node )
-        {
-            id = node.getId();
-        }
-
-        /**
-         * Get starting node of this state.
-         * 
-         * @return starting node or null if it doesn't exist any more
-         */
-        Node getNode()
-        {
-            try
-            {
-                return Activator.getDefault().getGraphDbServiceManager().submitTask(
-                        new GraphCallable<Node>()
-                        {
-                            @Override
-                            public Node call( final GraphDatabaseService graphDb )
-                            {
-                                if ( graphDb != null )
-                                {
-                                    try
-                                    {
-                                        return graphDb.getNodeById( id );
-                                    }
-                                    catch ( NotFoundException e )
-                                    {
-                                        return null;
-                                    }
-                                }
-                                return null;
-                            }
-                        }, "get starting node of state" ).get();
-            }
-            catch ( Exception e )
-            {
-                ErrorMessage.showDialog( "Create relationship(s)", e );
-            }
-            return null;
-        }
-
-        boolean isWrappingNode( final Node node )
-        {
-            return node.getId() == id;
-        }
-
-        @Override
-        public String toString()
-        {
-            return String.valueOf( id );
-        }
-    }
-
     /**
      * Move backwards in history.
      * 
@@ -173,7 +101,35 @@ public class BrowserHistory
      */
     private Node getNode( final int pos )
     {
-        return states.get( pos ).getNode();
+        final long id = states.get( pos );
+        try
+        {
+            return Activator.getDefault().getGraphDbServiceManager().submitReadTask(
+                    new GraphCallable<Node>()
+                    {
+                        @Override
+                        public Node call( final GraphDatabaseService graphDb )
+                        {
+                            if ( graphDb != null )
+                            {
+                                try
+                                {
+                                    return graphDb.getNodeById( id );
+                                }
+                                catch ( NotFoundException e )
+                                {
+                                    return null;
+                                }
+                            }
+                            return null;
+                        }
+                    }, "get starting node of state" ).get();
+        }
+        catch ( Exception e )
+        {
+            ErrorMessage.showDialog( "Create relationship(s)", e );
+        }
+        return null;
     }
 
     /**
@@ -210,16 +166,15 @@ public class BrowserHistory
                     "Node in history can't be null." );
         }
         if ( position != null && position < states.size()
-             && states.get( position ).isWrappingNode( node ) )
+             && states.get( position ) == node.getId() )
         {
             return;
         }
-        if ( hasNext() && node.equals( fetchNext() ) )
+        if ( hasNext() && states.get( position + 1 ) == node.getId() )
         {
             position++;
             return;
         }
-        BrowserState state = new BrowserState( node );
         // clear rest of list before adding
         if ( position == null )
         {
@@ -228,15 +183,10 @@ public class BrowserHistory
         position++;
         if ( states.size() > position && position >= 0 )
         {
-            ListIterator<BrowserState> iter = states.listIterator( position );
-            while ( iter.hasNext() )
-            {
-                iter.next();
-                iter.remove();
-            }
+            states.truncate( position );
             position = states.size();
         }
-        states.add( state );
+        states.add( node.getId() );
     }
 
     public void clear()
@@ -0,0 +1,254 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import org.eclipse.swt.widgets.Display;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphCallable;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+
+/**
+ * Coalesces refresh requests of the graph view. Requests arriving within one
+ * frame are merged and the graph content is computed in a read task, one
+ * computation at a time. Requests made while a computation runs are merged
+ * into a follow-up computation, and only the latest model is applied to the
+ * viewer, so the UI thread never waits for the database.
+ */
+class GraphRefreshScheduler
+{
+    /**
+     * Time to collect requests before computing the content.
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    private final NeoGraphViewPart view;
+    private final NeoGraphContentProvider contentProvider;
+    private final Object lock = new Object();
+    // requests not yet picked up by a computation
+    private boolean scheduled = false;
+    private boolean updateLabels = false;
+    private boolean applyLayout = false;
+    // input requested but not yet shown, every computation uses it
+    private Node requestedInput = null;
+    // a computation is running, and requests arrived meanwhile
+    private boolean computing = false;
+    private boolean followUp = false;
+    // flags of computations skipped in favor of a later one
+    private boolean skippedUpdateLabels = false;
+    private boolean skippedApplyLayout = false;
+
+    private final Runnable start = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            startComputation();
+        }
+    };
+
+    GraphRefreshScheduler( final NeoGraphViewPart view,
+            final NeoGraphContentProvider contentProvider )
+    {
+        this.view = view;
+        this.contentProvider = contentProvider;
+    }
+
+    /**
+     * Requests a refresh of the current input.
+     */
+    void refresh( final boolean updateLabels, final boolean applyLayout )
+    {
+        synchronized ( lock )
+        {
+            this.updateLabels |= updateLabels;
+            this.applyLayout |= applyLayout;
+        }
+        schedule();
+    }
+
+    /**
+     * Requests a new input node; replaces earlier pending inputs.
+     */
+    void setInput( final Node node )
+    {
+        synchronized ( lock )
+        {
+            requestedInput = node;
+        }
+        schedule();
+    }
+
+    private void schedule()
+    {
+        synchronized ( lock )
+        {
+            if ( computing )
+            {
+                followUp = true;
+                return;
+            }
+            if ( scheduled )
+            {
+                return;
+            }
+            scheduled = true;
+        }
+        UiHelper.asyncExec( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Display.getCurrent().timerExec( FRAME_MILLIS, start );
+            }
+        } );
+    }
+
+    /**
+     * Picks up the pending requests, must run in the UI thread.
+     */
+    private void startComputation()
+    {
+        final boolean labels;
+        final boolean layout;
+        final Node input;
+        synchronized ( lock )
+        {
+            scheduled = false;
+            if ( computing )
+            {
+                followUp = true;
+                return;
+            }
+            labels = updateLabels;
+            layout = applyLayout;
+            input = requestedInput;
+            updateLabels = false;
+            applyLayout = false;
+            computing = true;
+        }
+        final Node node = input != null ? input : view.getInputNode();
+        GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        if ( view.getViewer().getControl().isDisposed() || node == null || gsm == null
+             || !gsm.isRunning() )
+        {
+            apply( input, node, null, labels, layout );
+            return;
+        }
+        try
+        {
+            gsm.submitReadTask( new GraphCallable<Boolean>()
+            {
+                @Override
+                public Boolean call( final GraphDatabaseService graphDb )
+                {
+                    Object[] computed = null;
+                    try
+                    {
+                        computed = contentProvider.computeElements( node, graphDb );
+                    }
+                    finally
+                    {
+                        final Object[] elements = computed;
+                        UiHelper.asyncExec( new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                apply( input, node, elements, labels, layout );
+                            }
+                        } );
+                    }
+                    return true;
+                }
+            }, "compute graph content" );
+        }
+        catch ( RuntimeException e )
+        {
+            apply( input, node, null, labels, layout );
+            throw e;
+        }
+    }
+
+    /**
+     * Applies a computed model to the viewer, unless more requests arrived
+     * while it was computed; then a follow-up computation is started instead.
+     * Runs in the UI thread.
+     */
+    private void apply( final Node input, final Node node, final Object[] elements,
+            final boolean labels, final boolean layout )
+    {
+        boolean skip;
+        boolean allLabels = labels;
+        boolean anyLayout = layout;
+        synchronized ( lock )
+        {
+            computing = false;
+            skip = followUp;
+            if ( skip )
+            {
+                followUp = false;
+                skippedUpdateLabels |= labels;
+                skippedApplyLayout |= layout;
+            }
+            else
+            {
+                allLabels |= skippedUpdateLabels;
+                anyLayout |= skippedApplyLayout;
+                skippedUpdateLabels = false;
+                skippedApplyLayout = false;
+                if ( input != null && input == requestedInput )
+                {
+                    requestedInput = null;
+                }
+            }
+        }
+        if ( skip )
+        {
+            schedule();
+        }
+        else
+        {
+            applyModel( input, node, elements, allLabels, anyLayout );
+        }
+    }
+
+    private void applyModel( final Node input, final Node node, final Object[] elements,
+            final boolean labels, final boolean layout )
+    {
+        if ( view.getViewer().getControl().isDisposed() )
+        {
+            return;
+        }
+        if ( elements != null )
+        {
+            contentProvider.offerElements( node, elements );
+        }
+        if ( input != null )
+        {
+            view.applyInput( input );
+        }
+        else
+        {
+            view.applyRefresh( labels );
+        }
+        view.applyLayout( layout );
+    }
+}
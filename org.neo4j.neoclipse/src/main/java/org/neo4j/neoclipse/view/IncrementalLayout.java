@@ -0,0 +1,392 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.zest.core.widgets.Graph;
+import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphNode;
+
+/**
+ * Places the nodes that appeared since the last layout next to their already
+ * placed neighbors, and leaves all other nodes where they are. The positions
+ * are computed by a bounded number of force directed iterations that only
+ * move the new nodes, in a background thread. The layout is computed from a
+ * snapshot taken in the UI thread, and applied in the UI thread unless the
+ * graph changed meanwhile.
+ */
+class IncrementalLayout
+{
+    /**
+     * Preferred distance between connected nodes, in pixels.
+     */
+    static final double IDEAL_LENGTH = 80;
+    /**
+     * Number of relaxation iterations per layout.
+     */
+    static final int ITERATIONS = 60;
+    private static final double GOLDEN_ANGLE = Math.PI * ( 3 - Math.sqrt( 5 ) );
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Runnable moved;
+    // the rest is only accessed in the UI thread
+    private final Set<Object> placed = new HashSet<Object>();
+    private int generation = 0;
+
+    /**
+     * @param moved called in the UI thread after new nodes were placed
+     */
+    IncrementalLayout( final Runnable moved )
+    {
+        this.moved = moved;
+    }
+
+    /**
+     * Remembers all shown nodes as placed, for example after a full layout.
+     * Runs in the UI thread.
+     */
+    void remember( final Graph graph )
+    {
+        generation++;
+        placed.clear();
+        for ( Object item : graph.getNodes() )
+        {
+            placed.add( ( (GraphNode) item ).getData() );
+        }
+    }
+
+    /**
+     * Starts placing the nodes that aren't placed yet. Runs in the UI thread.
+     * 
+     * @return false if none of the shown nodes is placed, so that a full
+     *         layout is needed
+     */
+    boolean layoutNewNodes( final Graph graph )
+    {
+        generation++;
+        List<?> items = graph.getNodes();
+        final int count = items.size();
+        final GraphNode[] nodes = new GraphNode[count];
+        final double[] x = new double[count];
+        final double[] y = new double[count];
+        final boolean[] pinned = new boolean[count];
+        Map<GraphNode, Integer> index = new HashMap<GraphNode, Integer>();
+        int pinnedCount = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            GraphNode node = (GraphNode) items.get( i );
+            nodes[i] = node;
+            index.put( node, Integer.valueOf( i ) );
+            Point location = node.getLocation();
+            Dimension size = node.getSize();
+            x[i] = location.x + size.width / 2.0;
+            y[i] = location.y + size.height / 2.0;
+            pinned[i] = placed.contains( node.getData() );
+            if ( pinned[i] )
+            {
+                pinnedCount++;
+            }
+        }
+        if ( pinnedCount == 0 )
+        {
+            return count == 0;
+        }
+        placed.clear();
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( pinned[i] )
+            {
+                placed.add( nodes[i].getData() );
+            }
+        }
+        if ( pinnedCount == count )
+        {
+            return true;
+        }
+        final int[][] adjacency = adjacency( graph.getConnections(), index, count );
+        final int started = generation;
+        try
+        {
+            executor.execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    seed( x, y, pinned, adjacency );
+                    relax( x, y, pinned, adjacency, ITERATIONS );
+                    UiHelper.asyncExec( new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            apply( started, nodes, x, y, pinned );
+                        }
+                    } );
+                }
+            } );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            // disposed
+        }
+        return true;
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    void dispose()
+    {
+        executor.shutdownNow();
+    }
+
+    private void apply( final int started, final GraphNode[] nodes, final double[] x, final double[] y,
+            final boolean[] pinned )
+    {
+        if ( started != generation )
+        {
+            // the graph has changed, the next layout places these nodes
+            return;
+        }
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            GraphNode node = nodes[i];
+            if ( pinned[i] || node.isDisposed() )
+            {
+                continue;
+            }
+            Dimension size = node.getSize();
+            node.setLocation( x[i] - size.width / 2.0, y[i] - size.height / 2.0 );
+            placed.add( node.getData() );
+        }
+        moved.run();
+    }
+
+    private static int[][] adjacency( final List<?> connections, final Map<GraphNode, Integer> index,
+            final int count )
+    {
+        List<List<Integer>> lists = new ArrayList<List<Integer>>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            lists.add( new ArrayList<Integer>( 4 ) );
+        }
+        for ( Object item : connections )
+        {
+            GraphConnection connection = (GraphConnection) item;
+            Integer source = index.get( connection.getSource() );
+            Integer destination = index.get( connection.getDestination() );
+            if ( source != null && destination != null && !source.equals( destination ) )
+            {
+                lists.get( source.intValue() ).add( destination );
+                lists.get( destination.intValue() ).add( source );
+            }
+        }
+        int[][] adjacency = new int[count][];
+        for ( int i = 0; i < count; i++ )
+        {
+            List<Integer> list = lists.get( i );
+            adjacency[i] = new int[list.size()];
+            for ( int j = 0; j < adjacency[i].length; j++ )
+            {
+                adjacency[i][j] = list.get( j ).intValue();
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * Gives every new node a start position: around the center of its
+     * positioned neighbors, reached breadth first from the pinned nodes. Nodes
+     * not connected to any pinned node start in a row below the pinned ones.
+     */
+    static void seed( final double[] x, final double[] y, final boolean[] pinned, final int[][] adjacency )
+    {
+        int count = x.length;
+        boolean[] positioned = pinned.clone();
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        double minX = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( pinned[i] )
+            {
+                queue[tail++] = i;
+                minX = Math.min( minX, x[i] );
+                maxY = Math.max( maxY, y[i] );
+            }
+        }
+        int placedCount = 0;
+        int strayCount = 0;
+        while ( true )
+        {
+            while ( head < tail )
+            {
+                int from = queue[head++];
+                for ( int to : adjacency[from] )
+                {
+                    if ( positioned[to] )
+                    {
+                        continue;
+                    }
+                    double sumX = 0;
+                    double sumY = 0;
+                    int neighbors = 0;
+                    for ( int other : adjacency[to] )
+                    {
+                        if ( positioned[other] )
+                        {
+                            sumX += x[other];
+                            sumY += y[other];
+                            neighbors++;
+                        }
+                    }
+                    double angle = GOLDEN_ANGLE * placedCount++;
+                    x[to] = sumX / neighbors + IDEAL_LENGTH * Math.cos( angle );
+                    y[to] = sumY / neighbors + IDEAL_LENGTH * Math.sin( angle );
+                    positioned[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+            int stray = -1;
+            for ( int i = 0; i < count && stray == -1; i++ )
+            {
+                if ( !positioned[i] )
+                {
+                    stray = i;
+                }
+            }
+            if ( stray == -1 )
+            {
+                return;
+            }
+            x[stray] = minX + IDEAL_LENGTH * strayCount++;
+            y[stray] = maxY + 2 * IDEAL_LENGTH;
+            positioned[stray] = true;
+            queue[tail++] = stray;
+        }
+    }
+
+    /**
+     * Moves the nodes that aren't pinned: connected nodes attract each other
+     * towards the ideal length, and nodes closer than twice that repel each
+     * other. Close nodes are found through a grid, so an iteration costs time
+     * linear in the number of nodes. The step size shrinks every iteration.
+     */
+    static void relax( final double[] x, final double[] y, final boolean[] pinned, final int[][] adjacency,
+            final int iterations )
+    {
+        int count = x.length;
+        double cell = 2 * IDEAL_LENGTH;
+        double[] dx = new double[count];
+        double[] dy = new double[count];
+        Map<Long, List<Integer>> grid = new HashMap<Long, List<Integer>>();
+        for ( int iteration = 0; iteration < iterations; iteration++ )
+        {
+            grid.clear();
+            for ( int i = 0; i < count; i++ )
+            {
+                Long key = cellKey( (int) Math.floor( x[i] / cell ), (int) Math.floor( y[i] / cell ) );
+                List<Integer> members = grid.get( key );
+                if ( members == null )
+                {
+                    members = new ArrayList<Integer>( 4 );
+                    grid.put( key, members );
+                }
+                members.add( Integer.valueOf( i ) );
+            }
+            for ( int i = 0; i < count; i++ )
+            {
+                dx[i] = 0;
+                dy[i] = 0;
+                if ( pinned[i] )
+                {
+                    continue;
+                }
+                int cellX = (int) Math.floor( x[i] / cell );
+                int cellY = (int) Math.floor( y[i] / cell );
+                for ( int gx = cellX - 1; gx <= cellX + 1; gx++ )
+                {
+                    for ( int gy = cellY - 1; gy <= cellY + 1; gy++ )
+                    {
+                        List<Integer> members = grid.get( cellKey( gx, gy ) );
+                        if ( members == null )
+                        {
+                            continue;
+                        }
+                        for ( Integer member : members )
+                        {
+                            int j = member.intValue();
+                            if ( j == i )
+                            {
+                                continue;
+                            }
+                            double ex = x[i] - x[j];
+                            double ey = y[i] - y[j];
+                            double distance = Math.max( Math.sqrt( ex * ex + ey * ey ), 1 );
+                            if ( distance < cell )
+                            {
+                                double force = IDEAL_LENGTH * IDEAL_LENGTH / distance;
+                                dx[i] += ex / distance * force;
+                                dy[i] += ey / distance * force;
+                            }
+                        }
+                    }
+                }
+                for ( int j : adjacency[i] )
+                {
+                    double ex = x[j] - x[i];
+                    double ey = y[j] - y[i];
+                    double distance = Math.max( Math.sqrt( ex * ex + ey * ey ), 1 );
+                    double force = distance * distance / IDEAL_LENGTH;
+                    dx[i] += ex / distance * force;
+                    dy[i] += ey / distance * force;
+                }
+            }
+            double temperature = IDEAL_LENGTH * ( 1 - (double) iteration / iterations );
+            for ( int i = 0; i < count; i++ )
+            {
+                double length = Math.sqrt( dx[i] * dx[i] + dy[i] * dy[i] );
+                if ( length > 0 )
+                {
+                    double step = Math.min( length, temperature );
+                    x[i] += dx[i] / length * step;
+                    y[i] += dy[i] / length * step;
+                }
+            }
+        }
+    }
+
+    private static Long cellKey( final int cellX, final int cellY )
+    {
+        return Long.valueOf( ( (long) cellX << 32 ) ^ ( cellY & 0xffffffffL ) );
+    }
+}
@@ -18,27 +18,31 @@
  */
 package org.neo4j.neoclipse.view;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.zest.core.viewers.IGraphEntityRelationshipContentProvider;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.neoclipse.Activator;
-import org.neo4j.neoclipse.graphdb.DefaultTraverser;
+import org.neo4j.neoclipse.graphdb.EdgeIndex;
 import org.neo4j.neoclipse.graphdb.GraphCallable;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.graphdb.TraversalStrategies;
 import org.neo4j.neoclipse.graphdb.TraversalStrategy;
 import org.neo4j.neoclipse.preference.Preferences;
 import org.neo4j.neoclipse.reltype.DirectedRelationship;
-import org.neo4j.neoclipse.reltype.RelationshipTypeHashSet;
 import org.neo4j.neoclipse.reltype.RelationshipTypesProvider;
 import org.neo4j.neoclipse.reltype.RelationshipTypesProviderWrapper;
+import org.neo4j.neoclipse.util.LongHashSet;
 
 /**
  * Provides the elements that must be displayed in the graph.
@@ -48,6 +52,18 @@ import org.neo4j.neoclipse.reltype.RelationshipTypesProviderWrapper;
 public class NeoGraphContentProvider implements
         IGraphEntityRelationshipContentProvider
 {
+    /**
+     * How many more nodes than shown are traversed when sibling leaves are
+     * grouped and the node limit was reached, so that a large hub doesn't use
+     * it up.
+     */
+    private static final int CLUSTER_FETCH_FACTOR = 4;
+    /**
+     * How many nodes close to the start node are decorated right away, the
+     * others are decorated when they are scrolled into sight.
+     */
+    private static final int DECORATE_AHEAD = 100;
+    private static final Object[] NO_RELATIONSHIPS = new Object[] {};
     /**
      * Limit the number of nodes returned.
      */
@@ -56,10 +72,23 @@ public class NeoGraphContentProvider implements
      * The view.
      */
     protected NeoGraphViewPart view;
-    private final TraversalStrategy traverser = new DefaultTraverser();
-    // private final TraversalStrategy traverser = new DefaultTraverser();
-    private final Set<RelationshipType> relTypes = new RelationshipTypeHashSet();
+    private volatile TraversalStrategies strategy;
+    private volatile TraversalStrategy traverser;
     private final IPreferenceStore preferenceStore;
+    /**
+     * Content computed ahead by the refresh scheduler, and its input.
+     */
+    private Object offeredInput;
+    private Object[] offeredElements;
+    /**
+     * Clusters the user opened, kept until the input node changes.
+     */
+    private final Set<NodeCluster> expanded = new HashSet<NodeCluster>();
+    private long expandedStart = -1;
+    /**
+     * The relationships to the members loaded for the opened clusters.
+     */
+    private volatile EdgeIndex memberEdges = EdgeIndex.EMPTY;
 
     /**
      * The constructor.
@@ -67,6 +96,8 @@ public class NeoGraphContentProvider implements
     public NeoGraphContentProvider( final NeoGraphViewPart view )
     {
         this.view = view;
+        strategy = view.getTraversalStrategy();
+        traverser = strategy.create();
         preferenceStore = Activator.getDefault().getPreferenceStore();
     }
 
@@ -76,33 +107,48 @@ public class NeoGraphContentProvider implements
     @Override
     public Object[] getRelationships( final Object source, final Object dest )
     {
-        if ( source == null || dest == null )
+        if ( dest instanceof NodeCluster )
         {
-            return new Object[] {};
+            return clusterEdge( (NodeCluster) dest, source, Direction.OUTGOING );
         }
-        final Node start = (Node) source;
-        final Node end = (Node) dest;
-        try
+        if ( source instanceof NodeCluster )
         {
-            return Activator.getDefault().getGraphDbServiceManager().submitTask(
-                    new Callable<Object[]>()
-                    {
-                        @Override
-                        public Object[] call() throws Exception
-                        {
-                            return traverser.getRelationships( start, end ).toArray();
-                        }
-                    }, "find rels" ).get();
+            return clusterEdge( (NodeCluster) source, dest, Direction.INCOMING );
         }
-        catch ( InterruptedException e )
+        if ( !( source instanceof Node ) || !( dest instanceof Node ) )
         {
-            e.printStackTrace();
+            return NO_RELATIONSHIPS;
         }
-        catch ( ExecutionException e )
+        // the edge set was collected by the traversal that produced the
+        // nodes, so this is a map lookup and not a database task
+        Collection<Relationship> rels = traverser.getRelationships( (Node) source, (Node) dest );
+        if ( rels.isEmpty() )
         {
-            e.printStackTrace();
+            rels = memberEdges.get( (Node) source, (Node) dest );
+        }
+        return rels.toArray();
+    }
+
+    private static Object[] clusterEdge( final NodeCluster cluster, final Object other,
+            final Direction direction )
+    {
+        if ( cluster.getDirection() == direction && other instanceof Node
+             && ( (Node) other ).getId() == cluster.getAnchor().getId() )
+        {
+            return new Object[] { cluster.getEdge() };
+        }
+        return NO_RELATIONSHIPS;
+    }
+
+    /**
+     * Shows the members of a cluster node by node from the next refresh on.
+     */
+    void expand( final NodeCluster cluster )
+    {
+        synchronized ( expanded )
+        {
+            expanded.add( cluster );
         }
-        return new Object[] {};
     }
 
     /**
@@ -115,6 +161,16 @@ public class NeoGraphContentProvider implements
         {
             return new Node[] {};
         }
+        synchronized ( this )
+        {
+            if ( offeredInput == inputElement )
+            {
+                Object[] elements = offeredElements;
+                offeredInput = null;
+                offeredElements = null;
+                return elements;
+            }
+        }
         final Node node = (Node) inputElement;
         GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
         if ( gsm == null || !gsm.isRunning() )
@@ -123,7 +179,7 @@ public class NeoGraphContentProvider implements
         }
         try
         {
-            return gsm.submitTask( new GraphCallable<Object[]>()
+            return gsm.submitReadTask( new GraphCallable<Object[]>()
             {
                 @Override
                 public Object[] call( final GraphDatabaseService graphDb )
@@ -143,6 +199,26 @@ public class NeoGraphContentProvider implements
         return new Node[] { node };
     }
 
+    /**
+     * Hands over content computed off the UI thread; the next call to
+     * {@link #getElements(Object)} for the same input returns it without
+     * touching the database.
+     */
+    synchronized void offerElements( final Object input, final Object[] elements )
+    {
+        offeredInput = input;
+        offeredElements = elements;
+    }
+
+    /**
+     * Computes the elements for an input node, to be called from a read
+     * task.
+     */
+    Object[] computeElements( final Node node, final GraphDatabaseService graphDb )
+    {
+        return getTheElements( node, graphDb );
+    }
+
     private Object[] getTheElements( final Node node,
             final GraphDatabaseService graphDb )
     {
@@ -159,18 +235,77 @@ public class NeoGraphContentProvider implements
             // there can't be any relationships ...
             return new Node[] { node };
         }
-        Object[] relDirListArray = relDirList.toArray();
-        relTypes.clear();
-        for ( Object o : relDirListArray )
+        final int depth = view.getTraversalDepth();
+        int max = preferenceStore.getInt( Preferences.MAX_NODES );
+        int clusterSize = preferenceStore.getInt( Preferences.CLUSTER_SIZE );
+        if ( strategy != view.getTraversalStrategy() )
+        {
+            strategy = view.getTraversalStrategy();
+            traverser = strategy.create();
+        }
+        Collection<Node> nodes = traverser.getNodes( node, relDirList,
+                depth, max, nsm );
+        memberEdges = EdgeIndex.EMPTY;
+        if ( clusterSize <= 0 )
+        {
+            view.getLabelProvider().refreshDecorations( nodes,
+                    traverser.getRelationships(), DECORATE_AHEAD );
+            return nodes.toArray();
+        }
+        int fetched = max;
+        if ( nodes.size() >= max )
         {
-            if ( o instanceof RelationshipType )
+            // only a full view can hide a hub, look further to find it
+            fetched = max * CLUSTER_FETCH_FACTOR;
+            nodes = traverser.getNodes( node, relDirList, depth, fetched, nsm );
+        }
+        List<Object> elements;
+        List<NodeCluster> opened = new ArrayList<NodeCluster>();
+        synchronized ( expanded )
+        {
+            if ( expandedStart != node.getId() )
             {
-                relTypes.add( (RelationshipType) o );
+                expanded.clear();
+                expandedStart = node.getId();
             }
+            elements = NodeCluster.collapse( node, nodes,
+                    traverser.getRelationships(), clusterSize,
+                    nodes.size() < fetched, expanded, opened );
         }
-        final int depth = view.getTraversalDepth();
-        int max = preferenceStore.getInt( Preferences.MAX_NODES );
-        return traverser.getNodes( node, relDirList, depth, max, nsm ).toArray();
+        if ( elements.size() > max )
+        {
+            elements = new ArrayList<Object>( elements.subList( 0, max ) );
+        }
+        LongHashSet shownIds = new LongHashSet( elements.size() );
+        List<Node> shown = new ArrayList<Node>( elements.size() );
+        for ( Object element : elements )
+        {
+            if ( element instanceof Node )
+            {
+                shown.add( (Node) element );
+                shownIds.add( ( (Node) element ).getId() );
+            }
+        }
+        // opened clusters are shown in full, up to one node limit each
+        List<Relationship> loadedRels = new ArrayList<Relationship>();
+        for ( NodeCluster cluster : opened )
+        {
+            if ( shownIds.contains( cluster.getAnchor().getId() ) )
+            {
+                List<Node> members = cluster.loadMembers( shownIds, max, loadedRels );
+                shown.addAll( members );
+                elements.addAll( members );
+            }
+        }
+        List<Relationship> rels = new ArrayList<Relationship>( traverser.getRelationships() );
+        if ( !loadedRels.isEmpty() )
+        {
+            memberEdges = EdgeIndex.fromRelationships( shown, loadedRels );
+            rels.addAll( loadedRels );
+        }
+        view.getLabelProvider().refreshDecorations( shown, rels,
+                DECORATE_AHEAD );
+        return elements.toArray();
     }
 
     @Override
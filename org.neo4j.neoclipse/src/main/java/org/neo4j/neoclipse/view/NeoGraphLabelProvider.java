@@ -18,9 +18,10 @@
  */
 package org.neo4j.neoclipse.view;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Preferences.PropertyChangeEvent;
@@ -40,21 +41,22 @@ import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.zest.core.viewers.IConnectionStyleProvider;
 import org.eclipse.zest.core.widgets.ZestStyles;
 import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.neoclipse.Activator;
 import org.neo4j.neoclipse.Icons;
+import org.neo4j.neoclipse.decorate.DecorationSnapshot;
+import org.neo4j.neoclipse.decorate.DecorationSnapshot.NodeDecoration;
 import org.neo4j.neoclipse.decorate.SimpleGraphDecorator;
 import org.neo4j.neoclipse.decorate.SimpleGraphDecorator.Settings;
 import org.neo4j.neoclipse.decorate.SimpleGraphDecorator.ViewSettings;
-import org.neo4j.neoclipse.graphdb.GraphCallable;
 import org.neo4j.neoclipse.preference.DecoratorPreferences;
 import org.neo4j.neoclipse.reltype.DirectedRelationship;
 import org.neo4j.neoclipse.reltype.NodeIconUtil;
 import org.neo4j.neoclipse.reltype.RelationshipTypeControl;
 import org.neo4j.neoclipse.reltype.RelationshipTypeEditingSupport;
+import org.neo4j.neoclipse.util.LongHashSet;
 
 /**
  * Provides the labels for graph elements.
@@ -81,14 +83,29 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
     /**
      * Marked relationships.
      */
-    private final Set<Relationship> markedRels = new HashSet<Relationship>();
+    private final LongHashSet markedRels = new LongHashSet();
     /**
      * Marked nodes.
      */
-    private final Set<Node> markedNodes = new HashSet<Node>();
+    private final LongHashSet markedNodes = new LongHashSet();
     private static final Image CHECKED = Icons.CHECKED.image();
     private static final Image UNCHECKED = Icons.UNCHECKED.image();
     private Node inputNode = null;
+    /**
+     * Decorations of the elements currently in the graph view.
+     */
+    private volatile DecorationSnapshot snapshot = DecorationSnapshot.EMPTY;
+    /**
+     * Ids of the nodes and relationships in the graph view. These are only
+     * decorated when they come into sight, until then they get placeholders.
+     */
+    private volatile LongHashSet graphNodes = new LongHashSet();
+    private volatile LongHashSet graphRels = new LongHashSet();
+    /**
+     * Labels and icons of the graph view are hidden, as it's zoomed out too
+     * far for them to be readable.
+     */
+    private volatile boolean labelsHidden = false;
 
     public NeoGraphLabelProvider()
     {
@@ -128,23 +145,131 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
      */
     private boolean isReferenceNode( final Node node )
     {
-        try
+        return graphDecorator.isReferenceNode( node );
+    }
+
+    /**
+     * Set the elements that are about to be shown in the graph view. Only the
+     * first nodes and the ones that were decorated before are decorated right
+     * away, the others when they come into sight. Has to be called from inside
+     * a graph task.
+     * 
+     * @param nodes the nodes that are about to be shown, in traversal order
+     * @param rels the relationships that are about to be shown
+     * @param ahead number of nodes to decorate regardless of being seen before
+     */
+    public void refreshDecorations( final Collection<Node> nodes,
+            final Collection<Relationship> rels, final int ahead )
+    {
+        LongHashSet nodeIds = new LongHashSet();
+        LongHashSet relIds = new LongHashSet();
+        List<Node> decorated = new ArrayList<Node>();
+        DecorationSnapshot previous = snapshot;
+        for ( Node node : nodes )
         {
-            return Activator.getDefault().getGraphDbServiceManager().submitTask(
-                    new GraphCallable<Boolean>()
-                    {
-                        @Override
-                        public Boolean call( final GraphDatabaseService graphDb )
-                        {
-                            return node.getId() == 0;
-                        }
-                    }, "is ref node" ).get();
+            nodeIds.add( node.getId() );
+            if ( decorated.size() < ahead || previous.contains( node ) )
+            {
+                decorated.add( node );
+            }
         }
-        catch ( Exception e )
+        for ( Relationship rel : rels )
         {
-            ErrorMessage.showDialog( "Create relationship(s)", e );
+            relIds.add( rel.getId() );
         }
-        return false;
+        DecorationSnapshot fresh = graphDecorator.createSnapshot( decorated );
+        synchronized ( this )
+        {
+            graphNodes = nodeIds;
+            graphRels = relIds;
+            snapshot = fresh;
+        }
+    }
+
+    /**
+     * Decorate nodes and relationships of the graph view that came into
+     * sight. Has to be called from inside a graph task.
+     * 
+     * @param nodes the nodes to decorate
+     * @param rels the relationships to decorate
+     */
+    public void decorate( final Collection<Node> nodes,
+            final Collection<Relationship> rels )
+    {
+        DecorationSnapshot added = graphDecorator.createSnapshot( nodes, rels );
+        synchronized ( this )
+        {
+            snapshot = snapshot.with( added );
+        }
+    }
+
+    /**
+     * Check if a node or relationship is decorated.
+     * 
+     * @param element node or relationship
+     * @return true if the element is decorated
+     */
+    public boolean isDecorated( final Object element )
+    {
+        return snapshot.contains( element );
+    }
+
+    /**
+     * Hide or show the labels and icons of the graph view.
+     * 
+     * @param hidden set true to hide them
+     */
+    public void setLabelsHidden( final boolean hidden )
+    {
+        labelsHidden = hidden;
+    }
+
+    /**
+     * Check if the labels and icons of the graph view are hidden.
+     * 
+     * @return true if hidden
+     */
+    public boolean isLabelsHidden()
+    {
+        return labelsHidden;
+    }
+
+    private boolean isInGraph( final Node node )
+    {
+        return graphNodes.contains( node.getId() );
+    }
+
+    private boolean isInGraph( final Relationship rel )
+    {
+        return graphRels.contains( rel.getId() );
+    }
+
+    /**
+     * Drop the decoration of an element, so it is read from the database next
+     * time it's needed.
+     * 
+     * @param element node or relationship
+     */
+    public void forgetDecoration( final Object element )
+    {
+        synchronized ( this )
+        {
+            snapshot = snapshot.without( element );
+        }
+        graphDecorator.invalidate( element );
+    }
+
+    /**
+     * Drop all decorations, so they are read from the database next time
+     * they're needed.
+     */
+    public void forgetDecorations()
+    {
+        synchronized ( this )
+        {
+            snapshot = DecorationSnapshot.EMPTY;
+        }
+        graphDecorator.invalidateAll();
     }
 
     /**
@@ -178,7 +303,10 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
      */
     public void addMarkedRels( final Collection<Relationship> rels )
     {
-        markedRels.addAll( rels );
+        for ( Relationship rel : rels )
+        {
+            markedRels.add( rel.getId() );
+        }
     }
 
     /**
@@ -196,7 +324,10 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
      */
     public void addMarkedNodes( final Collection<Node> nodes )
     {
-        markedNodes.addAll( nodes );
+        for ( Node node : nodes )
+        {
+            markedNodes.add( node.getId() );
+        }
     }
 
     /**
@@ -216,6 +347,22 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
         if ( element instanceof Node )
         {
             Node node = (Node) element;
+            boolean inGraph = isInGraph( node );
+            if ( inGraph && labelsHidden )
+            {
+                return null;
+            }
+            NodeDecoration decoration = snapshot.getNode( node );
+            if ( decoration != null )
+            {
+                return decoration.getImage();
+            }
+            if ( inGraph )
+            {
+                // not in sight yet, don't go to the database for it
+                return graphDecorator.getNodeImage( node,
+                        isReferenceNode( node ) );
+            }
             if ( viewSettings.isShowNodeIcons()
                     && !"".equals( settings.getNodeIconLocation() ) )
             {
@@ -240,13 +387,49 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
         if ( element instanceof Node )
         {
             Node node = (Node) element;
+            boolean inGraph = isInGraph( node );
+            if ( inGraph && labelsHidden )
+            {
+                return "";
+            }
+            NodeDecoration decoration = snapshot.getNode( node );
+            if ( decoration != null )
+            {
+                return decoration.getText();
+            }
+            if ( inGraph )
+            {
+                return "";
+            }
             return graphDecorator.getNodeText( node, isReferenceNode( node ) );
         }
         else if ( element instanceof Relationship )
         {
             Relationship rel = (Relationship) element;
+            boolean inGraph = isInGraph( rel );
+            if ( inGraph && labelsHidden )
+            {
+                return "";
+            }
+            String text = snapshot.getRelationshipText( rel );
+            if ( text != null )
+            {
+                return text;
+            }
+            if ( inGraph )
+            {
+                return "";
+            }
             return graphDecorator.getRelationshipText( rel );
         }
+        else if ( element instanceof NodeCluster.Edge )
+        {
+            return viewSettings.isShowRelationshipTypes() && !labelsHidden ? element.toString() : "";
+        }
+        else if ( element instanceof NodeCluster )
+        {
+            return labelsHidden ? "" : element.toString();
+        }
         else if ( element instanceof RelationshipTypeControl )
         {
             DirectedRelationship typeControl = (DirectedRelationship) element;
@@ -270,6 +453,10 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
     private final void refreshGraphDecorator()
     {
         graphDecorator = new SimpleGraphDecorator( settings, viewSettings );
+        synchronized ( this )
+        {
+            snapshot = DecorationSnapshot.EMPTY;
+        }
     }
 
     /**
@@ -344,7 +531,7 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
             {
                 return graphDecorator.getRelationshipColor();
             }
-            if ( markedRels.contains( rel ) )
+            if ( markedRels.contains( rel.getId() ) )
             {
                 return graphDecorator.getMarkedRelationshipColor( rel );
             }
@@ -355,6 +542,14 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
             RelationshipType relType = (RelationshipType) o;
             return graphDecorator.getRelationshipColor( relType );
         }
+        else if ( o instanceof NodeCluster.Edge )
+        {
+            if ( !viewSettings.isShowRelationshipColors() )
+            {
+                return graphDecorator.getRelationshipColor();
+            }
+            return graphDecorator.getRelationshipColor( ( (NodeCluster.Edge) o ).getCluster().getRelationshipType() );
+        }
         return null;
     }
 
@@ -366,7 +561,7 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
         {
             style |= ZestStyles.CONNECTIONS_DIRECTED;
         }
-        if ( rel instanceof Relationship && markedRels.contains( rel ) )
+        if ( rel instanceof Relationship && markedRels.contains( ( (Relationship) rel ).getId() ) )
         {
             style |= graphDecorator.getMarkedRelationshipStyle( rel );
         }
@@ -376,13 +571,17 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
     @Override
     public Color getHighlightColor( final Object rel )
     {
+        if ( !( rel instanceof Relationship ) )
+        {
+            return getColor( rel );
+        }
         return graphDecorator.getRelationshipHighlightColor( (Relationship) rel );
     }
 
     @Override
     public int getLineWidth( final Object rel )
     {
-        if ( rel instanceof Relationship && markedRels.contains( rel ) )
+        if ( rel instanceof Relationship && markedRels.contains( ( (Relationship) rel ).getId() ) )
         {
             return graphDecorator.getMarkedLineWidth();
         }
@@ -404,10 +603,19 @@ ITableLabelProvider, ITableColorProvider, InputChangeListener
     {
         if ( element instanceof Node && viewSettings.isShowNodeColors() )
         {
-            if ( markedNodes.contains( element ) )
+            if ( markedNodes.contains( ( (Node) element ).getId() ) )
             {
                 return graphDecorator.getMarkedNodeColor( (Node) element );
             }
+            NodeDecoration decoration = snapshot.getNode( (Node) element );
+            if ( decoration != null && decoration.getColor() != null )
+            {
+                return decoration.getColor();
+            }
+            if ( isInGraph( (Node) element ) )
+            {
+                return graphDecorator.getNodeColor();
+            }
             return graphDecorator.getNodeColor( (Node) element );
         }
         return null;
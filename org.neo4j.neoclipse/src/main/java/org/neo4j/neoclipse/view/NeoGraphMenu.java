@@ -65,6 +65,8 @@ import org.neo4j.neoclipse.action.decorate.rel.ShowRelationshipIdsAction;
 import org.neo4j.neoclipse.action.decorate.rel.ShowRelationshipLabelAction;
 import org.neo4j.neoclipse.action.decorate.rel.ShowRelationshipPropertyKeysAction;
 import org.neo4j.neoclipse.action.decorate.rel.ShowRelationshipTypesAction;
+import org.neo4j.neoclipse.action.layout.IncrementalLayoutAction;
+import org.neo4j.neoclipse.action.layout.ShowBarnesHutLayoutAction;
 import org.neo4j.neoclipse.action.layout.ShowGridLayoutAction;
 import org.neo4j.neoclipse.action.layout.ShowHorizontalShiftLayoutAction;
 import org.neo4j.neoclipse.action.layout.ShowHorizontalTreeLayoutAction;
@@ -75,11 +77,13 @@ import org.neo4j.neoclipse.action.reltype.NewRelationshipTypeAction;
 import org.neo4j.neoclipse.action.reltype.NewRelationshipTypeAction.NodeSpaceAction;
 import org.neo4j.neoclipse.action.view.DecreaseTraversalDepthAction;
 import org.neo4j.neoclipse.action.view.IncreaseTraversalDepthAction;
+import org.neo4j.neoclipse.action.view.SelectTraversalStrategyAction;
 import org.neo4j.neoclipse.action.view.ZoomAction;
 import org.neo4j.neoclipse.decorate.SimpleGraphDecorator.ViewSettings;
 import org.neo4j.neoclipse.event.NeoclipseEvent;
 import org.neo4j.neoclipse.event.NeoclipseEventListener;
 import org.neo4j.neoclipse.graphdb.GraphDbUtil;
+import org.neo4j.neoclipse.graphdb.TraversalStrategies;
 import org.neo4j.neoclipse.reltype.RelationshipTypeHashMap;
 import org.neo4j.neoclipse.reltype.RelationshipTypeSorter;
 import org.neo4j.neoclipse.reltype.RelationshipTypesProvider;
@@ -520,6 +524,8 @@ public class NeoGraphMenu
         contributeNavigationActions( tm );
         // recursion level actions
         contributeRecursionLevelActions( tm );
+        // traversal strategy actions
+        contributeTraversalStrategyActions( mm );
         // zoom actions
         contributeZoomActions( tm );
         // layout actions
@@ -622,6 +628,27 @@ public class NeoGraphMenu
         }
     }
 
+    /**
+     * Add traversal strategy actions to the menu.
+     * 
+     * @param mm current menu manager
+     */
+    private void contributeTraversalStrategyActions( final IMenuManager mm )
+    {
+        {
+            MenuManager traversalMenu = new MenuManager( "Traversal" );
+            traversalMenu.add( new SelectTraversalStrategyAction( Actions.BREADTH_FIRST_TRAVERSAL,
+                    TraversalStrategies.BREADTH_FIRST, graphView ) );
+            traversalMenu.add( new SelectTraversalStrategyAction( Actions.DEPTH_FIRST_TRAVERSAL,
+                    TraversalStrategies.DEPTH_FIRST, graphView ) );
+            traversalMenu.add( new SelectTraversalStrategyAction( Actions.SAMPLED_TRAVERSAL,
+                    TraversalStrategies.SAMPLED, graphView ) );
+            traversalMenu.add( new SelectTraversalStrategyAction( Actions.MOST_CONNECTED_TRAVERSAL,
+                    TraversalStrategies.MOST_CONNECTED, graphView ) );
+            mm.add( traversalMenu );
+        }
+    }
+
     /**
      * Add zoom actions to the tool bar.
      * 
@@ -672,6 +699,11 @@ public class NeoGraphMenu
             ShowHorizontalShiftLayoutAction horizontalShiftLayoutAction = new ShowHorizontalShiftLayoutAction(
                     graphView );
             mm.appendToGroup( groupName, horizontalShiftLayoutAction );
+            // Barnes-Hut layout
+            ShowBarnesHutLayoutAction barnesHutLayoutAction = new ShowBarnesHutLayoutAction( graphView );
+            mm.appendToGroup( groupName, barnesHutLayoutAction );
+            // incremental layout
+            mm.appendToGroup( groupName, new IncrementalLayoutAction( graphView, true ) );
         }
     }
 
@@ -44,6 +44,7 @@ import org.eclipse.ui.views.properties.IPropertySheetPage;
 import org.eclipse.zest.core.viewers.AbstractZoomableViewer;
 import org.eclipse.zest.core.viewers.GraphViewer;
 import org.eclipse.zest.core.viewers.IZoomableWorkbenchPart;
+import org.eclipse.zest.core.widgets.GraphItem;
 import org.eclipse.zest.layouts.LayoutStyles;
 import org.eclipse.zest.layouts.algorithms.SpringLayoutAlgorithm;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -56,13 +57,15 @@ import org.neo4j.neoclipse.event.NeoclipseEvent;
 import org.neo4j.neoclipse.event.NeoclipseEventListener;
 import org.neo4j.neoclipse.event.NeoclipseListenerList;
 import org.neo4j.neoclipse.graphdb.GraphCallable;
+import org.neo4j.neoclipse.graphdb.GraphChangeEvent;
+import org.neo4j.neoclipse.graphdb.GraphChangeListener;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEvent;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceEventListener;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceMode;
 import org.neo4j.neoclipse.graphdb.GraphDbServiceStatus;
 import org.neo4j.neoclipse.graphdb.GraphDbUtil;
-import org.neo4j.neoclipse.graphdb.GraphRunnable;
+import org.neo4j.neoclipse.graphdb.TraversalStrategies;
 import org.neo4j.neoclipse.help.HelpContextConstants;
 import org.neo4j.neoclipse.preference.Preferences;
 import org.neo4j.neoclipse.property.NeoPropertySheetPage;
@@ -98,13 +101,32 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
      * The depth how deep we should traverse into the network.
      */
     private int traversalDepth = 1;
+    /**
+     * How the network is expanded from the input node.
+     */
+    private volatile TraversalStrategies traversalStrategy = TraversalStrategies.BREADTH_FIRST;
     private final List<Node> currentSelectedNodes = new ArrayList<Node>();
     private final List<Relationship> currentSelectedRels = new ArrayList<Relationship>();
     private RelationshipTypeView relTypeView;
     private final List<InputChangeListener> listeners = new ArrayList<InputChangeListener>();
     private Node previousInputNode = null;
+    private GraphRefreshScheduler refreshScheduler;
     private final NeoclipseListenerList relColorChange = new NeoclipseListenerList();
     private NeoGraphMenu menu;
+    private final GraphChangeListener graphChangeHandler = new GraphChangeHandler();
+    private final IncrementalLayout incrementalLayout = new IncrementalLayout( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            viewportChanged();
+        }
+    } );
+    private ViewportDecorator viewportDecorator;
+    /**
+     * Keep the positions of shown nodes when the content changes.
+     */
+    private boolean incrementalLayoutEnabled = true;
     /**
      * Keep track of the current database state.
      */
@@ -168,7 +190,11 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
     {
         viewer = new GraphViewer( parent, SWT.NONE );
         viewer.setUseHashlookup( true );
-        viewer.setContentProvider( new NeoGraphContentProvider( this ) );
+        NeoGraphContentProvider contentProvider = new NeoGraphContentProvider( this );
+        viewer.setContentProvider( contentProvider );
+        refreshScheduler = new GraphRefreshScheduler( this, contentProvider );
+        viewportDecorator = new ViewportDecorator( this );
+        viewportDecorator.install( viewer.getGraphControl() );
         viewer.addDoubleClickListener( new NeoGraphDoubleClickListener() );
         viewer.setLayoutAlgorithm( new SpringLayoutAlgorithm( LayoutStyles.NO_LAYOUT_NODE_RESIZING ) );
         NeoGraphLabelProvider labelProvider = NeoGraphLabelProviderWrapper.getInstance();
@@ -179,6 +205,7 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         menu = new NeoGraphMenu( this );
         GraphDbServiceManager sm = Activator.getDefault().getGraphDbServiceManager();
         sm.addServiceEventListener( new NeoGraphServiceEventListener() );
+        sm.addGraphChangeListener( graphChangeHandler );
         getSite().setSelectionProvider( viewer );
         Activator.getDefault().getPluginPreferences().addPropertyChangeListener( new PreferenceChangeHandler() );
         PlatformUI.getWorkbench().getHelpSystem().setHelp( viewer.getControl(),
@@ -233,23 +260,11 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
     }
 
     /**
-     * Notify listeners of new input node.
+     * Notify listeners of new input node. Runs in the UI thread.
      * 
      * @param node
      */
     private void notifyListeners( final Node node )
-    {
-        Activator.getDefault().getGraphDbServiceManager().submitTask( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                notifyTheListeners( node );
-            }
-        }, "notify listeners" );
-    }
-
-    private void notifyTheListeners( final Node node )
     {
         for ( InputChangeListener listener : listeners )
         {
@@ -258,9 +273,11 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         // make sure to update only these label colors
         if ( previousInputNode != null )
         {
-            refresh( previousInputNode, true );
+            getLabelProvider().forgetDecoration( previousInputNode );
+            viewer.refresh( previousInputNode, true );
         }
-        refresh( node, true );
+        getLabelProvider().forgetDecoration( node );
+        viewer.refresh( node, true );
         previousInputNode = node;
     }
 
@@ -394,6 +411,8 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
     public void dispose()
     {
         cleanTransactionBeforeShutdown();
+        Activator.getDefault().getGraphDbServiceManager().removeGraphChangeListener( graphChangeHandler );
+        incrementalLayout.dispose();
         if ( propertySheetPage != null )
         {
             propertySheetPage.dispose();
@@ -527,10 +546,10 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         try
         {
             GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
-            gsm.submitTask( new GraphRunnable()
+            gsm.submitReadTask( new GraphCallable<Boolean>()
             {
                 @Override
-                public void run( final GraphDatabaseService graphDb )
+                public Boolean call( final GraphDatabaseService graphDb )
                 {
                     if ( graphDb != null )
                     {
@@ -544,6 +563,7 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                             showSomeNode();
                         }
                     }
+                    return true;
                 }
             }, "show node byid" );
         }
@@ -560,12 +580,13 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
     {
         try
         {
-            Activator.getDefault().getGraphDbServiceManager().submitTask( new Runnable()
+            Activator.getDefault().getGraphDbServiceManager().submitReadTask( new GraphCallable<Boolean>()
             {
                 @Override
-                public void run()
+                public Boolean call( final GraphDatabaseService graphDb )
                 {
                     setInput( node );
+                    return true;
                 }
             }, "show node" );
         }
@@ -583,14 +604,33 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         return traversalDepth;
     }
 
+    /**
+     * Returns the current traversal strategy.
+     */
+    public TraversalStrategies getTraversalStrategy()
+    {
+        return traversalStrategy;
+    }
+
+    /**
+     * Changes the traversal strategy and refreshes the view.
+     */
+    public void setTraversalStrategy( final TraversalStrategies traversalStrategy )
+    {
+        if ( this.traversalStrategy != traversalStrategy )
+        {
+            this.traversalStrategy = traversalStrategy;
+            refresh();
+        }
+    }
+
     /**
      * Increments the traversal depth.
      */
     public void incTraversalDepth()
     {
         traversalDepth++;
-        refreshViewer();
-        viewer.applyLayout();
+        refresh();
         if ( traversalDepth > 0 )
         {
             menu.setEnabledDecAction( true );
@@ -605,8 +645,7 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         if ( traversalDepth > 0 )
         {
             traversalDepth--;
-            refreshViewer();
-            viewer.applyLayout();
+            refresh();
             if ( traversalDepth < 1 )
             {
                 menu.setEnabledDecAction( false );
@@ -619,8 +658,7 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
      */
     public void refresh()
     {
-        refreshViewer();
-        viewer.applyLayout();
+        refreshScheduler.refresh( false, true );
     }
 
     /**
@@ -639,23 +677,84 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
         refresh( false );
     }
 
+    /**
+     * Requests a refresh of the whole graph. Requests are coalesced and the
+     * content is computed off the UI thread.
+     * 
+     * @param updateLabels
+     */
     public void refresh( final boolean updateLabels )
     {
-        UiHelper.asyncExec( new Runnable()
+        refreshScheduler.refresh( updateLabels, false );
+    }
+
+    /**
+     * Shows the content computed by the refresh scheduler. Runs in the UI
+     * thread.
+     * 
+     * @param updateLabels
+     */
+    void applyRefresh( final boolean updateLabels )
+    {
+        disableDelete();
+        viewer.refresh( updateLabels );
+        if ( viewer.getGraphControl().getNodes().size() == 0 )
         {
-            @Override
-            public void run()
-            {
-                disableDelete();
-                viewer.refresh( updateLabels );
-                if ( viewer.getGraphControl().getNodes().size() == 0 )
-                {
-                    // will take care of if the input node
-                    // gets deleted or disappears in a rollback
-                    showSomeNode();
-                }
-            }
-        } );
+            // will take care of if the input node
+            // gets deleted or disappears in a rollback
+            showSomeNode();
+        }
+        refreshStatusBar();
+    }
+
+    /**
+     * Lays out the graph after its content was changed by the refresh
+     * scheduler. In incremental mode only the new nodes are placed, and the
+     * full layout is kept for graphs without any placed node. Runs in the UI
+     * thread.
+     * 
+     * @param requested true if the nodes should be laid out again
+     */
+    void applyLayout( final boolean requested )
+    {
+        viewportChanged();
+        if ( incrementalLayoutEnabled && incrementalLayout.layoutNewNodes( viewer.getGraphControl() ) )
+        {
+            return;
+        }
+        if ( requested )
+        {
+            viewer.applyLayout();
+        }
+        incrementalLayout.remember( viewer.getGraphControl() );
+    }
+
+    /**
+     * Decorates the elements that came into sight, and hides or shows labels
+     * according to the zoom level. To be called after the graph was scrolled,
+     * zoomed or laid out; calls are merged. Runs in the UI thread.
+     */
+    public void viewportChanged()
+    {
+        if ( viewportDecorator != null )
+        {
+            viewportDecorator.schedule();
+        }
+    }
+
+    /**
+     * Turns the incremental layout on or off. When turned off, the layout
+     * algorithm is applied to all nodes.
+     * 
+     * @param enabled
+     */
+    public void setIncrementalLayout( final boolean enabled )
+    {
+        incrementalLayoutEnabled = enabled;
+        if ( !enabled )
+        {
+            refresh();
+        }
     }
 
     /**
@@ -678,13 +777,63 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                 }
                 else
                 {
+                    if ( updateLabels )
+                    {
+                        getLabelProvider().forgetDecoration( element );
+                    }
                     viewer.refresh( element, updateLabels );
                 }
+                viewportChanged();
                 refreshStatusBar();
             }
         } );
     }
 
+    /**
+     * Patches the view after a write. Only the shown nodes and relationships
+     * that were touched get decorated again; the content is computed again
+     * only when nodes or relationships were created or deleted. Runs in the
+     * UI thread.
+     * 
+     * @param event the change
+     */
+    void applyGraphChange( final GraphChangeEvent event )
+    {
+        if ( viewer.getControl().isDisposed() )
+        {
+            return;
+        }
+        List<Object> affected = new ArrayList<Object>();
+        collectAffected( viewer.getGraphControl().getNodes(), event, affected );
+        collectAffected( viewer.getGraphControl().getConnections(), event, affected );
+        for ( Object element : affected )
+        {
+            getLabelProvider().forgetDecoration( element );
+        }
+        if ( event.isStructural() )
+        {
+            refreshPreserveLayout();
+            return;
+        }
+        for ( Object element : affected )
+        {
+            viewer.refresh( element, true );
+        }
+        viewportChanged();
+    }
+
+    private static void collectAffected( final List<?> items, final GraphChangeEvent event, final List<Object> affected )
+    {
+        for ( Object item : items )
+        {
+            Object element = ( (GraphItem) item ).getData();
+            if ( event.affects( element ) )
+            {
+                affected.add( element );
+            }
+        }
+    }
+
     /**
      * Disable the delete action. (we need this in some places to avoid ending
      * up in an inconsistent state due to bugs in the underlying frameworks)
@@ -727,27 +876,46 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
      */
     public void setInput( final Node node )
     {
-        UiHelper.asyncExec( new Runnable()
+        if ( node == null )
         {
-            @Override
-            public void run()
+            UiHelper.asyncExec( new Runnable()
             {
-                viewer.setInput( node );
-                if ( node != null )
+                @Override
+                public void run()
                 {
-                    UiHelper.asyncExec( new Runnable()
-                    {
-                        @Override
-                        public void run()
-                        {
-                            notifyListeners( node );
-                        }
-                    } );
-                    getBrowserHistory().add( node );
+                    viewer.setInput( null );
+                    updateNavStatus();
                 }
-                updateNavStatus();
-            }
-        } );
+            } );
+            return;
+        }
+        refreshScheduler.setInput( node );
+    }
+
+    /**
+     * Shows the input node once the scheduler has computed its content.
+     * Runs in the UI thread.
+     * 
+     * @param node the node to use as input/start
+     */
+    void applyInput( final Node node )
+    {
+        viewer.setInput( node );
+        incrementalLayout.remember( viewer.getGraphControl() );
+        notifyListeners( node );
+        getBrowserHistory().add( node );
+        updateNavStatus();
+        refreshStatusBar();
+    }
+
+    /**
+     * Returns the node currently shown as input, must be called in the UI
+     * thread.
+     */
+    Node getInputNode()
+    {
+        Object input = viewer.getInput();
+        return input instanceof Node ? (Node) input : null;
     }
 
     /**
@@ -812,6 +980,7 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                 {
                     setInput( null );
                 }
+                getLabelProvider().forgetDecorations();
 
             }
             else if ( event.getStatus() == GraphDbServiceStatus.STARTED )
@@ -840,11 +1009,19 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
             }
             else if ( event.getStatus() == GraphDbServiceStatus.ROLLBACK )
             {
+                getLabelProvider().forgetDecorations();
                 refresh( true );
                 setDirty( false );
             }
             else if ( event.getStatus() == GraphDbServiceStatus.COMMIT )
             {
+                // embedded changes made behind the view's back arrive as
+                // graph change events, a remote database sends none
+                if ( Activator.getDefault().getGraphDbServiceManager().isRemote() )
+                {
+                    getLabelProvider().forgetDecorations();
+                    refresh( true );
+                }
                 setDirty( false );
             }
         }
@@ -893,6 +1070,11 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                 setInput( node );
                 refreshStatusBar();
             }
+            else if ( s instanceof NodeCluster )
+            {
+                ( (NeoGraphContentProvider) viewer.getContentProvider() ).expand( (NodeCluster) s );
+                refresh();
+            }
         }
     }
 
@@ -986,11 +1168,37 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                 @Override
                 public void run()
                 {
-                    refresh( event.getSource(), true );
                     if ( event.getPropertyName() != null )
                     {
+                        // the graph change event takes care of the view
                         setDirty( true );
                     }
+                    else
+                    {
+                        refresh( event.getSource(), true );
+                    }
+                }
+            } );
+        }
+    }
+
+    /**
+     * Class that responds to writes to the graph.
+     */
+    private class GraphChangeHandler implements GraphChangeListener
+    {
+        /**
+         * Patch the view in the UI thread.
+         */
+        @Override
+        public void graphChanged( final GraphChangeEvent event )
+        {
+            UiHelper.asyncExec( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    applyGraphChange( event );
                 }
             } );
         }
@@ -1029,6 +1237,10 @@ public class NeoGraphViewPart extends ViewPart implements IZoomableWorkbenchPart
                 sm.setGraphServiceMode( newConnectionMode );
                 // TODO refresh what needs to be refreshed here
             }
+            else if ( Preferences.LABEL_ZOOM.equals( property ) )
+            {
+                viewportChanged();
+            }
             else
             {
                 if ( NeoGraphLabelProviderWrapper.getInstance().propertyChanged( event ) )
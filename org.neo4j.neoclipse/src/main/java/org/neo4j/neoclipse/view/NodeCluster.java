@@ -0,0 +1,287 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.neoclipse.util.LongHashMap;
+import org.neo4j.neoclipse.util.LongHashSet;
+
+/**
+ * Summary node standing in for a group of sibling leaves: nodes that are
+ * connected to the shown graph only through a relationship of the same type
+ * and direction to the same node, the anchor. Two clusters are equal when
+ * they have the same anchor, type and direction, so a cluster keeps its
+ * place in the view across refreshes. Only the number of members is kept,
+ * the members themselves are loaded when the cluster is opened.
+ */
+public final class NodeCluster
+{
+    private final Node anchor;
+    private final RelationshipType relType;
+    private final Direction direction;
+    private final int size;
+    private final boolean complete;
+    private final Edge edge = new Edge();
+
+    NodeCluster( final Node anchor, final RelationshipType relType, final Direction direction,
+            final int size, final boolean complete )
+    {
+        this.anchor = anchor;
+        this.relType = relType;
+        this.direction = direction;
+        this.size = size;
+        this.complete = complete;
+    }
+
+    /**
+     * The node all members are connected to.
+     */
+    public Node getAnchor()
+    {
+        return anchor;
+    }
+
+    public RelationshipType getRelationshipType()
+    {
+        return relType;
+    }
+
+    /**
+     * Direction of the relationships as seen from the anchor.
+     */
+    public Direction getDirection()
+    {
+        return direction;
+    }
+
+    /**
+     * Number of members found by the traversal.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * False if the traversal stopped at its node limit, so there may be more
+     * members than {@link #size()}.
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * Loads the nodes at the other end of the relationships of this cluster,
+     * leaving out the ones that are already shown. Has to be called from a
+     * task that may read the database.
+     * 
+     * @param shown ids of the nodes shown already
+     * @param limit the most members to load
+     * @param rels receives the relationships to the loaded members
+     * @return the loaded members
+     */
+    List<Node> loadMembers( final LongHashSet shown, final int limit, final List<Relationship> rels )
+    {
+        List<Node> loaded = new ArrayList<Node>();
+        for ( Relationship rel : anchor.getRelationships( relType, direction ) )
+        {
+            if ( loaded.size() >= limit )
+            {
+                break;
+            }
+            Node member = rel.getOtherNode( anchor );
+            if ( shown.add( member.getId() ) )
+            {
+                loaded.add( member );
+                rels.add( rel );
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * The connection between the anchor and the summary node.
+     */
+    public Edge getEdge()
+    {
+        return edge;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( !( obj instanceof NodeCluster ) )
+        {
+            return false;
+        }
+        NodeCluster other = (NodeCluster) obj;
+        return anchor.getId() == other.anchor.getId() && direction == other.direction
+               && relType.name().equals( other.relType.name() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return ( (int) anchor.getId() * 31 + relType.name().hashCode() ) * 31 + direction.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return size + ( complete ? "" : "+" ) + " x " + relType.name();
+    }
+
+    /**
+     * Stands in for the relationships between the anchor and the members.
+     */
+    public final class Edge
+    {
+        public NodeCluster getCluster()
+        {
+            return NodeCluster.this;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            return obj instanceof Edge && ( (Edge) obj ).getCluster().equals( NodeCluster.this );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return NodeCluster.this.hashCode() + 1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return relType.name();
+        }
+    }
+
+    /**
+     * Replaces every group of at least {@code minSize} sibling leaves by a
+     * cluster, at the position of its first member. The start node is never
+     * part of a cluster. Groups the user opened are left out altogether,
+     * their members are loaded on their own.
+     * 
+     * @param start the input node of the view
+     * @param nodes the traversed nodes, in traversal order
+     * @param rels the relationships between the traversed nodes
+     * @param minSize the smallest group to collapse
+     * @param complete false if the traversal stopped at its node limit
+     * @param expanded clusters to show node by node
+     * @param opened receives the expanded clusters that were left out
+     * @return nodes and clusters
+     */
+    static List<Object> collapse( final Node start, final Collection<Node> nodes,
+            final Collection<Relationship> rels, final int minSize, final boolean complete,
+            final Set<NodeCluster> expanded, final List<NodeCluster> opened )
+    {
+        // the only relationship of every node that has exactly one
+        LongHashMap<Relationship> only = new LongHashMap<Relationship>( nodes.size() );
+        LongHashSet multiple = new LongHashSet();
+        for ( Relationship rel : rels )
+        {
+            long startId = rel.getStartNode().getId();
+            long endId = rel.getEndNode().getId();
+            if ( startId == endId )
+            {
+                multiple.add( startId );
+                continue;
+            }
+            for ( long id : new long[] { startId, endId } )
+            {
+                if ( only.put( id, rel ) != null )
+                {
+                    multiple.add( id );
+                }
+            }
+        }
+        Map<NodeCluster, List<Node>> groups = new LinkedHashMap<NodeCluster, List<Node>>();
+        Map<Node, NodeCluster> groupOf = new HashMap<Node, NodeCluster>();
+        for ( Node node : nodes )
+        {
+            long id = node.getId();
+            Relationship rel = only.get( id );
+            if ( id == start.getId() || rel == null || multiple.contains( id ) )
+            {
+                continue;
+            }
+            Node anchor = rel.getOtherNode( node );
+            Direction direction = rel.getStartNode().getId() == id ? Direction.INCOMING : Direction.OUTGOING;
+            NodeCluster key = new NodeCluster( anchor, rel.getType(), direction, 0, complete );
+            List<Node> members = groups.get( key );
+            if ( members == null )
+            {
+                members = new ArrayList<Node>();
+                groups.put( key, members );
+            }
+            members.add( node );
+            groupOf.put( node, key );
+        }
+        Map<NodeCluster, NodeCluster> clusters = new HashMap<NodeCluster, NodeCluster>();
+        Map<NodeCluster, Node> first = new HashMap<NodeCluster, Node>();
+        for ( Map.Entry<NodeCluster, List<Node>> group : groups.entrySet() )
+        {
+            NodeCluster key = group.getKey();
+            List<Node> members = group.getValue();
+            if ( members.size() < minSize )
+            {
+                continue;
+            }
+            NodeCluster cluster = new NodeCluster( key.anchor, key.relType, key.direction, members.size(),
+                    complete );
+            clusters.put( key, cluster );
+            first.put( key, members.get( 0 ) );
+            if ( expanded.contains( key ) )
+            {
+                opened.add( cluster );
+            }
+        }
+        List<Object> elements = new ArrayList<Object>( nodes.size() );
+        for ( Node node : nodes )
+        {
+            NodeCluster key = groupOf.get( node );
+            NodeCluster cluster = key == null ? null : clusters.get( key );
+            if ( cluster == null )
+            {
+                elements.add( node );
+            }
+            else if ( first.get( key ).equals( node ) && !expanded.contains( key ) )
+            {
+                elements.add( cluster );
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.part.ViewPart;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.TaskMetrics;
+import org.neo4j.neoclipse.graphdb.TaskStats;
+
+/**
+ * Live view of the task metrics of the graph database service manager: the
+ * queue depths and, per task name, counts and wait and execution times.
+ * Tasks that took the most time in total come first.
+ */
+public class TaskMetricsView extends ViewPart
+{
+    public static final String ID = "org.neo4j.neoclipse.view.TaskMetricsView";
+
+    private static final int REFRESH_MILLIS = 1000;
+    private static final String[] COLUMNS = { "Task", "Count", "Failed", "Total ms", "Mean wait ms",
+        "90% wait ms", "Mean exec ms", "90% exec ms", "Max exec ms" };
+    private static final int[] WIDTHS = { 200, 70, 60, 90, 90, 90, 90, 90, 90 };
+
+    private Label queueLabel;
+    private TableViewer tableViewer;
+    private final Runnable refresher = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            if ( tableViewer == null || tableViewer.getTable().isDisposed() )
+            {
+                return;
+            }
+            refresh();
+            tableViewer.getTable().getDisplay().timerExec( REFRESH_MILLIS, this );
+        }
+    };
+
+    @Override
+    public void createPartControl( final Composite parent )
+    {
+        parent.setLayout( new GridLayout( 1, false ) );
+        queueLabel = new Label( parent, SWT.NONE );
+        queueLabel.setLayoutData( new GridData( SWT.FILL, SWT.CENTER, true, false ) );
+        tableViewer = new TableViewer( parent, SWT.BORDER | SWT.FULL_SELECTION | SWT.V_SCROLL | SWT.H_SCROLL );
+        Table table = tableViewer.getTable();
+        table.setLayoutData( new GridData( SWT.FILL, SWT.FILL, true, true ) );
+        table.setHeaderVisible( true );
+        table.setLinesVisible( true );
+        for ( int i = 0; i < COLUMNS.length; i++ )
+        {
+            TableColumn column = new TableColumn( table, i == 0 ? SWT.LEFT : SWT.RIGHT );
+            column.setText( COLUMNS[i] );
+            column.setWidth( WIDTHS[i] );
+        }
+        tableViewer.setContentProvider( new ArrayContentProvider() );
+        tableViewer.setLabelProvider( new StatsLabelProvider() );
+        refresher.run();
+    }
+
+    private void refresh()
+    {
+        TaskMetrics metrics = Activator.getDefault().getGraphDbServiceManager().getTaskMetrics();
+        queueLabel.setText( "Transaction queue: " + metrics.getTransactionQueueDepth() + " waiting, "
+                            + metrics.getTransactionTasksRunning() + " running    Read queue: "
+                            + metrics.getReadQueueDepth() + " waiting, " + metrics.getReadTasksRunning()
+                            + " running" );
+        List<TaskStats> stats = metrics.getTaskStats();
+        Collections.sort( stats, new Comparator<TaskStats>()
+        {
+            @Override
+            public int compare( final TaskStats a, final TaskStats b )
+            {
+                return Double.compare( b.getTotalExecutionMillis(), a.getTotalExecutionMillis() );
+            }
+        } );
+        tableViewer.setInput( stats );
+    }
+
+    @Override
+    public void setFocus()
+    {
+        tableViewer.getTable().setFocus();
+    }
+
+    private static class StatsLabelProvider extends LabelProvider implements ITableLabelProvider
+    {
+        @Override
+        public Image getColumnImage( final Object element, final int columnIndex )
+        {
+            return null;
+        }
+
+        @Override
+        public String getColumnText( final Object element, final int columnIndex )
+        {
+            TaskStats stats = (TaskStats) element;
+            switch ( columnIndex )
+            {
+            case 0:
+                return stats.getName();
+            case 1:
+                return String.valueOf( stats.getCount() );
+            case 2:
+                return String.valueOf( stats.getFailures() );
+            case 3:
+                return format( stats.getTotalExecutionMillis() );
+            case 4:
+                return format( stats.getMeanWaitMillis() );
+            case 5:
+                return format( stats.getWaitMillis90thPercentile() );
+            case 6:
+                return format( stats.getMeanExecutionMillis() );
+            case 7:
+                return format( stats.getExecutionMillis90thPercentile() );
+            default:
+                return format( stats.getMaxExecutionMillis() );
+            }
+        }
+
+        private static String format( final double millis )
+        {
+            return String.format( "%.2f", millis );
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.neo4j.neoclipse.view;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.events.ControlAdapter;
+import org.eclipse.swt.events.ControlEvent;
+import org.eclipse.zest.core.viewers.GraphViewer;
+import org.eclipse.zest.core.widgets.Graph;
+import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphItem;
+import org.eclipse.zest.core.widgets.GraphNode;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.neoclipse.Activator;
+import org.neo4j.neoclipse.graphdb.GraphCallable;
+import org.neo4j.neoclipse.graphdb.GraphDbServiceManager;
+import org.neo4j.neoclipse.preference.Preferences;
+
+/**
+ * Decorates the elements of the graph view that intersect the visible part
+ * of the canvas plus a margin, so the database work for labels follows what
+ * is on screen and not the size of the graph. A pass runs after scrolling,
+ * resizing, zooming and layout changes; it collects the undecorated elements
+ * in sight in the UI thread and decorates them in a read task, one pass at a
+ * time. Below the zoom level set in the preferences labels and icons are
+ * hidden, and nothing is decorated.
+ */
+class ViewportDecorator
+{
+    /**
+     * Time to collect scroll and zoom events before a pass.
+     */
+    private static final int DELAY_MILLIS = 50;
+    /**
+     * Margin around the visible area, relative to its size.
+     */
+    private static final double MARGIN = 0.5;
+
+    private final NeoGraphViewPart view;
+    // only accessed in the UI thread
+    private boolean scheduled = false;
+    private boolean decorating = false;
+    private boolean again = false;
+
+    private final Runnable pass = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            scheduled = false;
+            decorate();
+        }
+    };
+
+    ViewportDecorator( final NeoGraphViewPart view )
+    {
+        this.view = view;
+    }
+
+    /**
+     * Starts a pass on scrolling and resizing of the graph.
+     */
+    void install( final Graph graph )
+    {
+        PropertyChangeListener scrolled = new PropertyChangeListener()
+        {
+            @Override
+            public void propertyChange( final PropertyChangeEvent event )
+            {
+                schedule();
+            }
+        };
+        Viewport viewport = graph.getViewport();
+        viewport.getHorizontalRangeModel().addPropertyChangeListener( scrolled );
+        viewport.getVerticalRangeModel().addPropertyChangeListener( scrolled );
+        graph.addControlListener( new ControlAdapter()
+        {
+            @Override
+            public void controlResized( final ControlEvent e )
+            {
+                schedule();
+            }
+        } );
+    }
+
+    /**
+     * Requests a pass; requests arriving until it starts are merged. Runs in
+     * the UI thread.
+     */
+    void schedule()
+    {
+        Graph graph = view.getViewer().getGraphControl();
+        if ( scheduled || graph.isDisposed() )
+        {
+            return;
+        }
+        scheduled = true;
+        graph.getDisplay().timerExec( DELAY_MILLIS, pass );
+    }
+
+    private void decorate()
+    {
+        final GraphViewer viewer = view.getViewer();
+        Graph graph = viewer.getGraphControl();
+        if ( graph.isDisposed() )
+        {
+            return;
+        }
+        final NeoGraphLabelProvider labelProvider = view.getLabelProvider();
+        double scale = graph.getRootLayer().getScale();
+        int threshold = Activator.getDefault().getPreferenceStore().getInt(
+                Preferences.LABEL_ZOOM );
+        boolean hidden = scale * 100 < threshold;
+        if ( hidden != labelProvider.isLabelsHidden() )
+        {
+            labelProvider.setLabelsHidden( hidden );
+            viewer.update( dataOf( graph.getNodes(), graph.getConnections() ), null );
+        }
+        if ( hidden )
+        {
+            return;
+        }
+        if ( decorating )
+        {
+            again = true;
+            return;
+        }
+        Rectangle area = visibleArea( graph, scale );
+        final List<Node> nodes = new ArrayList<Node>();
+        final List<Relationship> rels = new ArrayList<Relationship>();
+        Set<GraphNode> inSight = new HashSet<GraphNode>();
+        for ( Object item : graph.getNodes() )
+        {
+            GraphNode graphNode = (GraphNode) item;
+            if ( !area.intersects( new Rectangle( graphNode.getLocation(), graphNode.getSize() ) ) )
+            {
+                continue;
+            }
+            inSight.add( graphNode );
+            Object data = graphNode.getData();
+            if ( data instanceof Node && !labelProvider.isDecorated( data ) )
+            {
+                nodes.add( (Node) data );
+            }
+        }
+        for ( Object item : graph.getConnections() )
+        {
+            GraphConnection connection = (GraphConnection) item;
+            Object data = connection.getData();
+            if ( data instanceof Relationship && !labelProvider.isDecorated( data )
+                 && ( inSight.contains( connection.getSource() ) || inSight.contains( connection.getDestination() ) ) )
+            {
+                rels.add( (Relationship) data );
+            }
+        }
+        GraphDbServiceManager gsm = Activator.getDefault().getGraphDbServiceManager();
+        if ( ( nodes.isEmpty() && rels.isEmpty() ) || gsm == null || !gsm.isRunning() )
+        {
+            return;
+        }
+        decorating = true;
+        try
+        {
+            gsm.submitReadTask( new GraphCallable<Boolean>()
+            {
+                @Override
+                public Boolean call( final GraphDatabaseService graphDb )
+                {
+                    try
+                    {
+                        labelProvider.decorate( nodes, rels );
+                    }
+                    finally
+                    {
+                        UiHelper.asyncExec( new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                finished( nodes, rels );
+                            }
+                        } );
+                    }
+                    return true;
+                }
+            }, "decorate visible elements" );
+        }
+        catch ( RuntimeException e )
+        {
+            decorating = false;
+            throw e;
+        }
+    }
+
+    private void finished( final List<Node> nodes, final List<Relationship> rels )
+    {
+        decorating = false;
+        GraphViewer viewer = view.getViewer();
+        if ( viewer.getControl().isDisposed() )
+        {
+            return;
+        }
+        List<Object> elements = new ArrayList<Object>( nodes.size() + rels.size() );
+        elements.addAll( nodes );
+        elements.addAll( rels );
+        viewer.update( elements.toArray(), null );
+        if ( again )
+        {
+            again = false;
+            schedule();
+        }
+    }
+
+    /**
+     * Returns the visible part of the graph plus the margin, in the
+     * coordinates of the nodes.
+     */
+    private static Rectangle visibleArea( final Graph graph, final double scale )
+    {
+        Viewport viewport = graph.getViewport();
+        Point location = viewport.getViewLocation();
+        Rectangle client = viewport.getClientArea();
+        double width = client.width / scale;
+        double height = client.height / scale;
+        return new Rectangle( (int) ( location.x / scale - width * MARGIN ),
+                (int) ( location.y / scale - height * MARGIN ),
+                (int) ( width * ( 1 + 2 * MARGIN ) ),
+                (int) ( height * ( 1 + 2 * MARGIN ) ) );
+    }
+
+    private static Object[] dataOf( final List<?> nodes, final List<?> connections )
+    {
+        List<Object> data = new ArrayList<Object>( nodes.size() + connections.size() );
+        for ( Object item : nodes )
+        {
+            data.add( ( (GraphItem) item ).getData() );
+        }
+        for ( Object item : connections )
+        {
+            data.add( ( (GraphItem) item ).getData() );
+        }
+        return data.toArray();
+    }
+}
@@ -103,7 +103,7 @@ public abstract class NeoclipseExample
         System.out.println();
     }
 
-    private static boolean deleteDir( final File directory )
+    public static boolean deleteDir( final File directory )
     {
         if ( directory.isDirectory() )
         {
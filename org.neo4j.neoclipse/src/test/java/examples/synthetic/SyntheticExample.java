@@ -0,0 +1,103 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package examples.synthetic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.kernel.EmbeddedGraphDatabase;
+
+import examples.NeoclipseExample;
+
+/**
+ * Writes a synthetic graph to the same store location as the other examples,
+ * so it can be opened in Neoclipse afterwards. The size is set by the
+ * "synthetic.nodes" and "synthetic.relationships" system properties, for
+ * example <code>-Dsynthetic.nodes=1000000 -Dsynthetic.relationships=10000000</code>.
+ * This one doesn't extend {@link NeoclipseExample}, as the batch inserter needs
+ * the store for itself while writing.
+ */
+public class SyntheticExample
+{
+    private static final String STORE_LOCATION_DIR = "target" + File.separator
+        + "neo";
+    private static final int NODES = Integer.getInteger( "synthetic.nodes",
+        100000 );
+    private static final long RELATIONSHIPS = Long.getLong(
+        "synthetic.relationships", 1000000L );
+
+    private static GraphDatabaseService neo;
+    private static long firstNode;
+
+    @BeforeClass
+    public static void generate()
+    {
+        File file = new File( STORE_LOCATION_DIR );
+        if ( file.exists() )
+        {
+            NeoclipseExample.deleteDir( file );
+        }
+        long start = System.currentTimeMillis();
+        firstNode = new SyntheticGraph().nodes( NODES ).relationships(
+            RELATIONSHIPS ).generate( file );
+        System.out.println( "Generated " + NODES + " nodes and "
+            + RELATIONSHIPS + " relationships in "
+            + ( System.currentTimeMillis() - start ) + " ms" );
+        neo = new EmbeddedGraphDatabase( file.getAbsolutePath() );
+    }
+
+    @AfterClass
+    public static void stopNeo()
+    {
+        neo.shutdown();
+    }
+
+    @Test
+    public void supernodesHaveTheLargestDegrees()
+    {
+        Node supernode = neo.getNodeById( firstNode );
+        assertEquals( "supernode 0", supernode.getProperty( "name" ) );
+        int supernodeDegree = degree( supernode );
+        int nodeDegree = degree( neo.getNodeById( firstNode + NODES - 1 ) );
+        System.out.println( "Degree of a supernode: " + supernodeDegree
+            + ", of the last node: " + nodeDegree );
+        assertTrue( supernodeDegree > nodeDegree * 10 );
+    }
+
+    @Test
+    public void nodesAreIndexed()
+    {
+        Node node = neo.index().forNodes( SyntheticGraph.NODE_INDEX ).get(
+            "name", "node 42" ).getSingle();
+        assertEquals( firstNode + 42, node.getId() );
+    }
+
+    private static int degree( final Node node )
+    {
+        return IteratorUtil.count( node.getRelationships() );
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Licensed to Neo Technology under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Neo Technology licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package examples.synthetic;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+/**
+ * Generates large synthetic graphs through the batch inserter. Degrees follow
+ * a power law, a few supernodes get a fixed share of all relationships and
+ * every node and relationship carries a property payload. The same
+ * parameters and seed always give the same graph.
+ * <p>
+ * Usage: <code>new SyntheticGraph().nodes( 1000000 ).relationships( 10000000 ).generate( dir );</code>
+ */
+public class SyntheticGraph
+{
+    /**
+     * Name of the node index, with the "name" and "kind" keys.
+     */
+    public static final String NODE_INDEX = "nodes";
+    private static final String[] KINDS = { "person", "company", "product",
+        "place" };
+    private static final String[] WORDS = { "alpha", "bravo", "charlie",
+        "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+        "kilo", "lima", "mike", "november", "oscar", "papa", "quebec",
+        "romeo", "sierra", "tango", "uniform", "victor", "whiskey", "xray",
+        "yankee", "zulu", "graph", "node", "edge", "path", "index", "store" };
+    private static final long EPOCH = 1262304000000L; // 2010-01-01
+
+    private int nodeCount = 100000;
+    private long relationshipCount = 1000000;
+    private double degreeExponent = 2.1;
+    private int supernodeCount = 10;
+    private double supernodeShare = 0.05;
+    private int payloadSize = 64;
+    private long seed = 1;
+    private boolean indexed = true;
+
+    private Random random;
+    private long firstNode;
+
+    /**
+     * Number of nodes, the default is 100 000.
+     */
+    public SyntheticGraph nodes( final int count )
+    {
+        if ( count < 2 )
+        {
+            throw new IllegalArgumentException( "At least two nodes needed." );
+        }
+        nodeCount = count;
+        return this;
+    }
+
+    /**
+     * Number of relationships, the default is 1 000 000.
+     */
+    public SyntheticGraph relationships( final long count )
+    {
+        relationshipCount = count;
+        return this;
+    }
+
+    /**
+     * Exponent of the degree distribution, P(k) ~ k^-exponent. Must be larger
+     * than 1, lower values give more skewed graphs. The default is 2.1.
+     */
+    public SyntheticGraph degreeExponent( final double exponent )
+    {
+        if ( exponent <= 1 )
+        {
+            throw new IllegalArgumentException(
+                "The degree exponent must be larger than 1." );
+        }
+        degreeExponent = exponent;
+        return this;
+    }
+
+    /**
+     * Number of supernodes and the share of all relationships they take part
+     * in. The defaults are 10 and 0.05. There are never more supernodes
+     * than nodes.
+     */
+    public SyntheticGraph supernodes( final int count, final double share )
+    {
+        supernodeCount = count;
+        supernodeShare = count == 0 ? 0 : share;
+        return this;
+    }
+
+    /**
+     * Approximate length of the text property on each node, the default is
+     * 64 characters.
+     */
+    public SyntheticGraph payload( final int size )
+    {
+        payloadSize = size;
+        return this;
+    }
+
+    public SyntheticGraph seed( final long value )
+    {
+        seed = value;
+        return this;
+    }
+
+    /**
+     * Whether to add the nodes to the {@link #NODE_INDEX} index, the default
+     * is true. Indexing is the slowest part of the generation.
+     */
+    public SyntheticGraph indexed( final boolean value )
+    {
+        indexed = value;
+        return this;
+    }
+
+    /**
+     * Writes the graph to a new store in the given directory.
+     * @return the id of the first generated node, the others follow in
+     *         sequence and the supernodes come first
+     */
+    public long generate( final File dir )
+    {
+        random = new Random( seed );
+        int supernodes = Math.min( supernodeCount, nodeCount );
+        BatchInserter inserter = BatchInserters.inserter( dir.getAbsolutePath() );
+        BatchInserterIndexProvider indexProvider = null;
+        BatchInserterIndex index = null;
+        if ( indexed )
+        {
+            indexProvider = new LuceneBatchInserterIndexProvider( inserter );
+            index = indexProvider.nodeIndex( NODE_INDEX,
+                MapUtil.stringMap( "type", "exact" ) );
+        }
+        try
+        {
+            createNodes( inserter, index, supernodes );
+            createRelationships( inserter, supernodes );
+            if ( index != null )
+            {
+                index.flush();
+            }
+        }
+        finally
+        {
+            if ( indexProvider != null )
+            {
+                indexProvider.shutdown();
+            }
+            inserter.shutdown();
+        }
+        return firstNode;
+    }
+
+    private void createNodes( final BatchInserter inserter,
+        final BatchInserterIndex index, final int supernodes )
+    {
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            boolean supernode = i < supernodes;
+            String name = supernode ? "supernode " + i : "node " + i;
+            String kind = KINDS[random.nextInt( KINDS.length )];
+            Map<String,Object> properties = new HashMap<String,Object>();
+            properties.put( "name", name );
+            properties.put( "kind", kind );
+            properties.put( "created", EPOCH
+                + (long) ( random.nextDouble() * 3E11 ) );
+            properties.put( "score", random.nextGaussian() * 10 + 50 );
+            properties.put( "active", random.nextInt( 10 ) != 0 );
+            properties.put( "tags", tags() );
+            properties.put( "description", text( payloadSize ) );
+            long id = inserter.createNode( properties );
+            if ( i == 0 )
+            {
+                firstNode = id;
+            }
+            if ( index != null )
+            {
+                index.add( id, MapUtil.map( "name", name, "kind", kind ) );
+            }
+        }
+    }
+
+    private void createRelationships( final BatchInserter inserter,
+        final int supernodes )
+    {
+        // sources and targets are drawn from the same distribution, a
+        // permutation keeps the nodes with many outgoing relationships apart
+        // from the ones with many incoming
+        int[] sources = permutation();
+        SyntheticRels[] types = SyntheticRels.values();
+        double rankExponent = 1 / ( degreeExponent - 1 );
+        double rankScale = Math.pow( nodeCount + 1, 1 - rankExponent ) - 1;
+        for ( long r = 0; r < relationshipCount; r++ )
+        {
+            int start;
+            int end;
+            if ( random.nextDouble() < supernodeShare && supernodes > 0 )
+            {
+                int supernode = random.nextInt( supernodes );
+                int other = rank( rankExponent, rankScale );
+                boolean outgoing = random.nextBoolean();
+                start = outgoing ? supernode : other;
+                end = outgoing ? other : supernode;
+            }
+            else
+            {
+                start = sources[rank( rankExponent, rankScale )];
+                end = rank( rankExponent, rankScale );
+            }
+            if ( start == end )
+            {
+                end = ( end + 1 ) % nodeCount;
+            }
+            SyntheticRels type = types[random.nextInt( types.length )];
+            Map<String,Object> properties = new HashMap<String,Object>();
+            properties.put( "weight", random.nextFloat() );
+            properties.put( "since", 1990 + random.nextInt( 30 ) );
+            if ( type == SyntheticRels.BOUGHT )
+            {
+                properties.put( "note", text( payloadSize / 4 ) );
+            }
+            inserter.createRelationship( firstNode + start, firstNode + end,
+                type, properties );
+        }
+    }
+
+    /**
+     * Draws a node from a Zipf-like distribution over the node ranks, which
+     * gives a power law degree distribution with the configured exponent.
+     */
+    private int rank( final double rankExponent, final double rankScale )
+    {
+        double u = random.nextDouble();
+        double x;
+        if ( rankExponent == 1 )
+        {
+            x = Math.pow( nodeCount + 1, u );
+        }
+        else
+        {
+            x = Math.pow( rankScale * u + 1, 1 / ( 1 - rankExponent ) );
+        }
+        return Math.min( (int) x - 1, nodeCount - 1 );
+    }
+
+    private int[] permutation()
+    {
+        int[] nodes = new int[nodeCount];
+        for ( int i = 0; i < nodeCount; i++ )
+        {
+            nodes[i] = i;
+        }
+        for ( int i = nodeCount - 1; i > 0; i-- )
+        {
+            int j = random.nextInt( i + 1 );
+            int tmp = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = tmp;
+        }
+        return nodes;
+    }
+
+    private String[] tags()
+    {
+        String[] tags = new String[1 + random.nextInt( 4 )];
+        for ( int i = 0; i < tags.length; i++ )
+        {
+            tags[i] = WORDS[random.nextInt( WORDS.length )];
+        }
+        return tags;
+    }
+
+    private String text( final int size )
+    {
+        StringBuilder text = new StringBuilder( size + 16 );
+        while ( text.length() < size )
+        {
+            if ( text.length() > 0 )
+            {
+                text.append( ' ' );
+            }
+            text.append( WORDS[random.nextInt( WORDS.length )] );
+        }
+        return text.toString();
+    }
+}